@@ -0,0 +1,31 @@
+package project2;
+
+import java.io.IOException;
+
+/**
+ * Provides the main entry point for the benchmark suite. The suite runs with
+ * the garbage collection profiler so that every result includes its allocation
+ * rate.
+ * 
+ * @author Ishan Pranav
+ */
+public final class Benchmarks {
+    /**
+     * Provides the main entry point for the benchmark suite.
+     * 
+     * @param args the command-line arguments passed to the JMH runner.
+     * @throws IOException if an error occurs while writing the results.
+     */
+    public static void main(String[] args) throws IOException {
+        final String[] options = new String[args.length + 2];
+
+        options[0] = "-prof";
+        options[1] = "gc";
+
+        System.arraycopy(args, 0, options, 2, args.length);
+        org.openjdk.jmh.Main.main(options);
+    }
+
+    private Benchmarks() {
+    }
+}
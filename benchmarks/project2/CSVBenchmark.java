@@ -0,0 +1,159 @@
+package project2;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the buffered {@link CSV} tokenizer with the original
+ * {@link ScannerCSV} implementation.
+ * 
+ * @author Ishan Pranav
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CSVBenchmark {
+    @Param({ "10000", "100000", "1000000", "5000000" })
+    public int rows;
+
+    private Path path;
+
+    /**
+     * Generates the data set in a temporary file.
+     * 
+     * @throws IOException if an error occurs while writing the file.
+     */
+    @Setup
+    public void setup() throws IOException {
+        path = CensusGenerator.createTempFile(rows, 2015);
+    }
+
+    /**
+     * Deletes the temporary file.
+     * 
+     * @throws IOException if an error occurs while deleting the file.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Reads every line using the original implementation.
+     * 
+     * @param blackhole the sink for the fields.
+     * @throws IOException if an error occurs while reading the data set.
+     */
+    @Benchmark
+    public void scanner(Blackhole blackhole) throws IOException {
+        try (ScannerCSV csv = new ScannerCSV(new FileInputStream(path.toFile()))) {
+            while (csv.hasNext()) {
+                final List<String> fields = csv.next();
+
+                blackhole.consume(fields);
+            }
+        }
+    }
+
+    /**
+     * Reads every line as a list of strings.
+     * 
+     * @param blackhole the sink for the fields.
+     * @throws IOException if an error occurs while reading the data set.
+     */
+    @Benchmark
+    public void next(Blackhole blackhole) throws IOException {
+        try (CSV csv = new CSV(new FileInputStream(path.toFile()))) {
+            while (csv.hasNext()) {
+                final List<String> fields = csv.next();
+
+                blackhole.consume(fields);
+            }
+        }
+    }
+
+    /**
+     * Reads every line through field offsets without creating any strings.
+     * 
+     * @param blackhole the sink for the fields.
+     * @throws IOException if an error occurs while reading the data set.
+     */
+    @Benchmark
+    public void read(Blackhole blackhole) throws IOException {
+        try (CSV csv = new CSV(new FileInputStream(path.toFile()))) {
+            while (csv.read()) {
+                final int fieldCount = csv.getFieldCount();
+
+                for (int i = 0; i < fieldCount; i++) {
+                    blackhole.consume(csv.getFieldLength(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads every line as a list of strings restricted to the columns used by
+     * the application.
+     * 
+     * @param blackhole the sink for the fields.
+     * @throws IOException if an error occurs while reading the data set.
+     */
+    @Benchmark
+    public void projected(Blackhole blackhole) throws IOException {
+        try (CSV csv = new CSV(new FileInputStream(path.toFile()))) {
+            csv.readHeader();
+            csv.project("tree_id", "spc_common", "spc_latin", "status", "health", "zipcode", "boroname", "x_sp",
+                    "y_sp");
+
+            while (csv.hasNext()) {
+                final List<String> fields = csv.next();
+
+                blackhole.consume(fields);
+            }
+        }
+    }
+
+    /**
+     * Reads every line of a memory-mapped file as a list of strings restricted
+     * to the columns used by the application.
+     * 
+     * @param blackhole the sink for the fields.
+     * @throws IOException if an error occurs while reading the data set.
+     */
+    @Benchmark
+    public void mapped(Blackhole blackhole) throws IOException {
+        try (FileChannel channel = FileChannel.open(path); CSV csv = new CSV(channel)) {
+            csv.readHeader();
+            csv.project("tree_id", "spc_common", "spc_latin", "status", "health", "zipcode", "boroname", "x_sp",
+                    "y_sp");
+
+            while (csv.hasNext()) {
+                final List<String> fields = csv.next();
+
+                blackhole.consume(fields);
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package project2;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates deterministic synthetic tree census data sets with the same
+ * columns as the 2015 New York City Street Tree Census.
+ * 
+ * @author Ishan Pranav
+ */
+public final class CensusGenerator {
+    private static final String HEADER = "tree_id,block_id,created_at,tree_dbh,stump_diam,curb_loc,status,health,"
+            + "spc_latin,spc_common,steward,guards,sidewalk,user_type,problems,root_stone,root_grate,root_other,"
+            + "trunk_wire,trnk_light,trnk_other,brch_light,brch_shoe,brch_other,address,zipcode,zip_city,cb_num,"
+            + "borocode,boroname,cncldist,st_assem,st_senate,nta,nta_name,boro_ct,state,latitude,longitude,x_sp,y_sp";
+
+    private static final String[][] SPECIES = {
+            { "Platanus x acerifolia", "London planetree" },
+            { "Gleditsia triacanthos var. inermis", "honeylocust" },
+            { "Pyrus calleryana", "Callery pear" },
+            { "Quercus palustris", "pin oak" },
+            { "Acer platanoides", "Norway maple" },
+            { "Tilia cordata", "littleleaf linden" },
+            { "Syringa reticulata", "Japanese tree lilac" },
+            { "Zelkova serrata", "Japanese zelkova" },
+            { "Ginkgo biloba", "ginkgo" },
+            { "Styphnolobium japonicum", "Sophora" },
+            { "Acer rubrum", "red maple" },
+            { "Tilia tomentosa", "silver linden" },
+            { "Quercus rubra", "northern red oak" },
+            { "Acer saccharinum", "silver maple" },
+            { "Quercus bicolor", "swamp white oak" },
+            { "Fraxinus pennsylvanica", "green ash" },
+            { "Ulmus americana", "American elm" },
+            { "Malus", "crab apple" },
+            { "Liquidambar styraciflua", "sweetgum" },
+            { "Cercis canadensis", "eastern redbud" } };
+
+    private static final String[] BOROUGHS = { "Manhattan", "Bronx", "Brooklyn", "Queens", "Staten Island" };
+    private static final int[][] ZIP_CODES = {
+            { 10001, 10002, 10003, 10011, 10025, 10027, 10032 },
+            { 10451, 10453, 10456, 10461, 10465, 10467, 10469 },
+            { 11201, 11205, 11211, 11215, 11220, 11230, 11234 },
+            { 11354, 11355, 11358, 11364, 11375, 11385, 11432 },
+            { 10301, 10304, 10306, 10308, 10309, 10312, 10314 } };
+
+    /**
+     * Writes a synthetic data set to the given output stream.
+     * 
+     * @param output the output stream.
+     * @param rows   the number of rows, excluding the header row.
+     * @param seed   the seed for the pseudorandom number generator.
+     * @throws IOException if an error occurs while writing to the output stream.
+     */
+    public static void write(OutputStream output, int rows, long seed) throws IOException {
+        final Random random = new Random(seed);
+        final StringBuilder line = new StringBuilder(512);
+
+        output.write(HEADER.getBytes(StandardCharsets.US_ASCII));
+        output.write('\n');
+
+        for (int i = 0; i < rows; i++) {
+            line.setLength(0);
+
+            // Skew the species distribution toward the most common species
+
+            final double draw = random.nextDouble();
+            final String[] species = SPECIES[(int) (draw * draw * SPECIES.length)];
+            final int borough = random.nextInt(BOROUGHS.length);
+            final int status = random.nextInt(20);
+            final boolean alive = status < 18;
+
+            line.append(180000 + i).append(',')
+                    .append(200000 + random.nextInt(300000)).append(',')
+                    .append("08/27/2015,")
+                    .append(alive ? 3 + random.nextInt(30) : 0).append(',')
+                    .append(alive ? 0 : random.nextInt(20)).append(',')
+                    .append("OnCurb,")
+                    .append(alive ? "Alive" : status == 18 ? "Dead" : "Stump").append(',');
+
+            if (alive) {
+                line.append(random.nextInt(4) == 0 ? "Fair" : random.nextInt(8) == 0 ? "Poor" : "Good").append(',')
+                        .append(species[0]).append(',')
+                        .append(species[1]).append(',');
+            } else {
+                line.append(",,,");
+            }
+
+            line.append("None,None,NoDamage,TreesCount Staff,None,No,No,No,No,No,No,No,No,No,")
+                    .append('"').append(1 + random.nextInt(999)).append(" MAIN STREET, APT ")
+                    .append(1 + random.nextInt(9)).append("\",");
+
+            final int zipCode = ZIP_CODES[borough][random.nextInt(ZIP_CODES[borough].length)];
+
+            line.append(zipCode).append(',')
+                    .append(BOROUGHS[borough]).append(',')
+                    .append(100 + random.nextInt(400)).append(',')
+                    .append(borough + 1).append(',')
+                    .append(BOROUGHS[borough]).append(',')
+                    .append(1 + random.nextInt(51)).append(',')
+                    .append(23 + random.nextInt(65)).append(',')
+                    .append(10 + random.nextInt(26)).append(',')
+                    .append("BK").append(10 + random.nextInt(90)).append(',')
+                    .append("\"Park Slope-Gowanus\",")
+                    .append(3000000 + random.nextInt(999999)).append(',')
+                    .append("New York,");
+
+            final double x = 913000 + random.nextDouble() * 154000;
+            final double y = 120000 + random.nextDouble() * 152000;
+
+            line.append(40.5 + (y - 120000) / 364000).append(',')
+                    .append(-74.25 + (x - 913000) / 277000).append(',')
+                    .append(x).append(',')
+                    .append(y).append('\n');
+
+            output.write(line.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    /**
+     * Writes a synthetic data set to a temporary file. Large data sets are
+     * streamed to the file rather than generated in memory.
+     * 
+     * @param rows the number of rows, excluding the header row.
+     * @param seed the seed for the pseudorandom number generator.
+     * @return The path to the temporary file.
+     * @throws IOException if an error occurs while writing the file.
+     */
+    public static Path createTempFile(int rows, long seed) throws IOException {
+        final Path result = Files.createTempFile("census", ".csv");
+
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(result), 1 << 16)) {
+            write(output, rows, seed);
+        }
+
+        return result;
+    }
+
+    /**
+     * Generates a synthetic data set in memory.
+     * 
+     * @param rows the number of rows, excluding the header row.
+     * @param seed the seed for the pseudorandom number generator.
+     * @return The contents of the data set.
+     */
+    public static byte[] generate(int rows, long seed) {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream(rows * 400);
+
+        try {
+            write(result, rows, seed);
+        } catch (IOException ioException) {
+            throw new IllegalStateException(ioException);
+        }
+
+        return result.toByteArray();
+    }
+
+    private CensusGenerator() {
+    }
+}
@@ -0,0 +1,616 @@
+package project2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+/**
+ * Provides a self-check that compares the indexed query paths with a scan of
+ * every tree. The check exercises the containers of {@link RowBitmap} against
+ * {@link BitSet}, and the spatial grid over degenerate layouts such as a
+ * single tree or trees at a single point. It then evaluates random filters
+ * over a generated data set using the bitmap indices, the spatial grid, and
+ * the counts of each species, comparing each count and grouping with the
+ * result of examining every tree. The check is deterministic for a given
+ * number of rows and seed.
+ * 
+ * @author Ishan Pranav
+ */
+public final class FilterCheck {
+    private static final int DEFAULT_ROWS = 300000;
+    private static final int BITMAP_ROUNDS = 200;
+    private static final int FILTER_ROUNDS = 400;
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    // Each block of a random set takes one of these densities, so that sets mix
+    // empty blocks, sorted arrays, and bitmaps on both sides of the threshold of
+    // 4,096 positions between them
+
+    private static final double[] DENSITIES = { 0, 0.0005, 0.03, 0.0624, 0.0626, 0.1, 0.5, 1 };
+
+    private static final Borough[] BOROUGHS = Borough.values();
+    private static final TreeStatus[] STATUSES = TreeStatus.values();
+    private static final TreeHealth[] HEALTHS = TreeHealth.values();
+
+    private int failures;
+
+    /**
+     * Represents a random filter together with an independent implementation of
+     * its conditions.
+     */
+    private static final class Reference {
+        private String commonName;
+        private String latinName;
+        private EnumSet<Borough> boroughs;
+        private EnumSet<TreeStatus> statuses;
+        private EnumSet<TreeHealth> healths;
+        private int minZipCode = 0;
+        private int maxZipCode = TreeFilter.ZIP_CODES - 1;
+        private double[] circle;
+        private double[] bounds;
+
+        /**
+         * Creates the filter that is implemented by the reference.
+         * 
+         * @return The filter.
+         */
+        public TreeFilter toFilter() {
+            TreeFilter result = TreeFilter.ALL;
+
+            if (commonName != null) {
+                result = result.and(TreeFilter.commonName(commonName.toUpperCase()));
+            }
+
+            if (latinName != null) {
+                result = result.and(TreeFilter.latinName(latinName.toLowerCase()));
+            }
+
+            if (boroughs != null) {
+                result = result.and(TreeFilter.borough(boroughs.toArray(new Borough[0])));
+            }
+
+            if (statuses != null) {
+                result = result.and(TreeFilter.status(statuses.toArray(new TreeStatus[0])));
+            }
+
+            if (healths != null) {
+                result = result.and(TreeFilter.health(healths.toArray(new TreeHealth[0])));
+            }
+
+            if (minZipCode > 0 || maxZipCode < TreeFilter.ZIP_CODES - 1) {
+                result = result.and(TreeFilter.zipCodeRange(minZipCode, maxZipCode));
+            }
+
+            if (circle != null) {
+                result = result.and(TreeFilter.withinRadius(circle[0], circle[1], circle[2]));
+            }
+
+            if (bounds != null) {
+                result = result.and(TreeFilter.bounds(bounds[0], bounds[1], bounds[2], bounds[3]));
+            }
+
+            return result;
+        }
+
+        /**
+         * Determines whether a tree satisfies every condition of the reference.
+         * 
+         * @param tree the tree.
+         * @return {@code true} if the tree matches; otherwise, {@code false}.
+         */
+        public boolean matches(Tree tree) {
+            if (commonName != null && !commonName.equalsIgnoreCase(tree.getCommonName())) {
+                return false;
+            }
+
+            if (latinName != null && !latinName.equalsIgnoreCase(tree.getLatinName())) {
+                return false;
+            }
+
+            if (boroughs != null && !boroughs.contains(tree.getBoroughValue())) {
+                return false;
+            }
+
+            if (statuses != null && !statuses.contains(getStatus(tree))) {
+                return false;
+            }
+
+            if (healths != null && !healths.contains(getHealth(tree))) {
+                return false;
+            }
+
+            if (tree.getZipCode() < minZipCode || tree.getZipCode() > maxZipCode) {
+                return false;
+            }
+
+            if (circle != null) {
+                final double dx = tree.getX() - circle[0];
+                final double dy = tree.getY() - circle[1];
+
+                if (dx * dx + dy * dy > circle[2] * circle[2]) {
+                    return false;
+                }
+            }
+
+            return bounds == null
+                    || (tree.getX() >= bounds[0] && tree.getY() >= bounds[1]
+                            && tree.getX() <= bounds[2] && tree.getY() <= bounds[3]);
+        }
+    }
+
+    /**
+     * Provides the main entry point for the self-check.
+     * 
+     * @param args the number of rows to generate and the seed, both optional.
+     * @throws IOException           if an error occurs while writing or reading
+     *                               the generated data set.
+     * @throws IllegalStateException if any indexed result differs from the scan.
+     */
+    public static void main(String[] args) throws IOException {
+        final int rows = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS;
+        final long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        final FilterCheck check = new FilterCheck();
+        final Random random = new Random(seed);
+
+        check.checkBitmaps(random);
+        check.checkGrids();
+
+        final Path path = CensusGenerator.createTempFile(rows, seed);
+        final TreeList trees = new TreeList();
+        final TreeSpeciesList species = new TreeSpeciesList();
+
+        try {
+            CensusLoader.load(path.toString(), trees, species);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+
+        check.checkFilters(random, trees, species);
+        mutate(random, trees, species);
+        check.checkFilters(random, trees, species);
+
+        if (check.failures > 0) {
+            throw new IllegalStateException(check.failures + " checks failed.");
+        }
+
+        System.out.println("All checks passed.");
+    }
+
+    /**
+     * Compares random compressed sets of positions with the same sets held in
+     * {@link BitSet} instances.
+     * 
+     * @param random the pseudorandom number generator.
+     */
+    private void checkBitmaps(Random random) {
+        for (int round = 0; round < BITMAP_ROUNDS; round++) {
+            final BitSet firstSet = new BitSet();
+            final BitSet secondSet = new BitSet();
+            final RowBitmap first = createBitmap(random, firstSet);
+            final RowBitmap second = createBitmap(random, secondSet);
+            final BitSet intersection = (BitSet) firstSet.clone();
+            final BitSet union = (BitSet) firstSet.clone();
+
+            intersection.and(secondSet);
+            union.or(secondSet);
+            verify("cardinality", first.cardinality(), firstSet.cardinality());
+            verify("andCardinality", first.andCardinality(second), intersection.cardinality());
+            verify("and", first.and(second), intersection);
+            verify("or", first.or(second), union);
+            verify("or", second.or(first), union);
+            verify("iterator", first, firstSet);
+        }
+    }
+
+    /**
+     * Compares location queries over trees whose coordinates have no area or no
+     * extent with a scan of every tree. The grid over each layout must have no
+     * more cells than trees, and every query must finish.
+     */
+    private void checkGrids() {
+        final double x = 1000000;
+        final double y = 200000;
+        final String[] names = { "one tree", "one point", "vertical line", "horizontal line", "tiny extent" };
+
+        for (int layout = 0; layout < names.length; layout++) {
+            final int count = layout == 0 ? 1 : 1000;
+            final TreeList trees = new TreeList();
+            final TreeSpecies species = new TreeSpecies("pin oak", "Quercus palustris");
+
+            for (int i = 0; i < count; i++) {
+                final Tree tree = new Tree(i, species);
+
+                switch (layout) {
+                    case 2:
+                        tree.setX(x);
+                        tree.setY(y + i);
+                        break;
+
+                    case 3:
+                        tree.setX(x + i);
+                        tree.setY(y);
+                        break;
+
+                    case 4:
+                        tree.setX(x + i * 1e-10);
+                        tree.setY(y - i * 1e-10);
+                        break;
+
+                    default:
+                        tree.setX(x);
+                        tree.setY(y);
+                        break;
+                }
+
+                trees.add(tree);
+            }
+
+            final int cells = new SpatialGrid(trees).getCellCount();
+
+            if (cells > count) {
+                failures++;
+
+                System.out.println(names[layout] + ": expected at most " + count + " cells but found " + cells + ".");
+            }
+
+            final double[][] points = { { x, y }, { x + 3, y + 500 }, { x - 1e6, y + 1e6 }, { 0, 0 } };
+
+            for (double[] point : points) {
+                for (double radius : new double[] { 0, 1e-9, 10, 1e7 }) {
+                    int inside = 0;
+                    int inBounds = 0;
+
+                    for (int i = 0; i < count; i++) {
+                        final Tree tree = trees.get(i);
+                        final double dx = tree.getX() - point[0];
+                        final double dy = tree.getY() - point[1];
+
+                        if (dx * dx + dy * dy <= radius * radius) {
+                            inside++;
+                        }
+
+                        if (tree.getX() >= point[0] - radius && tree.getX() <= point[0] + radius
+                                && tree.getY() >= point[1] - radius && tree.getY() <= point[1] + radius) {
+                            inBounds++;
+                        }
+                    }
+
+                    verify(names[layout] + " radius", trees.getCountWithinRadius(point[0], point[1], radius), inside);
+                    verify(names[layout] + " bounds", trees.getCountInBounds(point[0] - radius, point[1] - radius,
+                            point[0] + radius, point[1] + radius), inBounds);
+                }
+
+                verifyNearest(names[layout] + " nearest", trees, point[0], point[1], 10);
+            }
+        }
+    }
+
+    /**
+     * Records a failure if the nearest trees to a point differ from those found
+     * by sorting every tree by distance and then by position.
+     * 
+     * @param name  the name of the check.
+     * @param trees the trees, whose identifiers are their positions.
+     * @param x     the x-coordinate of the point.
+     * @param y     the y-coordinate of the point.
+     * @param k     the number of trees to find.
+     */
+    private void verifyNearest(String name, TreeList trees, final double x, final double y, int k) {
+        final int count = trees.getTotalNumberOfTrees();
+        final Integer[] expected = new Integer[count];
+
+        for (int i = 0; i < count; i++) {
+            expected[i] = i;
+        }
+
+        final double[] distances = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            final double dx = trees.get(i).getX() - x;
+            final double dy = trees.get(i).getY() - y;
+
+            distances[i] = dx * dx + dy * dy;
+        }
+
+        Arrays.sort(expected, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                final int result = Double.compare(distances[first], distances[second]);
+
+                return result == 0 ? Integer.compare(first, second) : result;
+            }
+        });
+
+        final Iterator<Tree> actual = trees.getNearestTrees(x, y, k);
+
+        for (int i = 0; i < Math.min(k, count); i++) {
+            if (!actual.hasNext() || actual.next().getTreeID() != expected[i]) {
+                failures++;
+
+                System.out.println(name + ": the tree at rank " + i + " differs.");
+
+                return;
+            }
+        }
+
+        if (actual.hasNext()) {
+            failures++;
+
+            System.out.println(name + ": expected " + Math.min(k, count) + " trees but found more.");
+        }
+    }
+
+    /**
+     * Creates a random compressed set of positions. Each block of the set has a
+     * random density, and the number of blocks varies, so that pairs of sets
+     * have different numbers of blocks.
+     * 
+     * @param random   the pseudorandom number generator.
+     * @param expected the set to which the same positions are added.
+     * @return The compressed set.
+     */
+    private static RowBitmap createBitmap(Random random, BitSet expected) {
+        final int length = 1 + random.nextInt(6 * BLOCK_SIZE);
+        final int[] codes = new int[length];
+        double density = 0;
+
+        for (int i = 0; i < length; i++) {
+            if ((i & (BLOCK_SIZE - 1)) == 0) {
+                density = DENSITIES[random.nextInt(DENSITIES.length)];
+            }
+
+            if (random.nextDouble() < density) {
+                codes[i] = 1;
+
+                expected.set(i);
+            }
+        }
+
+        return RowBitmap.build(codes, length, 2)[1];
+    }
+
+    /**
+     * Compares random filters evaluated by the collection with a scan of every
+     * tree.
+     * 
+     * @param random  the pseudorandom number generator.
+     * @param trees   the trees.
+     * @param species the distinct tree species.
+     */
+    private void checkFilters(Random random, TreeList trees, TreeSpeciesList species) {
+        final Tree[] all = new Tree[trees.getTotalNumberOfTrees()];
+
+        for (int i = 0; i < all.length; i++) {
+            all[i] = trees.get(i);
+        }
+
+        for (int round = 0; round < FILTER_ROUNDS; round++) {
+            final Reference reference = createReference(random, all, species);
+            final TreeFilter filter = reference.toFilter();
+            final HashMap<Object, Integer> bySpecies = new HashMap<Object, Integer>();
+            final HashMap<Object, Integer> byBorough = new HashMap<Object, Integer>();
+            final HashMap<Object, Integer> byStatus = new HashMap<Object, Integer>();
+            final HashMap<Object, Integer> byHealth = new HashMap<Object, Integer>();
+            final HashMap<Object, Integer> byZipCode = new HashMap<Object, Integer>();
+            int count = 0;
+
+            for (Tree tree : all) {
+                if (reference.matches(tree)) {
+                    count++;
+
+                    increment(bySpecies, tree.getSpecies());
+                    increment(byBorough, tree.getBoroughValue());
+                    increment(byStatus, getStatus(tree));
+                    increment(byHealth, getHealth(tree));
+                    increment(byZipCode, tree.getZipCode());
+                }
+            }
+
+            verify("count", trees.getCount(filter), count);
+            verify("species", trees.groupBy(filter, TreeField.SPECIES), bySpecies);
+            verify("borough", trees.groupBy(filter, TreeField.BOROUGH), byBorough);
+            verify("status", trees.groupBy(filter, TreeField.STATUS), byStatus);
+            verify("health", trees.groupBy(filter, TreeField.HEALTH), byHealth);
+            verify("zipcode", trees.groupBy(filter, TreeField.ZIP_CODE), byZipCode);
+        }
+    }
+
+    /**
+     * Creates a random filter. Each condition is included independently, so the
+     * filters range from a single condition answered by a count vector to
+     * combinations answered by the bitmap indices or the spatial grid.
+     * 
+     * @param random  the pseudorandom number generator.
+     * @param all     the trees.
+     * @param species the distinct tree species.
+     * @return The filter and its reference implementation.
+     */
+    private static Reference createReference(Random random, Tree[] all, TreeSpeciesList species) {
+        final Reference result = new Reference();
+
+        if (random.nextInt(3) == 0) {
+            result.commonName = species.get(random.nextInt(species.size())).getCommonName();
+        }
+
+        if (random.nextInt(5) == 0) {
+            result.latinName = species.get(random.nextInt(species.size())).getLatinName();
+        }
+
+        if (random.nextInt(2) == 0) {
+            result.boroughs = EnumSet.of(BOROUGHS[random.nextInt(BOROUGHS.length)],
+                    BOROUGHS[random.nextInt(BOROUGHS.length)]);
+        }
+
+        if (random.nextInt(3) == 0) {
+            result.statuses = EnumSet.of(STATUSES[random.nextInt(STATUSES.length)]);
+        }
+
+        if (random.nextInt(3) == 0) {
+            result.healths = EnumSet.of(HEALTHS[random.nextInt(HEALTHS.length)],
+                    HEALTHS[random.nextInt(HEALTHS.length)]);
+        }
+
+        if (random.nextInt(4) == 0) {
+            final int zipCode = all[random.nextInt(all.length)].getZipCode();
+
+            result.minZipCode = Math.max(0, zipCode - random.nextInt(50));
+            result.maxZipCode = Math.min(TreeFilter.ZIP_CODES - 1, zipCode + random.nextInt(50));
+        }
+
+        if (random.nextInt(4) == 0) {
+            final Tree center = all[random.nextInt(all.length)];
+
+            result.circle = new double[] { center.getX(), center.getY(), random.nextInt(20000) };
+        }
+
+        if (random.nextInt(5) == 0) {
+            final Tree corner = all[random.nextInt(all.length)];
+
+            result.bounds = new double[] {
+                    corner.getX() - random.nextInt(5000),
+                    corner.getY() - random.nextInt(5000),
+                    corner.getX() + random.nextInt(5000),
+                    corner.getY() + random.nextInt(5000)
+            };
+        }
+
+        return result;
+    }
+
+    /**
+     * Updates a random twentieth of the trees, so that the indices are rebuilt
+     * and the columns hold statuses and health descriptions that the generated
+     * data set does not.
+     * 
+     * @param random  the pseudorandom number generator.
+     * @param trees   the trees.
+     * @param species the distinct tree species.
+     */
+    private static void mutate(Random random, TreeList trees, TreeSpeciesList species) {
+        final int count = trees.getTotalNumberOfTrees();
+
+        for (int i = 0; i < count / 20; i++) {
+            final Tree original = trees.get(random.nextInt(count));
+            final Tree tree = new Tree(original.getTreeID(), species.get(random.nextInt(species.size())));
+
+            tree.setBorough(BOROUGHS[random.nextInt(BOROUGHS.length)]);
+            tree.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            tree.setHealth(HEALTHS[random.nextInt(HEALTHS.length)]);
+            tree.setZipCode(original.getZipCode());
+            tree.setX(original.getX());
+            tree.setY(original.getY());
+            trees.update(tree);
+        }
+    }
+
+    /**
+     * Gets the status of a tree, treating a status that was not set as
+     * {@link TreeStatus#UNSPECIFIED}.
+     * 
+     * @param tree the tree.
+     * @return The status.
+     */
+    private static TreeStatus getStatus(Tree tree) {
+        final TreeStatus result = tree.getStatusValue();
+
+        return result == null ? TreeStatus.UNSPECIFIED : result;
+    }
+
+    /**
+     * Gets the health of a tree, treating a health that was not set as
+     * {@link TreeHealth#UNSPECIFIED}.
+     * 
+     * @param tree the tree.
+     * @return The health.
+     */
+    private static TreeHealth getHealth(Tree tree) {
+        final TreeHealth result = tree.getHealthValue();
+
+        return result == null ? TreeHealth.UNSPECIFIED : result;
+    }
+
+    /**
+     * Increments the count of a key.
+     * 
+     * @param counts the counts.
+     * @param key    the key.
+     */
+    private static void increment(HashMap<Object, Integer> counts, Object key) {
+        final Integer current = counts.get(key);
+
+        counts.put(key, current == null ? 1 : current + 1);
+    }
+
+    /**
+     * Records a failure if a count differs from the expected count.
+     * 
+     * @param name     the name of the check.
+     * @param actual   the count from the index.
+     * @param expected the count from the scan.
+     */
+    private void verify(String name, int actual, int expected) {
+        if (actual != expected) {
+            failures++;
+
+            System.out.println(name + ": expected " + expected + " but found " + actual + ".");
+        }
+    }
+
+    /**
+     * Records a failure if a grouping differs from the expected grouping.
+     * 
+     * @param name     the name of the check.
+     * @param actual   the grouping from the index.
+     * @param expected the grouping from the scan.
+     */
+    private void verify(String name, Map<?, Integer> actual, Map<Object, Integer> expected) {
+        if (!new HashMap<Object, Integer>(actual).equals(expected)) {
+            failures++;
+
+            System.out.println(name + ": expected " + expected + " but found " + actual + ".");
+        }
+    }
+
+    /**
+     * Records a failure if a compressed set of positions differs from the
+     * expected set.
+     * 
+     * @param name     the name of the check.
+     * @param actual   the compressed set.
+     * @param expected the expected set.
+     */
+    private void verify(String name, RowBitmap actual, BitSet expected) {
+        final BitSet positions = new BitSet();
+        final PrimitiveIterator.OfInt iterator = actual.iterator();
+        int previous = -1;
+        boolean ordered = true;
+
+        while (iterator.hasNext()) {
+            final int position = iterator.nextInt();
+
+            ordered &= position > previous;
+            previous = position;
+
+            positions.set(position);
+        }
+
+        if (!ordered || actual.cardinality() != expected.cardinality() || !positions.equals(expected)) {
+            failures++;
+
+            System.out.println(name + ": expected " + expected.cardinality() + " positions but found "
+                    + actual.cardinality() + ".");
+        }
+    }
+
+    private FilterCheck() {
+    }
+}
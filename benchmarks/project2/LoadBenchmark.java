@@ -0,0 +1,109 @@
+package project2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the time required to load a data set by parsing it and by restoring
+ * its binary snapshot, and to stream it into aggregate totals.
+ * 
+ * @author Ishan Pranav
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoadBenchmark {
+    @Param({ "10000", "100000", "1000000", "5000000" })
+    public int rows;
+
+    private Path path;
+
+    /**
+     * Generates the data set in a temporary file and writes its snapshot.
+     * 
+     * @throws IOException if an error occurs while writing the files.
+     */
+    @Setup
+    public void setup() throws IOException {
+        path = CensusGenerator.createTempFile(rows, 2015);
+
+        final TreeList trees = new TreeList();
+        final TreeSpeciesList species = new TreeSpeciesList();
+
+        final long position = CensusLoader.load(path.toString(), trees, species);
+
+        CensusSnapshot.write(path.toString(), trees, species, position);
+    }
+
+    /**
+     * Deletes the temporary files.
+     * 
+     * @throws IOException if an error occurs while deleting the files.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(CensusSnapshot.getPath(path.toString()));
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Parses the data set.
+     * 
+     * @param blackhole the sink for the collections.
+     * @throws IOException if an error occurs while reading the data set.
+     */
+    @Benchmark
+    public void load(Blackhole blackhole) throws IOException {
+        final TreeList trees = new TreeList();
+        final TreeSpeciesList species = new TreeSpeciesList();
+
+        CensusLoader.load(path.toString(), trees, species);
+        blackhole.consume(trees);
+        blackhole.consume(species);
+    }
+
+    /**
+     * Streams the data set into aggregate totals without retaining the trees.
+     * 
+     * @return The aggregate.
+     * @throws IOException if an error occurs while reading the data set.
+     */
+    @Benchmark
+    public CensusAggregate aggregate() throws IOException {
+        final CensusAggregate result = new CensusAggregate();
+
+        CensusLoader.aggregate(path.toString(), result);
+
+        return result;
+    }
+
+    /**
+     * Restores the snapshot of the data set.
+     * 
+     * @return The snapshot.
+     * @throws IOException if an error occurs while reading the snapshot.
+     */
+    @Benchmark
+    public CensusSnapshot restore() throws IOException {
+        return CensusSnapshot.read(path.toString());
+    }
+}
@@ -0,0 +1,379 @@
+package project2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the species lookups, tree counts, spatial queries, and keyword
+ * summaries that answer a query against a loaded data set.
+ * 
+ * @author Ishan Pranav
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+    private static final String BOROUGH = "Brooklyn";
+    private static final List<String> KEYWORDS = Arrays.asList(
+            "oak", "maple", "Quercus", "Acer", "red", "pine", "cherry", "linden", "zzz", "London planetree");
+
+    @Param({ "10000", "100000", "1000000", "5000000" })
+    public int rows;
+
+    @Param({ "oak", "maple", "Quercus" })
+    public String keyword;
+
+    private Path path;
+    private NYCStreetTrees program;
+    private TreeList trees;
+    private TreeSpeciesList species;
+    private String commonName;
+    private String latinName;
+    private int[] treeIDs;
+    private int zipCode;
+    private final CensusMetrics metrics = new CensusMetrics();
+    private int next;
+    private int nextUpdate;
+
+    /**
+     * Generates and loads the data set.
+     * 
+     * @throws IOException if an error occurs while accessing the data set.
+     */
+    @Setup
+    public void setup() throws IOException {
+        path = CensusGenerator.createTempFile(rows, 2015);
+        trees = new TreeList();
+        species = new TreeSpeciesList();
+
+        CensusLoader.load(path.toString(), trees, species);
+
+        program = new NYCStreetTrees(path.toString());
+
+        // Count the first species that matches the keyword
+
+        TreeSpeciesList matches = species.getByCommonName(keyword);
+
+        if (matches == null) {
+            matches = species.getByLatinName(keyword);
+        }
+
+        commonName = matches.get(0).getCommonName();
+        latinName = matches.get(0).getLatinName();
+
+        // Look up identifiers of random trees, building the identifier index
+        // before measurement
+
+        final Random random = new Random(2015);
+
+        treeIDs = new int[1024];
+
+        for (int i = 0; i < treeIDs.length; i++) {
+            treeIDs[i] = trees.getTreeID(random.nextInt(trees.getTotalNumberOfTrees()));
+        }
+
+        trees.indexOfTreeID(treeIDs[0]);
+
+        zipCode = trees.get(0).getZipCode();
+    }
+
+    /**
+     * Deletes the temporary files.
+     * 
+     * @throws IOException if an error occurs while deleting the files.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(CensusSnapshot.getPath(path.toString()));
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Finds the species whose common names contain the keyword.
+     * 
+     * @return The matching species.
+     */
+    @Benchmark
+    public TreeSpeciesList getByCommonName() {
+        return species.getByCommonName(keyword);
+    }
+
+    /**
+     * Finds the species whose Latin names contain the keyword.
+     * 
+     * @return The matching species.
+     */
+    @Benchmark
+    public TreeSpeciesList getByLatinName() {
+        return species.getByLatinName(keyword);
+    }
+
+    /**
+     * Counts the trees with a given common name.
+     * 
+     * @return The number of trees.
+     */
+    @Benchmark
+    public int getCountByCommonName() {
+        return trees.getCountByCommonName(commonName);
+    }
+
+    /**
+     * Counts the trees with a given Latin name.
+     * 
+     * @return The number of trees.
+     */
+    @Benchmark
+    public int getCountByLatinName() {
+        return trees.getCountByLatinName(latinName);
+    }
+
+    /**
+     * Counts the trees in a given borough.
+     * 
+     * @return The number of trees.
+     */
+    @Benchmark
+    public int getCountByBorough() {
+        return trees.getCountByBorough(BOROUGH);
+    }
+
+    /**
+     * Counts the trees with a given common name in a given borough.
+     * 
+     * @return The number of trees.
+     */
+    @Benchmark
+    public int getCountByCommonNameBorough() {
+        return trees.getCountByCommonNameBorough(commonName, BOROUGH);
+    }
+
+    /**
+     * Counts the trees with a given Latin name in a given borough.
+     * 
+     * @return The number of trees.
+     */
+    @Benchmark
+    public int getCountByLatinNameBorough() {
+        return trees.getCountByLatinNameBorough(latinName, BOROUGH);
+    }
+
+    /**
+     * Counts the trees in poor health of the matched species in Brooklyn by
+     * intersecting the bitmap indices of the species, borough, and health.
+     * 
+     * @return The number of trees.
+     */
+    @Benchmark
+    public int getCountByFilter() {
+        return trees.getCount(TreeFilter.commonName(commonName)
+                .and(TreeFilter.borough(Borough.BROOKLYN))
+                .and(TreeFilter.health(TreeHealth.POOR)));
+    }
+
+    /**
+     * Counts the same trees as {@link #getCountByFilter()} through the program,
+     * which also records the latency of the count, so that the difference
+     * between the two benchmarks is the overhead of the metrics.
+     * 
+     * @return The number of trees.
+     */
+    @Benchmark
+    public int getCountByFilterWithMetrics() {
+        return program.count(TreeFilter.commonName(commonName)
+                .and(TreeFilter.borough(Borough.BROOKLYN))
+                .and(TreeFilter.health(TreeHealth.POOR)));
+    }
+
+    /**
+     * Records the latency of a phase, which reads the clock and increments two
+     * counters.
+     */
+    @Benchmark
+    public void recordLatency() {
+        metrics.record(CensusMetrics.Phase.COUNT, System.nanoTime());
+    }
+
+    /**
+     * Counts the living trees in fair or poor health in Brooklyn or Queens,
+     * which intersects the unions of several dense bitmap indices.
+     * 
+     * @return The number of trees.
+     */
+    @Benchmark
+    public int getCountByAttributes() {
+        return trees.getCount(TreeFilter.borough(Borough.BROOKLYN, Borough.QUEENS)
+                .and(TreeFilter.status(TreeStatus.ALIVE))
+                .and(TreeFilter.health(TreeHealth.FAIR, TreeHealth.POOR)));
+    }
+
+    /**
+     * Finds the ten postal (ZIP) codes with the most living trees of the matched
+     * species.
+     * 
+     * @return The postcodes and their numbers of trees.
+     */
+    @Benchmark
+    public Map<Integer, Integer> getTopZipCodes() {
+        return trees.getTop(TreeFilter.commonName(commonName).and(TreeFilter.status(TreeStatus.ALIVE)),
+                TreeField.ZIP_CODE, 10);
+    }
+
+    /**
+     * Finds the ten species with the most trees in the postal (ZIP) code of the
+     * first tree using the totals by postcode.
+     * 
+     * @return The species and their numbers of trees.
+     */
+    @Benchmark
+    public Map<TreeSpecies, Integer> getTopSpeciesByZipCode() {
+        return trees.getTop(TreeFilter.zipCode(zipCode), TreeField.SPECIES, 10);
+    }
+
+    /**
+     * Ranks the ten most common species in the city and in each borough using
+     * the totals by species and borough.
+     * 
+     * @return The species and their numbers of trees in each borough.
+     */
+    @Benchmark
+    public Map<Borough, Map<TreeSpecies, Integer>> getTopSpeciesByBorough() {
+        return trees.getTopSpeciesByBorough(10);
+    }
+
+    /**
+     * Gets a tree by its identifier.
+     * 
+     * @return The tree.
+     */
+    @Benchmark
+    public Tree getByTreeID() {
+        next = (next + 1) & (treeIDs.length - 1);
+
+        return trees.getByTreeID(treeIDs[next]);
+    }
+
+    /**
+     * Counts the trees within 500 feet of a point in Brooklyn.
+     * 
+     * @return The number of trees.
+     */
+    @Benchmark
+    public int getCountWithinRadius() {
+        return trees.getCountWithinRadius(990000, 180000, 500);
+    }
+
+    /**
+     * Finds the ten trees nearest to a point in Brooklyn.
+     * 
+     * @param blackhole the sink for the trees.
+     */
+    @Benchmark
+    public void getNearestTrees(Blackhole blackhole) {
+        final Iterator<Tree> iterator = trees.getNearestTrees(990000, 180000, 10);
+
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    /**
+     * Computes the frequencies of the species that match the keyword in the city
+     * and in each borough.
+     * 
+     * @return The summary.
+     */
+    @Benchmark
+    public SpeciesSummary summarize() {
+        return program.summarize(keyword);
+    }
+
+    /**
+     * Computes the frequencies of the species that match the keyword without
+     * consulting the summary cache.
+     * 
+     * @return The summary.
+     */
+    @Benchmark
+    public SpeciesSummary computeSummary() {
+        return program.computeSummary(keyword);
+    }
+
+    /**
+     * Summarizes a batch of keywords one at a time without consulting the
+     * summary cache.
+     * 
+     * @param blackhole the sink for the summaries.
+     */
+    @Benchmark
+    public void computeSummaries(Blackhole blackhole) {
+        for (String item : KEYWORDS) {
+            blackhole.consume(program.computeSummary(item));
+        }
+    }
+
+    /**
+     * Summarizes a batch of keywords together, counting each species once.
+     * 
+     * @return The summaries.
+     */
+    @Benchmark
+    public List<SpeciesSummary> summarizeAll() {
+        return program.summarizeAll(KEYWORDS);
+    }
+
+    /**
+     * Computes the summary of the keyword without consulting the summary cache
+     * while another thread updates trees, measuring the latency of queries
+     * during changes to the data set.
+     * 
+     * @return The summary.
+     */
+    @Benchmark
+    @Group("updating")
+    @GroupThreads(3)
+    public SpeciesSummary computeSummaryWhileUpdating() {
+        return program.computeSummary(keyword);
+    }
+
+    /**
+     * Rewrites a tree with its current values, publishing a new version of the
+     * data set, while other threads compute summaries.
+     * 
+     * @return {@code true} if the tree was updated; otherwise, {@code false}.
+     */
+    @Benchmark
+    @Group("updating")
+    @GroupThreads(1)
+    public boolean updateWhileSummarizing() {
+        nextUpdate = (nextUpdate + 1) & (treeIDs.length - 1);
+
+        return program.update(program.getTree(treeIDs[nextUpdate]));
+    }
+}
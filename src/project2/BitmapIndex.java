@@ -0,0 +1,187 @@
+package project2;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Represents an immutable set of bitmap indices over the species, borough,
+ * status, and health columns of a {@link TreeList}. For each value of each
+ * column, the index holds a {@link RowBitmap} of the positions of the trees
+ * with that value, so that a filter on several columns is answered by
+ * combining bitmaps rather than by examining each tree.
+ * 
+ * @author Ishan Pranav
+ */
+final class BitmapIndex {
+    private final RowBitmap[] species;
+    private final RowBitmap[] boroughs;
+    private final RowBitmap[] statuses;
+    private final RowBitmap[] healths;
+
+    /**
+     * Initializes a new instance of the {@link BitmapIndex} class.
+     * 
+     * @param trees the trees to index.
+     */
+    public BitmapIndex(TreeList trees) {
+        final int count = trees.getTotalNumberOfTrees();
+        final int[] codes = new int[count];
+
+        // Reuse one array of codes for each column in turn
+
+        for (int i = 0; i < count; i++) {
+            codes[i] = trees.getSpeciesCode(i);
+        }
+
+        species = RowBitmap.build(codes, count, trees.getSpeciesCount());
+
+        for (int i = 0; i < count; i++) {
+            codes[i] = trees.getBoroughCode(i);
+        }
+
+        boroughs = RowBitmap.build(codes, count, Borough.values().length);
+
+        for (int i = 0; i < count; i++) {
+            codes[i] = trees.getStatusCode(i);
+        }
+
+        statuses = RowBitmap.build(codes, count, TreeStatus.values().length + 1);
+
+        for (int i = 0; i < count; i++) {
+            codes[i] = trees.getHealthCode(i);
+        }
+
+        healths = RowBitmap.build(codes, count, TreeHealth.values().length + 1);
+    }
+
+    /**
+     * Gets the union of the bitmaps of the given codes.
+     * 
+     * @param bitmaps the bitmap of each code.
+     * @param mask    the mask with one bit set for each code.
+     * @return The union, or {@code null} if the mask selects every code.
+     */
+    private static RowBitmap union(RowBitmap[] bitmaps, int mask) {
+        if (mask == -1) {
+            return null;
+        }
+
+        RowBitmap result = null;
+
+        for (int code = 0; code < bitmaps.length; code++) {
+            if ((mask & (1 << code)) != 0) {
+                result = result == null ? bitmaps[code] : result.or(bitmaps[code]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the union of the bitmaps of the given species.
+     * 
+     * @param matches whether each species is selected, indexed by species
+     *                identifier, or {@code null} to select every species.
+     * @return The union, or {@code null} if every species is selected.
+     */
+    private RowBitmap union(boolean[] matches) {
+        if (matches == null) {
+            return null;
+        }
+
+        RowBitmap result = null;
+
+        for (int i = 0; i < matches.length; i++) {
+            if (matches[i]) {
+                result = result == null ? species[i] : result.or(species[i]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the positions of the trees whose codes are selected in every column.
+     * 
+     * @param speciesMatches whether each species is selected, indexed by species
+     *                       identifier, or {@code null} to select every species.
+     * @param boroughMask    the mask of selected borough indices, or -1 to
+     *                       select every tree, including those in no borough.
+     * @param statusMask     the mask of selected status codes.
+     * @param healthMask     the mask of selected health codes.
+     * @return The positions of the selected trees, or {@code null} if every tree
+     *         is selected.
+     */
+    public RowBitmap select(boolean[] speciesMatches, int boroughMask, int statusMask, int healthMask) {
+        final RowBitmap[] unions = {
+                union(speciesMatches),
+                union(boroughs, boroughMask),
+                union(statuses, statusMask),
+                union(healths, healthMask)
+        };
+
+        // Intersect the smallest unions first, so that each intersection is no
+        // larger than the smallest union
+
+        Arrays.sort(unions, new Comparator<RowBitmap>() {
+            @Override
+            public int compare(RowBitmap x, RowBitmap y) {
+                if (x == null || y == null) {
+                    return x == null ? (y == null ? 0 : 1) : -1;
+                }
+
+                return Integer.compare(x.cardinality(), y.cardinality());
+            }
+        });
+
+        RowBitmap result = unions[0];
+
+        for (int i = 1; i < unions.length && unions[i] != null && result.cardinality() > 0; i++) {
+            result = result.and(unions[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the bitmap of the trees of the given species.
+     * 
+     * @param speciesID the species identifier.
+     * @return The bitmap.
+     */
+    public RowBitmap getSpecies(int speciesID) {
+        return species[speciesID];
+    }
+
+    /**
+     * Gets the bitmap of the trees in the given borough.
+     * 
+     * @param borough the borough index.
+     * @return The bitmap.
+     */
+    public RowBitmap getBorough(int borough) {
+        return boroughs[borough];
+    }
+
+    /**
+     * Gets the bitmap of the trees with the given status code.
+     * 
+     * @param code the status code, which is zero for a status that was not set
+     *             and one more than the ordinal of any other status.
+     * @return The bitmap.
+     */
+    public RowBitmap getStatus(int code) {
+        return statuses[code];
+    }
+
+    /**
+     * Gets the bitmap of the trees with the given health code.
+     * 
+     * @param code the health code, which is zero for a health that was not set
+     *             and one more than the ordinal of any other health.
+     * @return The bitmap.
+     */
+    public RowBitmap getHealth(int code) {
+        return healths[code];
+    }
+}
@@ -0,0 +1,91 @@
+package project2;
+
+/**
+ * Specifies a borough of New York City. The ordinal of each borough is its index in the array returned by
+ * {@link Tree#getBoroughs()}.
+ * 
+ * @author Ishan Pranav
+ */
+public enum Borough {
+    /**
+     * Represents Manhattan.
+     */
+    MANHATTAN("Manhattan"),
+
+    /**
+     * Represents the Bronx.
+     */
+    BRONX("Bronx"),
+
+    /**
+     * Represents Brooklyn.
+     */
+    BROOKLYN("Brooklyn"),
+
+    /**
+     * Represents Queens.
+     */
+    QUEENS("Queens"),
+
+    /**
+     * Represents Staten Island.
+     */
+    STATEN_ISLAND("Staten Island");
+
+    private static final Borough[] VALUES = values();
+
+    private final String name;
+
+    private Borough(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of the borough as it appears in the dataset.
+     * 
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the borough with the given name using a case-insensitive comparison.
+     * 
+     * @param name the name.
+     * @return The borough, or {@code null} if the name is not a valid borough name.
+     */
+    public static Borough parse(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        for (Borough item : VALUES) {
+            if (item.name.equalsIgnoreCase(name)) {
+                return item;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the borough named by the given field of the current line of a
+     * comma-delimited data source using a case-insensitive comparison. The
+     * field is compared in place, without creating a string.
+     * 
+     * @param csv    the comma-delimited data source.
+     * @param column the zero-based index of the field.
+     * @return The borough, or {@code null} if the field is not a valid borough
+     *         name.
+     */
+    public static Borough match(CSV csv, int column) {
+        for (Borough item : VALUES) {
+            if (csv.fieldEqualsIgnoreCase(column, item.name)) {
+                return item;
+            }
+        }
+
+        return null;
+    }
+}
@@ -3,10 +3,16 @@ package project2;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Scanner;
+import java.util.NoSuchElementException;
 
 /**
  * Provides an iterator for a comma-delimited data source, such as a
@@ -17,11 +23,79 @@ import java.util.Scanner;
  * implementation in CSV.java. This implementation uses lazy iteration to
  * minimize memory usage.
  * 
+ * The data source is either read into a reusable byte buffer or mapped into
+ * memory, and tokenized by a state machine that never modifies the buffer. The
+ * fields of the current line can be inspected through their offsets in the
+ * buffer without creating any strings; quotation marks are only removed when a
+ * field is converted to a string. The data source must use a charset in which
+ * the comma, quotation mark, whitespace, and line terminator characters are
+ * encoded as single ASCII bytes, such as UTF-8.
+ * 
+ * The iterator can be restricted to a projection of the columns in the data
+ * source, identified by index or by the names in the header row. Fields
+ * outside the projection are scanned but never converted to strings.
+ * 
  * @author Joanna Klukowska
  * @author Ishan Pranav
  */
 public class CSV implements Closeable, Iterator<List<String>> {
-    private final Scanner scanner;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int SEGMENT_SIZE = 1 << 28;
+    private static final int MAX_SEGMENT_SIZE = Integer.MAX_VALUE - 8;
+    private static final byte QUOTED = 1;
+    private static final byte TRIMMED = 2;
+    private static final boolean[] WHITESPACE = new boolean[128];
+
+    static {
+        for (int i = 0; i < WHITESPACE.length; i++) {
+            WHITESPACE[i] = Character.isWhitespace(i);
+        }
+    }
+
+    /**
+     * Determines whether the given byte represents a whitespace character.
+     * 
+     * @param value the byte.
+     * @return {@code true} if the byte represents an ASCII whitespace character;
+     *         otherwise, {@code false}.
+     */
+    private static boolean isWhitespace(byte value) {
+        return value >= 0 && WHITESPACE[value];
+    }
+
+    /**
+     * Determines whether the given byte is removed by {@link String#trim()}.
+     * 
+     * @param value the byte.
+     * @return {@code true} if the byte represents an ASCII space or control
+     *         character; otherwise, {@code false}.
+     */
+    private static boolean isTrimmed(byte value) {
+        return value >= 0 && value <= ' ';
+    }
+
+    private final InputStream input;
+    private final FileChannel channel;
+    private final long end;
+    private final Charset charset = Charset.defaultCharset();
+
+    private byte[] array;
+    private ByteBuffer buffer;
+    private ByteBuffer view;
+    private long segmentStart;
+    private int position;
+    private int limit;
+    private boolean endOfStream;
+    private boolean skipLineFeed;
+    private int[] fieldStarts = new int[64];
+    private int[] fieldEnds = new int[64];
+    private byte[] fieldFlags = new byte[64];
+    private int fieldCount;
+    private byte[] scratch = new byte[256];
+    private List<String> header = Collections.emptyList();
+    private int[] projection;
+    private boolean[] projected;
+    private int lastProjected = Integer.MAX_VALUE;
 
     /**
      * Initializes a new instance of the {@link CSV} class.
@@ -29,35 +103,413 @@ public class CSV implements Closeable, Iterator<List<String>> {
      * @param input the input stream.
      */
     public CSV(InputStream input) {
-        this.scanner = new Scanner(input);
+        this.input = input;
+        this.channel = null;
+        this.end = Long.MAX_VALUE;
+        this.array = new byte[BUFFER_SIZE];
+
+        setBuffer(ByteBuffer.wrap(array));
+    }
+
+    /**
+     * Initializes a new instance of the {@link CSV} class over a range of a file
+     * channel. The range is mapped into memory in segments, so that files of any
+     * size can be tokenized without copying their contents onto the heap.
+     * Closing the iterator does not close the channel. An error accessing the
+     * channel is thrown from {@link #hasNext()} and {@link #next()} as an
+     * {@link UncheckedIOException}.
+     * 
+     * @param channel the file channel.
+     * @param start   the position of the first byte in the range.
+     * @param end     the position after the last byte in the range.
+     * @throws IllegalArgumentException if channel is {@code null}.
+     * @throws IllegalArgumentException if start is negative or greater than end.
+     */
+    public CSV(FileChannel channel, long start, long end) {
+        if (channel == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: channel.");
+        }
+
+        if (start < 0 || start > end) {
+            throw new IllegalArgumentException(
+                    "Value is out of range. A non-negative number not greater than end is required. Argument name: start.");
+        }
+
+        this.input = null;
+        this.channel = channel;
+        this.end = end;
+        this.segmentStart = start;
+
+        setBuffer(ByteBuffer.allocate(0));
+    }
+
+    /**
+     * Initializes a new instance of the {@link CSV} class over an entire file
+     * channel.
+     * 
+     * @param channel the file channel.
+     * @throws IOException              if an error occurs while accessing the
+     *                                  channel.
+     * @throws IllegalArgumentException if channel is {@code null}.
+     * @see #CSV(FileChannel, long, long)
+     */
+    public CSV(FileChannel channel) throws IOException {
+        this(channel, 0, channel == null ? 0 : channel.size());
+    }
+
+    /**
+     * Sets the buffer that holds the current segment of the data source.
+     * 
+     * @param value the buffer.
+     */
+    private void setBuffer(ByteBuffer value) {
+        buffer = value;
+        view = value.asReadOnlyBuffer();
     }
 
     /** {@inheritDoc} */
     @Override
     public void close() throws IOException {
-        scanner.close();
+        if (input != null) {
+            input.close();
+        }
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean hasNext() {
-        return scanner.hasNextLine();
+        if (skipLineFeed && ensureAvailable()) {
+            // Treat a carriage return followed by a line feed as a single line
+            // terminator
+
+            if (buffer.get(position) == '\n') {
+                position++;
+            }
+
+            skipLineFeed = false;
+        }
+
+        return ensureAvailable();
     }
 
     /** {@inheritDoc} */
     @Override
     public List<String> next() {
-        final ArrayList<String> results = new ArrayList<String>();
+        if (!read()) {
+            throw new NoSuchElementException("Collection has no more elements.");
+        }
+
+        if (projection == null) {
+            final ArrayList<String> results = new ArrayList<String>(fieldCount);
+
+            for (int i = 0; i < fieldCount; i++) {
+                results.add(getField(i));
+            }
+
+            return results;
+        }
+
+        final ArrayList<String> results = new ArrayList<String>(projection.length);
+
+        for (int column : projection) {
+            if (column < fieldCount) {
+                results.add(getField(column));
+            } else {
+                // Treat missing fields as empty
+
+                results.add("");
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Reads the next line as the header row. The names in the header row can
+     * then be used to identify columns.
+     * 
+     * @return The column names, or an empty list if the data source contains no
+     *         more lines.
+     */
+    public List<String> readHeader() {
+        final int[] savedProjection = projection;
+
+        project((int[]) null);
+
+        if (hasNext()) {
+            header = Collections.unmodifiableList(next());
+        } else {
+            header = Collections.emptyList();
+        }
+
+        project(savedProjection);
+
+        return header;
+    }
+
+    /**
+     * Gets the index of the column with the given name in the header row using a
+     * case-insensitive comparison.
+     * 
+     * @param name the column name.
+     * @return The zero-based index of the column, or -1 if the header row does
+     *         not contain the given name or has not been read.
+     */
+    public int getColumnIndex(String name) {
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i).equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Restricts the iterator to the given columns. Each list returned by the
+     * {@link #next()} method then contains the fields of the given columns, in
+     * the given order, and an empty string for each column missing from the
+     * line. The fields outside the projection are empty.
+     * 
+     * @param columns the zero-based indices of the columns, or {@code null} to
+     *                include all columns.
+     * @throws IllegalArgumentException if any column is negative.
+     */
+    public void project(int... columns) {
+        if (columns == null) {
+            projection = null;
+            projected = null;
+            lastProjected = Integer.MAX_VALUE;
+
+            return;
+        }
+
+        int last = -1;
+
+        for (int column : columns) {
+            if (column < 0) {
+                throw new IllegalArgumentException(
+                        "Value is out of range. A non-negative number is required. Argument name: columns.");
+            }
+
+            last = Math.max(last, column);
+        }
+
+        projection = columns.clone();
+        projected = new boolean[last + 1];
+        lastProjected = last;
+
+        for (int column : columns) {
+            projected[column] = true;
+        }
+    }
+
+    /**
+     * Restricts the iterator to the columns with the given names in the header
+     * row.
+     * 
+     * @param names the column names.
+     * @throws IllegalArgumentException if the header row does not contain any of
+     *                                  the given names.
+     * @see #project(int...)
+     */
+    public void project(String... names) {
+        final int[] columns = new int[names.length];
+
+        for (int i = 0; i < names.length; i++) {
+            columns[i] = getColumnIndex(names[i]);
+
+            if (columns[i] < 0) {
+                throw new IllegalArgumentException("The header row does not contain the column " + names[i]
+                        + ". Argument name: names.");
+            }
+        }
+
+        project(columns);
+    }
+
+    /**
+     * Advances to the next line without creating any strings. The fields of the
+     * line can then be inspected using the {@link #getFieldCount()},
+     * {@link #getFieldOffset(int)}, {@link #getFieldLength(int)}, and
+     * {@link #getField(int)} methods.
+     * 
+     * @return {@code true} if the data source contained another line; otherwise,
+     *         {@code false}.
+     */
+    public boolean read() {
+        if (!hasNext()) {
+            return false;
+        }
+
+        // If the line continues past the end of the buffer, read more of the data
+        // source and tokenize the line again from its beginning
+
+        while (!tokenize(false)) {
+            if (!refill()) {
+                tokenize(true);
+
+                break;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Tokenizes the current line, recording the bounds of each field.
+     * 
+     * @param last {@code true} if the end of the buffer is the end of the data
+     *             source; otherwise, {@code false}.
+     * @return {@code true} if the line was tokenized, or {@code false} if the line
+     *         continues past the end of the buffer.
+     */
+    private boolean tokenize(boolean last) {
+        boolean inQuotes = false;
+        boolean quoted = false;
+        int fieldStart = position;
+        int i = position;
+
+        fieldCount = 0;
+
+        while (true) {
+            if (fieldCount > lastProjected) {
+                // Skip the rest of the line once all projected fields are tokenized
+
+                while (i < limit && buffer.get(i) != '\n' && buffer.get(i) != '\r') {
+                    i++;
+                }
+            }
+
+            if (i == limit) {
+                if (!last) {
+                    return false;
+                }
+
+                position = i;
+
+                break;
+            }
+
+            final byte nextByte = buffer.get(i);
+
+            if (nextByte == '\n' || nextByte == '\r') {
+                position = i + 1;
+                skipLineFeed = nextByte == '\r';
+
+                break;
+            }
+
+            if (nextByte == '"') {
+                // Toggle quote status to enter or exit a field surrounded by quotation marks
+
+                inQuotes = !inQuotes;
+                quoted = true;
+            } else if (nextByte == ',' && !inQuotes) {
+                // Preserve commas within current field if surrounded by quotation marks;
+                // otherwise, move to the next field
+
+                addField(fieldStart, i, quoted, false);
+
+                fieldStart = i + 1;
+                quoted = false;
+            }
+
+            i++;
+        }
+
+        if (fieldCount <= lastProjected) {
+            addField(fieldStart, i, quoted, true);
+        }
+
+        return true;
+    }
+
+    /**
+     * Records the bounds of a field in the current line.
+     * 
+     * @param start     the offset of the first byte of the field.
+     * @param end       the offset after the last byte of the field.
+     * @param quoted    {@code true} if the field contains quotation marks;
+     *                  otherwise, {@code false}.
+     * @param lastField {@code true} if the field is the last field in the line;
+     *                  otherwise, {@code false}.
+     */
+    private void addField(int start, int end, boolean quoted, boolean lastField) {
+        byte flags = 0;
+
+        if (projected != null && (fieldCount >= projected.length || !projected[fieldCount])) {
+            // Record fields outside the projection as empty
+
+            end = start;
+        } else if (quoted) {
+            flags = QUOTED;
+        } else {
+            // Skip whitespace preceding the field
+
+            while (start < end && isWhitespace(buffer.get(start))) {
+                start++;
+            }
+        }
+
+        if (lastField) {
+            // Include the last field only if it is not empty, and trim whitespace and
+            // control characters from both of its ends
+
+            if (flags == QUOTED) {
+                flags |= TRIMMED;
+            } else if (start == end) {
+                return;
+            } else {
+                while (start < end && isTrimmed(buffer.get(start))) {
+                    start++;
+                }
+
+                while (end > start && isTrimmed(buffer.get(end - 1))) {
+                    end--;
+                }
+            }
+        }
+
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+            fieldFlags = Arrays.copyOf(fieldFlags, fieldCount * 2);
+        }
+
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldFlags[fieldCount] = flags;
+        fieldCount++;
+
+        if ((flags & TRIMMED) != 0 && unquote(fieldCount - 1) == 0) {
+            fieldCount--;
+        }
+    }
+
+    /**
+     * Removes the quotation marks and insignificant whitespace from a field,
+     * writing the result to the beginning of the scratch buffer.
+     * 
+     * @param column the zero-based index of the field.
+     * @return The number of bytes in the field value, before trimming.
+     */
+    private int unquote(int column) {
+        final int start = fieldStarts[column];
+        final int end = fieldEnds[column];
+
+        if (scratch.length < end - start) {
+            scratch = new byte[Math.max(end - start, scratch.length * 2)];
+        }
 
         boolean inQuotes = false;
         boolean inField = false;
-        String line = scanner.nextLine();
-        StringBuilder fieldBuilder = new StringBuilder();
+        int length = 0;
 
-        for (int i = 0; i < line.length(); i++) {
-            char nextChar = line.charAt(i);
+        for (int i = start; i < end; i++) {
+            final byte nextByte = buffer.get(i);
 
-            if (nextChar == '"') {
+            if (nextByte == '"') {
                 // Toggle quote and field status to enter or exit a field surrounded by
                 // quotation marks
 
@@ -65,40 +517,326 @@ public class CSV implements Closeable, Iterator<List<String>> {
 
                 inQuotes = toggledValue;
                 inField = toggledValue;
-            } else if (Character.isWhitespace(nextChar)) {
+            } else if (isWhitespace(nextByte)) {
                 if (inQuotes || inField) {
                     // Preserve whitespace within current field or if surrounded by quotation marks
 
-                    fieldBuilder.append(nextChar);
+                    scratch[length++] = nextByte;
+                }
+            } else {
+                // Begin a new field or continue appending bytes to the current field. The
+                // only commas in a field are surrounded by quotation marks
+
+                scratch[length++] = nextByte;
+
+                if (nextByte != ',') {
+                    inField = true;
                 }
-            } else if (nextChar == ',') {
-                if (inQuotes) {
-                    // Preserve commas within current field if surrounded by quotation marks
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Ensures that at least one unread byte is available in the buffer.
+     * 
+     * @return {@code true} if an unread byte is available; otherwise,
+     *         {@code false}.
+     */
+    private boolean ensureAvailable() {
+        return position < limit || refill();
+    }
+
+    /**
+     * Makes more of the data source available in the buffer, moving the unread
+     * bytes to the beginning of the buffer.
+     * 
+     * @return {@code true} if any bytes were added; otherwise, {@code false}.
+     * @throws UncheckedIOException if an error occurs while mapping the file
+     *                              channel.
+     */
+    private boolean refill() {
+        if (channel != null) {
+            // Unlike a stream, a file channel has a known end, so an error mapping the
+            // file must not be mistaken for the end of the data source
 
-                    fieldBuilder.append(nextChar);
-                } else {
-                    // Realize the current field and move to the next field
+            try {
+                return remap();
+            } catch (IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+        }
+
+        try {
+            final int length = limit - position;
 
-                    results.add(fieldBuilder.toString());
+            if (position > 0) {
+                System.arraycopy(array, position, array, 0, length);
+            } else if (length == array.length) {
+                // The current line fills the buffer
 
-                    fieldBuilder = new StringBuilder();
-                    inField = false;
+                array = Arrays.copyOf(array, array.length * 2);
+
+                setBuffer(ByteBuffer.wrap(array));
+            }
+
+            position = 0;
+            limit = length;
+
+            while (!endOfStream) {
+                final int count = input.read(array, limit, array.length - limit);
+
+                if (count < 0) {
+                    endOfStream = true;
+                } else if (count > 0) {
+                    limit += count;
+
+                    return true;
+                }
+            }
+        } catch (IOException ioException) {
+            // Treat an error reading the data source as the end of the data source, as
+            // the previous Scanner-based implementation did
+
+            endOfStream = true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Maps the next segment of the file channel into memory, starting at the
+     * first unread byte.
+     * 
+     * @return {@code true} if any bytes were added; otherwise, {@code false}.
+     * @throws IOException if an error occurs while mapping the file.
+     */
+    private boolean remap() throws IOException {
+        final long start = segmentStart + position;
+        final long remaining = end - start;
+        final int length = limit - position;
+
+        // Grow the segment if the current line fills the previous segment
+
+        final long size = Math.min(remaining, Math.max(SEGMENT_SIZE, Math.min(2L * length, MAX_SEGMENT_SIZE)));
+
+        if (endOfStream || size <= length) {
+            endOfStream = true;
+
+            return false;
+        }
+
+        setBuffer(channel.map(FileChannel.MapMode.READ_ONLY, start, size));
+
+        segmentStart = start;
+        position = 0;
+        limit = (int) size;
+
+        return true;
+    }
+
+    /**
+     * Gets the number of fields in the current line.
+     * 
+     * @return The number of fields.
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Gets a read-only buffer containing the bytes of the fields in the current
+     * line. The contents of the buffer are only valid until the next call to
+     * {@link #hasNext()}, {@link #next()}, or {@link #read()}.
+     * 
+     * @return The buffer.
+     */
+    public ByteBuffer getBuffer() {
+        return view;
+    }
+
+    /**
+     * Gets the offset of the given field of the current line in the buffer.
+     * 
+     * @param column the zero-based index of the field.
+     * @return The offset of the first byte of the field.
+     * @throws IndexOutOfBoundsException if column is negative or not less than the
+     *                                   number of fields.
+     * @see #isFieldQuoted(int)
+     */
+    public int getFieldOffset(int column) {
+        checkColumn(column);
+
+        return fieldStarts[column];
+    }
+
+    /**
+     * Gets the number of bytes occupied by the given field of the current line
+     * in the buffer.
+     * 
+     * @param column the zero-based index of the field.
+     * @return The number of bytes in the buffer.
+     * @throws IndexOutOfBoundsException if column is negative or not less than the
+     *                                   number of fields.
+     * @see #isFieldQuoted(int)
+     */
+    public int getFieldLength(int column) {
+        checkColumn(column);
+
+        return fieldEnds[column] - fieldStarts[column];
+    }
+
+    /**
+     * Determines whether the given field of the current line contains quotation
+     * marks. The bytes of such a field in the buffer include the quotation marks
+     * and any whitespace outside them, and differ from its value.
+     * 
+     * @param column the zero-based index of the field.
+     * @return {@code true} if the field contains quotation marks; otherwise,
+     *         {@code false}.
+     * @throws IndexOutOfBoundsException if column is negative or not less than the
+     *                                   number of fields.
+     */
+    public boolean isFieldQuoted(int column) {
+        checkColumn(column);
+
+        return (fieldFlags[column] & QUOTED) != 0;
+    }
+
+    /**
+     * Creates a string representing the given field of the current line.
+     * 
+     * @param column the zero-based index of the field.
+     * @return The field value.
+     * @throws IndexOutOfBoundsException if column is negative or not less than the
+     *                                   number of fields.
+     */
+    public String getField(int column) {
+        checkColumn(column);
+
+        if ((fieldFlags[column] & QUOTED) != 0) {
+            int start = 0;
+            int length = unquote(column);
+
+            if ((fieldFlags[column] & TRIMMED) != 0) {
+                while (start < length && isTrimmed(scratch[start])) {
+                    start++;
+                }
+
+                while (length > start && isTrimmed(scratch[length - 1])) {
+                    length--;
+                }
+            }
+
+            return new String(scratch, start, length - start, charset);
+        }
+
+        final int start = fieldStarts[column];
+        final int length = fieldEnds[column] - start;
+
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, charset);
+        }
+
+        // Copy only the bytes of the field out of the mapped segment
+
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+
+        buffer.get(start, scratch, 0, length);
+
+        return new String(scratch, 0, length, charset);
+    }
+
+    /**
+     * Determines whether the given field of the current line is equal to the
+     * given string using a case-insensitive comparison. Unquoted ASCII fields are
+     * compared byte by byte, without creating a string. A field beyond the end of
+     * the line is treated as empty.
+     * 
+     * @param column the zero-based index of the field.
+     * @param value  the string to compare.
+     * @return {@code true} if the field value is equal to the string, ignoring
+     *         case; otherwise, {@code false}.
+     * @throws IndexOutOfBoundsException if column is negative.
+     */
+    public boolean fieldEqualsIgnoreCase(int column, String value) {
+        if (column >= 0 && column >= fieldCount) {
+            return value.isEmpty();
+        }
+
+        checkColumn(column);
+
+        final int start = fieldStarts[column];
+        final int length = fieldEnds[column] - start;
+
+        if ((fieldFlags[column] & QUOTED) == 0) {
+            if (length != value.length()) {
+                // Every ASCII character occupies one byte
+
+                boolean ascii = true;
+
+                for (int i = 0; i < length && ascii; i++) {
+                    ascii = buffer.get(start + i) >= 0;
+                }
+
+                if (ascii) {
+                    return false;
                 }
             } else {
-                // Begin a new field or continue appending characters to the current field
+                int i = 0;
+
+                for (; i < length; i++) {
+                    final int nextByte = buffer.get(start + i);
+                    final char nextChar = value.charAt(i);
 
-                fieldBuilder.append(nextChar);
+                    if (nextByte < 0 || nextChar >= 0x80) {
+                        break;
+                    }
+
+                    if (nextByte != nextChar && toUpperCase(nextByte) != toUpperCase(nextChar)) {
+                        return false;
+                    }
+                }
 
-                inField = true;
+                if (i == length) {
+                    return true;
+                }
             }
         }
 
-        if (fieldBuilder.length() > 0) {
-            // Realize remaining characters and include them as the last field
+        // Decode quoted fields and non-ASCII text
+
+        return getField(column).equalsIgnoreCase(value);
+    }
 
-            results.add(fieldBuilder.toString().trim());
+    /**
+     * Converts an ASCII character to upper case.
+     * 
+     * @param value the character.
+     * @return The upper-case character.
+     */
+    private static int toUpperCase(int value) {
+        if (value >= 'a' && value <= 'z') {
+            return value - ('a' - 'A');
         }
 
-        return results;
+        return value;
+    }
+
+    /**
+     * Validates a field index.
+     * 
+     * @param column the zero-based index of the field.
+     * @throws IndexOutOfBoundsException if column is negative or not less than the
+     *                                   number of fields.
+     */
+    private void checkColumn(int column) {
+        if (column < 0 || column >= fieldCount) {
+            throw new IndexOutOfBoundsException(
+                    "Index was out of range. Must be non-negative and less than the number of fields. Argument name: column.");
+        }
     }
 }
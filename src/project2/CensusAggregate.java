@@ -0,0 +1,228 @@
+package project2;
+
+import java.util.ArrayList;
+
+/**
+ * Represents running totals over the trees in a tree census dataset: the number
+ * of trees of each species, status, and health in each borough, and the number
+ * of trees in each postal (ZIP) code. Trees are folded into the totals as they
+ * are read and are not retained, so the size of the aggregate depends only on
+ * the number of distinct species.
+ * 
+ * @author Ishan Pranav
+ */
+public final class CensusAggregate {
+    private static final Borough[] BOROUGHS = Borough.values();
+    private static final TreeStatus[] STATUSES = TreeStatus.values();
+    private static final TreeHealth[] HEALTHS = TreeHealth.values();
+    private static final int ZIP_CODES = 100000;
+
+    // The count vectors of each species are stored at the position of the species
+    // in the species table
+
+    private final TreeSpeciesList species = new TreeSpeciesList();
+    private final ArrayList<int[]> speciesCounts = new ArrayList<int[]>();
+    private final int[] boroughCounts = new int[BOROUGHS.length];
+    private final int[][] statusCounts = new int[BOROUGHS.length][STATUSES.length];
+    private final int[][] healthCounts = new int[BOROUGHS.length][HEALTHS.length];
+    private final int[] zipCodeCounts = new int[ZIP_CODES];
+
+    private int count;
+
+    /**
+     * Initializes a new instance of the {@link CensusAggregate} class.
+     */
+    public CensusAggregate() {
+    }
+
+    /**
+     * Adds a tree to the totals.
+     * 
+     * @param tree the tree to add.
+     * @throws IllegalArgumentException if tree is {@code null}.
+     */
+    public void add(Tree tree) {
+        if (tree == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: tree.");
+        }
+
+        final int borough = tree.getBoroughValue().ordinal();
+        final TreeStatus status = tree.getStatusValue();
+        final TreeHealth health = tree.getHealthValue();
+
+        getSpeciesCounts(tree.getSpecies())[borough]++;
+        boroughCounts[borough]++;
+
+        // A tree whose status or health has not been set is counted as unspecified
+
+        statusCounts[borough][(status == null ? TreeStatus.UNSPECIFIED : status).ordinal()]++;
+        healthCounts[borough][(health == null ? TreeHealth.UNSPECIFIED : health).ordinal()]++;
+        zipCodeCounts[tree.getZipCode()]++;
+        count++;
+    }
+
+    /**
+     * Adds the totals of another aggregate to this aggregate.
+     * 
+     * @param other the aggregate to add.
+     * @throws IllegalArgumentException if other is {@code null}.
+     */
+    public void addAll(CensusAggregate other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: other.");
+        }
+
+        for (int i = 0; i < other.species.size(); i++) {
+            final int[] source = other.speciesCounts.get(i);
+            final int[] target = getSpeciesCounts(other.species.get(i));
+
+            for (int j = 0; j < BOROUGHS.length; j++) {
+                target[j] += source[j];
+            }
+        }
+
+        for (int i = 0; i < BOROUGHS.length; i++) {
+            boroughCounts[i] += other.boroughCounts[i];
+
+            for (int j = 0; j < STATUSES.length; j++) {
+                statusCounts[i][j] += other.statusCounts[i][j];
+            }
+
+            for (int j = 0; j < HEALTHS.length; j++) {
+                healthCounts[i][j] += other.healthCounts[i][j];
+            }
+        }
+
+        for (int i = 0; i < ZIP_CODES; i++) {
+            zipCodeCounts[i] += other.zipCodeCounts[i];
+        }
+
+        count += other.count;
+    }
+
+    /**
+     * Gets the count vector of the given species, adding the species to the
+     * species table if it is not already present.
+     * 
+     * @param value the species.
+     * @return The number of trees of the species in each borough, indexed by
+     *         {@link Borough#ordinal()}.
+     */
+    private int[] getSpeciesCounts(TreeSpecies value) {
+        final int index = species.indexOf(value);
+
+        if (index < 0) {
+            final int[] result = new int[BOROUGHS.length];
+
+            species.add(value);
+            speciesCounts.add(result);
+
+            return result;
+        }
+
+        return speciesCounts.get(index);
+    }
+
+    /**
+     * Gets the distinct tree species in the order in which they were first added.
+     * The collection must not be modified.
+     * 
+     * @return The tree species.
+     */
+    public TreeSpeciesList getSpecies() {
+        return species;
+    }
+
+    /**
+     * Gets the total number of trees.
+     * 
+     * @return The number of trees.
+     */
+    public int getTotalNumberOfTrees() {
+        return count;
+    }
+
+    /**
+     * Gets the number of trees in the given borough.
+     * 
+     * @param borough the borough.
+     * @return The number of trees in the borough.
+     */
+    public int getCountByBorough(Borough borough) {
+        return boroughCounts[borough.ordinal()];
+    }
+
+    /**
+     * Gets the number of trees of the given species using a case-insensitive
+     * comparison.
+     * 
+     * @param value the species.
+     * @return The number of trees of the species.
+     */
+    public int getCountBySpecies(TreeSpecies value) {
+        int result = 0;
+
+        for (Borough borough : BOROUGHS) {
+            result += getCountBySpeciesBorough(value, borough);
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the number of trees of the given species in the given borough using a
+     * case-insensitive comparison.
+     * 
+     * @param value   the species.
+     * @param borough the borough.
+     * @return The number of trees of the species in the borough.
+     */
+    public int getCountBySpeciesBorough(TreeSpecies value, Borough borough) {
+        final int index = species.indexOf(value);
+
+        if (index < 0) {
+            return 0;
+        }
+
+        return speciesCounts.get(index)[borough.ordinal()];
+    }
+
+    /**
+     * Gets the number of trees with the given status in the given borough.
+     * 
+     * @param status  the status.
+     * @param borough the borough.
+     * @return The number of trees with the status in the borough.
+     */
+    public int getCountByStatusBorough(TreeStatus status, Borough borough) {
+        return statusCounts[borough.ordinal()][status.ordinal()];
+    }
+
+    /**
+     * Gets the number of trees with the given health in the given borough.
+     * 
+     * @param health  the health.
+     * @param borough the borough.
+     * @return The number of trees with the health in the borough.
+     */
+    public int getCountByHealthBorough(TreeHealth health, Borough borough) {
+        return healthCounts[borough.ordinal()][health.ordinal()];
+    }
+
+    /**
+     * Gets the number of trees in the given postal (ZIP) code.
+     * 
+     * @param zipCode the postcode, an integer between 00000 and 99999.
+     * @return The number of trees in the postcode.
+     * @throws IllegalArgumentException if zipCode is less than 0 or greater than
+     *                                  99999.
+     */
+    public int getCountByZipCode(int zipCode) {
+        if (zipCode < 0 || zipCode >= ZIP_CODES) {
+            throw new IllegalArgumentException(
+                    "Value is out of range. Zip codes must be between 00000 and 99999, inclusive. Argument name: zipCode.");
+        }
+
+        return zipCodeCounts[zipCode];
+    }
+}
@@ -0,0 +1,788 @@
+package project2;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Loads the trees and tree species in a tree census dataset. The dataset is
+ * mapped into memory rather than read through a stream. Large datasets
+ * are divided into ranges of lines that are parsed in parallel and then merged
+ * in order, so that the result is the same as parsing the dataset
+ * sequentially.
+ * 
+ * @author Ishan Pranav
+ */
+public final class CensusLoader {
+    private static final int MIN_RANGE_SIZE = 1 << 22;
+    private static final int RANGES_PER_THREAD = 4;
+    private static final int SCAN_SIZE = 1 << 13;
+    private static final int REJECTIONS = CensusMetrics.Rejection.values().length;
+
+    /**
+     * Provides a base class for the tasks that parse one range of lines.
+     */
+    private abstract static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final long start;
+        private final long end;
+        private final int[] columns;
+
+        // The number of rows of the range that were ignored for each reason
+
+        protected final int[] rejections = new int[REJECTIONS];
+
+        /**
+         * Initializes a new instance of the {@link RangeTask} class.
+         * 
+         * @param channel the file channel.
+         * @param start   the position of the first byte in the range.
+         * @param end     the position after the last byte in the range.
+         * @param columns the indices of the required columns.
+         */
+        protected RangeTask(FileChannel channel, long start, long end, int[] columns) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.columns = columns;
+        }
+
+        /**
+         * Parses the lines of the range.
+         * 
+         * @param csv     the comma-delimited data source over the range.
+         * @param columns the indices of the required columns.
+         */
+        protected abstract void compute(CSV csv, int[] columns);
+
+        /** {@inheritDoc} */
+        @Override
+        protected void compute() {
+            try (CSV csv = new CSV(channel, start, end)) {
+                csv.project(columns);
+                compute(csv, columns);
+            } catch (IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+        }
+    }
+
+    /**
+     * Provides a task that parses one range of lines into a partial collection of
+     * trees and tree species.
+     */
+    private static final class LoadTask extends RangeTask {
+        private static final long serialVersionUID = 1L;
+
+        private final TreeList trees = new TreeList();
+        private final TreeSpeciesList species = new TreeSpeciesList();
+
+        /**
+         * Initializes a new instance of the {@link LoadTask} class.
+         * 
+         * @param channel the file channel.
+         * @param start   the position of the first byte in the range.
+         * @param end     the position after the last byte in the range.
+         * @param columns the indices of the required columns.
+         */
+        public LoadTask(FileChannel channel, long start, long end, int[] columns) {
+            super(channel, start, end, columns);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void compute(CSV csv, int[] columns) {
+            load(csv, columns, trees, species, rejections);
+        }
+    }
+
+    /**
+     * Provides a task that folds one range of lines into a partial aggregate.
+     */
+    private static final class AggregateTask extends RangeTask {
+        private static final long serialVersionUID = 1L;
+
+        private final CensusAggregate aggregate = new CensusAggregate();
+
+        /**
+         * Initializes a new instance of the {@link AggregateTask} class.
+         * 
+         * @param channel the file channel.
+         * @param start   the position of the first byte in the range.
+         * @param end     the position after the last byte in the range.
+         * @param columns the indices of the required columns.
+         */
+        public AggregateTask(FileChannel channel, long start, long end, int[] columns) {
+            super(channel, start, end, columns);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void compute(CSV csv, int[] columns) {
+            aggregate(csv, columns, aggregate, rejections);
+        }
+    }
+
+    /**
+     * Loads the trees and tree species in the given dataset. Only complete lines,
+     * which end with a line terminator, are loaded, so that a final line that is
+     * still being written is loaded by {@link #loadAppended(String, long,
+     * TreeList, TreeSpeciesList)} once it is complete.
+     * 
+     * @param path    the path to the comma-delimited (*.csv) dataset.
+     * @param trees   the collection to which the trees are added.
+     * @param species the collection to which distinct tree species are added.
+     * @return The position after the last line that was loaded, from which to
+     *         load the lines appended to the dataset.
+     * @throws IOException if an error occurs while attempting to access the
+     *                     dataset.
+     */
+    public static long load(String path, TreeList trees, TreeSpeciesList species) throws IOException {
+        return load(path, trees, species, new CensusMetrics());
+    }
+
+    /**
+     * Loads the trees and tree species in the given dataset, recording the rows
+     * parsed and rejected, the bytes read, and the time taken.
+     * 
+     * @param path    the path to the comma-delimited (*.csv) dataset.
+     * @param trees   the collection to which the trees are added.
+     * @param species the collection to which distinct tree species are added.
+     * @param metrics the metrics in which to record the measurements.
+     * @return The position after the last line that was loaded.
+     * @throws IOException if an error occurs while attempting to access the
+     *                     dataset.
+     */
+    public static long load(String path, TreeList trees, TreeSpeciesList species, CensusMetrics metrics)
+            throws IOException {
+        try (FileInputStream fileInputStream = new FileInputStream(path);
+                FileChannel channel = fileInputStream.getChannel()) {
+            final long size = channel.size();
+            final long dataStart = getNextLineStart(channel, 0, size);
+            final int[] columns = getColumns(channel, dataStart);
+            final long end = getLastLineEnd(channel, dataStart, size);
+
+            if (end > dataStart) {
+                load(channel, columns, dataStart, end, trees, species, metrics);
+            }
+
+            return end;
+        }
+    }
+
+    /**
+     * Loads the trees and tree species in the lines appended to the given dataset
+     * since it was last loaded. Only complete lines, which end with a line
+     * terminator, are loaded, so that a line that is still being written is
+     * loaded by a later call.
+     * 
+     * @param path    the path to the comma-delimited (*.csv) dataset.
+     * @param start   the position from which to load, as returned by
+     *                {@link #load(String, TreeList, TreeSpeciesList)} or by a
+     *                previous call to this method.
+     * @param trees   the collection to which the trees are added.
+     * @param species the collection to which distinct tree species are added.
+     * @return The position after the last line that was loaded, from which to
+     *         load the next lines appended to the dataset.
+     * @throws IOException if an error occurs while attempting to access the
+     *                     dataset, or the dataset is now smaller than the given
+     *                     position.
+     */
+    public static long loadAppended(String path, long start, TreeList trees, TreeSpeciesList species)
+            throws IOException {
+        return loadAppended(path, start, trees, species, new CensusMetrics());
+    }
+
+    /**
+     * Loads the trees and tree species in the lines appended to the given dataset
+     * since it was last loaded, recording the rows parsed and rejected, the bytes
+     * read, and the time taken.
+     * 
+     * @param path    the path to the comma-delimited (*.csv) dataset.
+     * @param start   the position from which to load.
+     * @param trees   the collection to which the trees are added.
+     * @param species the collection to which distinct tree species are added.
+     * @param metrics the metrics in which to record the measurements.
+     * @return The position after the last line that was loaded.
+     * @throws IOException if an error occurs while attempting to access the
+     *                     dataset, or the dataset is now smaller than the given
+     *                     position.
+     * @see #loadAppended(String, long, TreeList, TreeSpeciesList)
+     */
+    public static long loadAppended(String path, long start, TreeList trees, TreeSpeciesList species,
+            CensusMetrics metrics) throws IOException {
+        try (FileInputStream fileInputStream = new FileInputStream(path);
+                FileChannel channel = fileInputStream.getChannel()) {
+            final long size = channel.size();
+
+            if (size < start) {
+                throw new IOException("The file " + path + " was truncated. Data sets can only be appended to.");
+            }
+
+            final long dataStart = getNextLineStart(channel, 0, size);
+            final long from = Math.max(start, dataStart);
+            final long end = getLastLineEnd(channel, from, size);
+
+            if (end > from) {
+                load(channel, getColumns(channel, dataStart), from, end, trees, species, metrics);
+            }
+
+            return end;
+        }
+    }
+
+    /**
+     * Loads the trees and tree species in a range of lines of a dataset, parsing
+     * large ranges in parallel.
+     * 
+     * @param channel the file channel.
+     * @param columns the indices of the required columns.
+     * @param start   the position of the first line in the range.
+     * @param end     the position after the last line in the range.
+     * @param trees   the collection to which the trees are added.
+     * @param species the collection to which distinct tree species are added.
+     * @param metrics the metrics in which to record the measurements.
+     * @throws IOException if an error occurs while reading the file.
+     */
+    private static void load(FileChannel channel, int[] columns, long start, long end, TreeList trees,
+            TreeSpeciesList species, CensusMetrics metrics) throws IOException {
+        final long startTime = System.nanoTime();
+        final int count = trees.getTotalNumberOfTrees();
+        final long[] bounds = getBounds(channel, start, end);
+
+        if (bounds.length <= 2) {
+            final int[] rejections = new int[REJECTIONS];
+
+            try (CSV csv = new CSV(channel, start, end)) {
+                csv.project(columns);
+                load(csv, columns, trees, species, rejections);
+            } catch (UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            }
+
+            metrics.recordParse(trees.getTotalNumberOfTrees() - count, rejections, end - start,
+                    System.nanoTime() - startTime);
+
+            return;
+        }
+
+        final List<LoadTask> tasks = new ArrayList<LoadTask>();
+
+        for (int i = 1; i < bounds.length; i++) {
+            tasks.add(new LoadTask(channel, bounds[i - 1], bounds[i], columns));
+        }
+
+        invokeAll(tasks);
+
+        // Merge the partial results in order
+
+        final int[] rejections = new int[REJECTIONS];
+
+        for (LoadTask task : tasks) {
+            trees.addAll(task.trees);
+
+            for (TreeSpecies item : task.species) {
+                species.intern(item);
+            }
+
+            for (int i = 0; i < REJECTIONS; i++) {
+                rejections[i] += task.rejections[i];
+            }
+        }
+
+        metrics.recordParse(trees.getTotalNumberOfTrees() - count, rejections, end - start,
+                System.nanoTime() - startTime);
+    }
+
+    /**
+     * Folds the trees in the given dataset into an aggregate without retaining
+     * them. The memory required does not depend on the size of the dataset.
+     * 
+     * @param path      the path to the comma-delimited (*.csv) dataset.
+     * @param aggregate the aggregate to which the trees are added.
+     * @throws IOException if an error occurs while attempting to access the
+     *                     dataset.
+     */
+    public static void aggregate(String path, CensusAggregate aggregate) throws IOException {
+        try (FileInputStream fileInputStream = new FileInputStream(path);
+                FileChannel channel = fileInputStream.getChannel()) {
+            final long size = channel.size();
+            final long dataStart = getNextLineStart(channel, 0, size);
+            final int[] columns = getColumns(channel, dataStart);
+            final long[] bounds = getBounds(channel, dataStart, size);
+
+            if (bounds.length <= 2) {
+                try (CSV csv = new CSV(channel, dataStart, size)) {
+                    csv.project(columns);
+                    aggregate(csv, columns, aggregate, new int[REJECTIONS]);
+                } catch (UncheckedIOException uncheckedIOException) {
+                    throw uncheckedIOException.getCause();
+                }
+
+                return;
+            }
+
+            final List<AggregateTask> tasks = new ArrayList<AggregateTask>();
+
+            for (int i = 1; i < bounds.length; i++) {
+                tasks.add(new AggregateTask(channel, bounds[i - 1], bounds[i], columns));
+            }
+
+            invokeAll(tasks);
+
+            for (AggregateTask task : tasks) {
+                aggregate.addAll(task.aggregate);
+            }
+        }
+    }
+
+    /**
+     * Reads the header row of a dataset and gets the indices of the columns
+     * required to construct a tree.
+     * 
+     * @param channel   the file channel.
+     * @param dataStart the position of the line after the header row.
+     * @return The indices of the required columns.
+     * @throws IOException if an error occurs while reading the file.
+     * @see #getColumns(CSV)
+     */
+    private static int[] getColumns(FileChannel channel, long dataStart) throws IOException {
+        try (CSV csv = new CSV(channel, 0, dataStart)) {
+            csv.readHeader();
+
+            return getColumns(csv);
+        } catch (UncheckedIOException uncheckedIOException) {
+            throw uncheckedIOException.getCause();
+        }
+    }
+
+    /**
+     * Divides the lines of a dataset into ranges to be parsed in parallel.
+     * 
+     * @param channel   the file channel.
+     * @param dataStart the position of the line after the header row.
+     * @param size      the size of the file.
+     * @return The positions that bound the non-empty ranges, in ascending order.
+     *         Range {@code i} begins at element {@code i} and ends before element
+     *         {@code i + 1}. There is only one range if the dataset is too small
+     *         to benefit from parallel parsing.
+     * @throws IOException if an error occurs while reading the file.
+     */
+    private static long[] getBounds(FileChannel channel, long dataStart, long size) throws IOException {
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        final long rangeCount = Math.min(
+                (long) pool.getParallelism() * RANGES_PER_THREAD,
+                (size - dataStart) / MIN_RANGE_SIZE);
+
+        if (rangeCount <= 1) {
+            return new long[] { dataStart, size };
+        }
+
+        // Align the ranges to line boundaries. Every line terminator ends a line,
+        // even within quotation marks, so each range can be parsed independently
+
+        final long[] results = new long[(int) rangeCount + 1];
+
+        int count = 1;
+
+        results[0] = dataStart;
+
+        for (long i = 1; i <= rangeCount && results[count - 1] < size; i++) {
+            long end = size;
+
+            if (i < rangeCount) {
+                end = getNextLineStart(channel, dataStart + (size - dataStart) * i / rangeCount - 1, size);
+            }
+
+            if (end > results[count - 1]) {
+                results[count] = end;
+                count++;
+            }
+        }
+
+        return Arrays.copyOf(results, count);
+    }
+
+    /**
+     * Runs the given tasks in parallel and waits for them to complete.
+     * 
+     * @param tasks the tasks.
+     * @throws IOException if an error occurs while reading the file.
+     */
+    private static void invokeAll(List<? extends RangeTask> tasks) throws IOException {
+        try {
+            ForkJoinTask.invokeAll(tasks);
+        } catch (RuntimeException exception) {
+            // Exceptions thrown by other threads may be rethrown as copies that wrap the
+            // original exception
+
+            Throwable cause = exception;
+
+            while (cause.getCause() != null && cause.getCause().getClass() == cause.getClass()) {
+                cause = cause.getCause();
+            }
+
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+
+            throw (RuntimeException) cause;
+        }
+    }
+
+    /**
+     * Gets the indices of the columns required to construct a tree.
+     * 
+     * @param csv the comma-delimited data source whose header row has been read.
+     * @return The indices of the {@code tree_id}, {@code spc_common},
+     *         {@code spc_latin}, {@code status}, {@code health},
+     *         {@code zipcode}, {@code boroname}, {@code x_sp}, and {@code y_sp}
+     *         columns.
+     */
+    static int[] getColumns(CSV csv) {
+        // Fall back to the column positions in the 2015 dataset when the header row
+        // does not name a column
+
+        return new int[] {
+                getColumnIndex(csv, 0, "tree_id"),
+                getColumnIndex(csv, 9, "spc_common"),
+                getColumnIndex(csv, 8, "spc_latin"),
+                getColumnIndex(csv, 6, "status"),
+                getColumnIndex(csv, 7, "health"),
+                getColumnIndex(csv, 25, "zipcode", "postcode"),
+                getColumnIndex(csv, 29, "boroname"),
+                getColumnIndex(csv, 39, "x_sp"),
+                getColumnIndex(csv, 40, "y_sp") };
+    }
+
+    /**
+     * Gets the index of the first column in the header row with one of the given
+     * names.
+     * 
+     * @param csv          the comma-delimited data source whose header row has
+     *                     been read.
+     * @param defaultIndex the index to use if the header row does not contain any
+     *                     of the given names.
+     * @param names        the column names.
+     * @return The zero-based index of the column.
+     */
+    private static int getColumnIndex(CSV csv, int defaultIndex, String... names) {
+        for (String name : names) {
+            final int result = csv.getColumnIndex(name);
+
+            if (result >= 0) {
+                return result;
+            }
+        }
+
+        return defaultIndex;
+    }
+
+    /**
+     * Loads the trees and tree species in the remaining lines of a
+     * comma-delimited data source.
+     * 
+     * @param csv        the comma-delimited data source.
+     * @param columns    the indices of the columns returned by
+     *                   {@link #getColumns(CSV)}.
+     * @param trees      the collection to which the trees are added.
+     * @param species    the collection to which distinct tree species are
+     *                   added.
+     * @param rejections the number of rows ignored for each reason, indexed by
+     *                   {@link CensusMetrics.Rejection#ordinal()}. The rows
+     *                   ignored by this call are added.
+     */
+    static void load(CSV csv, int[] columns, TreeList trees, TreeSpeciesList species, int[] rejections) {
+        Tree tree;
+
+        while ((tree = readTree(csv, columns, species, rejections)) != null) {
+            trees.add(tree);
+        }
+    }
+
+    /**
+     * Folds the trees in the remaining lines of a comma-delimited data source
+     * into an aggregate.
+     * 
+     * @param csv        the comma-delimited data source.
+     * @param columns    the indices of the columns returned by
+     *                   {@link #getColumns(CSV)}.
+     * @param aggregate  the aggregate to which the trees are added.
+     * @param rejections the number of rows ignored for each reason, indexed by
+     *                   {@link CensusMetrics.Rejection#ordinal()}. The rows
+     *                   ignored by this call are added.
+     */
+    static void aggregate(CSV csv, int[] columns, CensusAggregate aggregate, int[] rejections) {
+        // Share one instance of each distinct species among all trees in the range
+
+        final TreeSpeciesList species = new TreeSpeciesList();
+
+        Tree tree;
+
+        while ((tree = readTree(csv, columns, species, rejections)) != null) {
+            aggregate.add(tree);
+        }
+    }
+
+    /**
+     * Reads the next valid tree from a comma-delimited data source. Rows without
+     * a tree identifier or common name, and rows with an invalid value, are
+     * ignored and counted.
+     * 
+     * @param csv        the comma-delimited data source.
+     * @param columns    the indices of the columns returned by
+     *                   {@link #getColumns(CSV)}.
+     * @param species    the collection to which distinct tree species are
+     *                   added.
+     * @param rejections the number of rows ignored for each reason, indexed by
+     *                   {@link CensusMetrics.Rejection#ordinal()}. The rows
+     *                   ignored by this call are added.
+     * @return The tree, or {@code null} if there are no more valid rows.
+     */
+    private static Tree readTree(CSV csv, int[] columns, TreeSpeciesList species, int[] rejections) {
+        while (csv.read()) {
+            // "Any row that contains the tree id and common species name is a valid row.
+            // Any rows that are missing either of these two values should be silently
+            // ignored by the program. Any other column values can be empty."
+
+            final String idField = getField(csv, columns[0]);
+            final String commonName = getField(csv, columns[1]);
+
+            if (idField.length() > 0 && commonName.length() > 0) {
+                // Share one instance of each distinct species among all trees. A new
+                // species is only added once its row has been parsed, so that a row
+                // with an invalid value does not add a species without trees
+
+                final TreeSpecies candidate = new TreeSpecies(commonName, getField(csv, columns[2]));
+                final int speciesIndex = species.indexOf(candidate);
+                final TreeSpecies item = speciesIndex < 0 ? candidate : species.get(speciesIndex);
+
+                try {
+                    final Tree tree = createTree(csv, columns, Integer.parseInt(idField), item);
+
+                    if (speciesIndex < 0) {
+                        species.add(candidate);
+                    }
+
+                    return tree;
+                } catch (IllegalArgumentException illegalArgumentException) {
+                    // Ignore a row with a value that cannot be parsed, such as a
+                    // non-numeric tree identifier, rather than failing the whole load
+
+                    rejections[CensusMetrics.Rejection.INVALID_VALUE.ordinal()]++;
+
+                    continue;
+                }
+            }
+
+            // Count the ignored rows so that they are not silently lost
+
+            if (idField.length() == 0) {
+                rejections[CensusMetrics.Rejection.MISSING_TREE_ID.ordinal()]++;
+            } else {
+                rejections[CensusMetrics.Rejection.MISSING_COMMON_NAME.ordinal()]++;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates a tree from the current line of a comma-delimited data source. The
+     * borough, status, and health fields are matched against their valid values
+     * in place, without creating strings.
+     * 
+     * @param csv     the comma-delimited data source.
+     * @param columns the indices of the columns returned by
+     *                {@link #getColumns(CSV)}.
+     * @param treeID  the tree identifier.
+     * @param species the tree species.
+     * @return The tree.
+     * @throws IllegalArgumentException if a field has an invalid value.
+     */
+    private static Tree createTree(CSV csv, int[] columns, int treeID, TreeSpecies species) {
+        final Tree result = new Tree(treeID, species);
+        final TreeStatus status = TreeStatus.match(csv, columns[3]);
+
+        // Resolve invalid values through the string setters, which report them
+
+        if (status == null) {
+            result.setStatus(getField(csv, columns[3]));
+        } else {
+            result.setStatus(status);
+        }
+
+        final TreeHealth health = TreeHealth.match(csv, columns[4]);
+
+        if (health == null) {
+            result.setHealth(getField(csv, columns[4]));
+        } else {
+            result.setHealth(health);
+        }
+
+        // Assign non-nullable fields if a non-empty value exists in the CSV file
+
+        final String zipCodeField = getField(csv, columns[5]);
+
+        if (zipCodeField.length() > 0) {
+            result.setZipCode(Integer.parseInt(zipCodeField));
+        }
+
+        if (!csv.fieldEqualsIgnoreCase(columns[6], "")) {
+            final Borough borough = Borough.match(csv, columns[6]);
+
+            if (borough == null) {
+                result.setBorough(getField(csv, columns[6]));
+            } else {
+                result.setBorough(borough);
+            }
+        }
+
+        final String xField = getField(csv, columns[7]);
+
+        if (xField.length() > 0) {
+            result.setX(Double.parseDouble(xField));
+        }
+
+        final String yField = getField(csv, columns[8]);
+
+        if (yField.length() > 0) {
+            result.setY(Double.parseDouble(yField));
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates a string representing the given field of the current line of a
+     * comma-delimited data source.
+     * 
+     * @param csv    the comma-delimited data source.
+     * @param column the zero-based index of the field.
+     * @return The field value, or an empty string if the line has no such field.
+     */
+    private static String getField(CSV csv, int column) {
+        if (column >= csv.getFieldCount()) {
+            return "";
+        }
+
+        return csv.getField(column);
+    }
+
+    /**
+     * Gets the position of the first line that starts after the given position.
+     * 
+     * @param channel  the file channel.
+     * @param position the position from which to search for a line terminator.
+     * @param size     the size of the file.
+     * @return The position after the first line terminator at or after the given
+     *         position, or the size of the file if there is no such terminator.
+     * @throws IOException if an error occurs while reading the file.
+     */
+    private static long getNextLineStart(FileChannel channel, long position, long size) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+
+        boolean carriageReturn = false;
+
+        while (position < size) {
+            buffer.clear();
+
+            final int length = channel.read(buffer, position);
+
+            if (length <= 0) {
+                break;
+            }
+
+            for (int i = 0; i < length; i++) {
+                final byte value = buffer.get(i);
+
+                if (carriageReturn) {
+                    // Treat a carriage return followed by a line feed as a single line
+                    // terminator
+
+                    return value == '\n' ? position + i + 1 : position + i;
+                }
+
+                if (value == '\n') {
+                    return position + i + 1;
+                }
+
+                carriageReturn = value == '\r';
+            }
+
+            position += length;
+        }
+
+        return size;
+    }
+
+    /**
+     * Gets the position after the last line terminator in a range of a file. A
+     * carriage return at the end of the range is not treated as a line terminator,
+     * since a line feed that completes it may not have been written yet.
+     * 
+     * @param channel the file channel.
+     * @param start   the position of the first byte in the range.
+     * @param end     the position after the last byte in the range.
+     * @return The position after the last line terminator in the range, or the
+     *         start of the range if the range contains no line terminator.
+     * @throws IOException if an error occurs while reading the file.
+     */
+    private static long getLastLineEnd(FileChannel channel, long start, long end) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+
+        long position = end;
+        int following = -1;
+
+        while (position > start) {
+            final int length = (int) Math.min(SCAN_SIZE, position - start);
+
+            buffer.clear();
+            buffer.limit(length);
+
+            // Read the whole block, which precedes the blocks already scanned
+
+            int count = 0;
+
+            while (count < length) {
+                final int read = channel.read(buffer, position - length + count);
+
+                if (read <= 0) {
+                    return start;
+                }
+
+                count += read;
+            }
+
+            for (int i = length - 1; i >= 0; i--) {
+                final byte value = buffer.get(i);
+
+                // A carriage return only ends a line if the next byte is known and is
+                // not a line feed; otherwise it may be the first half of a terminator
+
+                if (value == '\n' || (value == '\r' && following >= 0 && following != '\n')) {
+                    return position - length + i + 1;
+                }
+
+                following = value & 0xFF;
+            }
+
+            position -= length;
+        }
+
+        return start;
+    }
+
+    private CensusLoader() {
+    }
+}
@@ -0,0 +1,424 @@
+package project2;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Represents thread-safe counters and latency histograms that describe where
+ * the program spends its time: the rows parsed and rejected while loading, the
+ * bytes read, the failed requests, and the time taken by each phase of loading
+ * and answering queries. Recording a measurement only increments preallocated
+ * atomic counters, so it takes constant time and allocates no memory. The
+ * measurements are formatted as JSON or in the Prometheus text format on
+ * demand.
+ * 
+ * @author Ishan Pranav
+ */
+final class CensusMetrics {
+    private static final Phase[] PHASES = Phase.values();
+    private static final Rejection[] REJECTIONS = Rejection.values();
+    private static final Failure[] FAILURES = Failure.values();
+
+    // Each histogram has a bucket for the durations shorter than each power of two
+    // from 2^10 nanoseconds (about one microsecond) to 2^34 nanoseconds (about
+    // 17 seconds), and a final bucket for longer durations
+
+    private static final int MIN_BUCKET_SHIFT = 10;
+    private static final int BUCKETS = 26;
+
+    private static final int ROWS = 0;
+    private static final int BYTES = 1;
+    private static final int PARSE_NANOS = 2;
+
+    /**
+     * Specifies a phase of loading the dataset or answering a query.
+     */
+    enum Phase {
+        /**
+         * Loads the dataset when the program starts, by parsing it or by restoring
+         * its snapshot.
+         */
+        LOAD,
+
+        /**
+         * Loads new rows into the loaded dataset.
+         */
+        REFRESH,
+
+        /**
+         * Finds a tree by its identifier or the species that match a keyword.
+         */
+        LOOKUP,
+
+        /**
+         * Counts or groups the trees that match a filter.
+         */
+        COUNT,
+
+        /**
+         * Summarizes the species that match a keyword.
+         */
+        SUMMARY
+    }
+
+    /**
+     * Specifies the reason for which a row of the dataset was ignored.
+     */
+    enum Rejection {
+        /**
+         * The row has no tree identifier.
+         */
+        MISSING_TREE_ID,
+
+        /**
+         * The row has a tree identifier but no common species name.
+         */
+        MISSING_COMMON_NAME,
+
+        /**
+         * The row has a value that cannot be parsed or is out of range, such as a
+         * tree identifier that is not a number.
+         */
+        INVALID_VALUE
+    }
+
+    /**
+     * Specifies the reason for which a request failed.
+     */
+    enum Failure {
+        /**
+         * The request was invalid.
+         */
+        BAD_REQUEST,
+
+        /**
+         * The requested resource did not exist.
+         */
+        NOT_FOUND,
+
+        /**
+         * An unexpected error occurred.
+         */
+        UNEXPECTED
+    }
+
+    private final AtomicLongArray totals = new AtomicLongArray(3);
+    private final AtomicLongArray rejections = new AtomicLongArray(REJECTIONS.length);
+    private final AtomicLongArray failures = new AtomicLongArray(FAILURES.length);
+    private final AtomicLongArray buckets = new AtomicLongArray(PHASES.length * BUCKETS);
+    private final AtomicLongArray durations = new AtomicLongArray(PHASES.length);
+
+    /**
+     * Initializes a new instance of the {@link CensusMetrics} class.
+     */
+    public CensusMetrics() {
+    }
+
+    /**
+     * Records the time taken by a phase.
+     * 
+     * @param phase the phase.
+     * @param start the value of {@link System#nanoTime()} when the phase began.
+     */
+    public void record(Phase phase, long start) {
+        final long elapsed = Math.max(0, System.nanoTime() - start);
+        final int bucket = Math.min(BUCKETS - 1,
+                Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(elapsed) - MIN_BUCKET_SHIFT));
+
+        buckets.getAndIncrement(phase.ordinal() * BUCKETS + bucket);
+        durations.getAndAdd(phase.ordinal(), elapsed);
+    }
+
+    /**
+     * Records the rows parsed from a range of the dataset.
+     * 
+     * @param rows       the number of rows that were loaded.
+     * @param rejections the number of rows that were ignored for each reason,
+     *                   indexed by {@link Rejection#ordinal()}.
+     * @param bytes      the number of bytes that were read.
+     * @param elapsed    the number of nanoseconds taken to parse the rows.
+     */
+    public void recordParse(int rows, int[] rejections, long bytes, long elapsed) {
+        totals.getAndAdd(ROWS, rows);
+        totals.getAndAdd(BYTES, bytes);
+        totals.getAndAdd(PARSE_NANOS, elapsed);
+
+        for (int i = 0; i < REJECTIONS.length; i++) {
+            this.rejections.getAndAdd(i, rejections[i]);
+        }
+    }
+
+    /**
+     * Records a failed request.
+     * 
+     * @param failure the reason for which the request failed.
+     */
+    public void recordFailure(Failure failure) {
+        failures.getAndIncrement(failure.ordinal());
+    }
+
+    /**
+     * Gets the number of rows that have been parsed and loaded.
+     * 
+     * @return The number of rows.
+     */
+    public long getRowCount() {
+        return totals.get(ROWS);
+    }
+
+    /**
+     * Gets the number of rows that have been ignored for the given reason.
+     * 
+     * @param rejection the reason.
+     * @return The number of rows.
+     */
+    public long getRejectionCount(Rejection rejection) {
+        return rejections.get(rejection.ordinal());
+    }
+
+    /**
+     * Gets the number of bytes of the dataset that have been parsed.
+     * 
+     * @return The number of bytes.
+     */
+    public long getByteCount() {
+        return totals.get(BYTES);
+    }
+
+    /**
+     * Gets the number of requests that have failed for the given reason.
+     * 
+     * @param failure the reason.
+     * @return The number of requests.
+     */
+    public long getFailureCount(Failure failure) {
+        return failures.get(failure.ordinal());
+    }
+
+    /**
+     * Gets the number of times that the given phase has been recorded.
+     * 
+     * @param phase the phase.
+     * @return The number of times.
+     */
+    public long getCount(Phase phase) {
+        long result = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            result += buckets.get(phase.ordinal() * BUCKETS + i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the number of rows parsed per second of parsing.
+     * 
+     * @return The rate, or zero if no rows have been parsed.
+     */
+    public double getRowsPerSecond() {
+        final long elapsed = totals.get(PARSE_NANOS);
+
+        if (elapsed == 0) {
+            return 0;
+        }
+
+        return totals.get(ROWS) * 1e9 / elapsed;
+    }
+
+    /**
+     * Gets the exclusive upper bound of the durations in the given bucket.
+     * 
+     * @param bucket the bucket, which must not be the last bucket.
+     * @return The upper bound, in seconds.
+     */
+    private static double getUpperBound(int bucket) {
+        return (1L << (bucket + MIN_BUCKET_SHIFT)) / 1e9;
+    }
+
+    /**
+     * Gets the name of a constant as it appears in the formatted measurements.
+     * 
+     * @param value the constant.
+     * @return The lower-case name of the constant.
+     */
+    private static String getName(Enum<?> value) {
+        return value.name().toLowerCase();
+    }
+
+    /**
+     * Formats the measurements and the statistics of a summary cache as JSON.
+     * Durations are given in seconds, and each histogram gives the number of
+     * durations in each bucket and the upper bound of each bucket but the last.
+     * 
+     * @param cache the summary cache.
+     * @return The JSON object.
+     */
+    public String formatJSON(SummaryCache cache) {
+        final StringBuilder result = new StringBuilder();
+
+        result.append("{\"rows\":{\"parsed\":")
+                .append(getRowCount())
+                .append(",\"perSecond\":");
+        CensusServer.appendNumber(result, getRowsPerSecond());
+        result.append(",\"rejected\":{");
+
+        for (int i = 0; i < REJECTIONS.length; i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+
+            CensusServer.appendString(result, getName(REJECTIONS[i]));
+            result.append(':').append(rejections.get(i));
+        }
+
+        result.append("}},\"bytes\":")
+                .append(getByteCount())
+                .append(",\"cache\":{\"hits\":")
+                .append(cache.getHitCount())
+                .append(",\"misses\":")
+                .append(cache.getMissCount())
+                .append(",\"evictions\":")
+                .append(cache.getEvictionCount())
+                .append("},\"failures\":{");
+
+        for (int i = 0; i < FAILURES.length; i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+
+            CensusServer.appendString(result, getName(FAILURES[i]));
+            result.append(':').append(failures.get(i));
+        }
+
+        result.append("},\"bounds\":[");
+
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+
+            result.append(getUpperBound(i));
+        }
+
+        result.append("],\"phases\":{");
+
+        for (int i = 0; i < PHASES.length; i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+
+            CensusServer.appendString(result, getName(PHASES[i]));
+            result.append(":{\"count\":")
+                    .append(getCount(PHASES[i]))
+                    .append(",\"seconds\":")
+                    .append(durations.get(i) / 1e9)
+                    .append(",\"buckets\":[");
+
+            for (int j = 0; j < BUCKETS; j++) {
+                if (j > 0) {
+                    result.append(',');
+                }
+
+                result.append(buckets.get(i * BUCKETS + j));
+            }
+
+            result.append("]}");
+        }
+
+        return result.append("}}").toString();
+    }
+
+    /**
+     * Formats the measurements and the statistics of a summary cache in the
+     * Prometheus text exposition format. Durations are given in seconds, and the
+     * buckets of each histogram are cumulative.
+     * 
+     * @param cache the summary cache.
+     * @return The text.
+     */
+    public String formatPrometheus(SummaryCache cache) {
+        final StringBuilder result = new StringBuilder();
+
+        appendHeader(result, "census_rows_parsed_total", "counter", "Rows parsed and loaded.");
+        result.append("census_rows_parsed_total ").append(getRowCount()).append('\n');
+        appendHeader(result, "census_rows_per_second", "gauge", "Rows parsed per second of parsing.");
+        result.append("census_rows_per_second ").append(getRowsPerSecond()).append('\n');
+        appendHeader(result, "census_rows_rejected_total", "counter", "Rows ignored while parsing.");
+
+        for (int i = 0; i < REJECTIONS.length; i++) {
+            result.append("census_rows_rejected_total{reason=\"")
+                    .append(getName(REJECTIONS[i]))
+                    .append("\"} ")
+                    .append(rejections.get(i))
+                    .append('\n');
+        }
+
+        appendHeader(result, "census_bytes_read_total", "counter", "Bytes of the dataset parsed.");
+        result.append("census_bytes_read_total ").append(getByteCount()).append('\n');
+        appendHeader(result, "census_cache_hits_total", "counter", "Summaries read from the cache.");
+        result.append("census_cache_hits_total ").append(cache.getHitCount()).append('\n');
+        appendHeader(result, "census_cache_misses_total", "counter", "Summaries not found in the cache.");
+        result.append("census_cache_misses_total ").append(cache.getMissCount()).append('\n');
+        appendHeader(result, "census_cache_evictions_total", "counter", "Summaries evicted from the cache.");
+        result.append("census_cache_evictions_total ").append(cache.getEvictionCount()).append('\n');
+        appendHeader(result, "census_request_failures_total", "counter", "Requests that failed.");
+
+        for (int i = 0; i < FAILURES.length; i++) {
+            result.append("census_request_failures_total{reason=\"")
+                    .append(getName(FAILURES[i]))
+                    .append("\"} ")
+                    .append(failures.get(i))
+                    .append('\n');
+        }
+
+        appendHeader(result, "census_phase_duration_seconds", "histogram", "Time taken by each phase.");
+
+        for (int i = 0; i < PHASES.length; i++) {
+            final String phase = getName(PHASES[i]);
+
+            long count = 0;
+
+            for (int j = 0; j < BUCKETS; j++) {
+                count += buckets.get(i * BUCKETS + j);
+
+                result.append("census_phase_duration_seconds_bucket{phase=\"")
+                        .append(phase)
+                        .append("\",le=\"");
+
+                if (j == BUCKETS - 1) {
+                    result.append("+Inf");
+                } else {
+                    result.append(getUpperBound(j));
+                }
+
+                result.append("\"} ").append(count).append('\n');
+            }
+
+            result.append("census_phase_duration_seconds_sum{phase=\"")
+                    .append(phase)
+                    .append("\"} ")
+                    .append(durations.get(i) / 1e9)
+                    .append('\n');
+            result.append("census_phase_duration_seconds_count{phase=\"")
+                    .append(phase)
+                    .append("\"} ")
+                    .append(count)
+                    .append('\n');
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Appends the help and type lines that precede the samples of a metric.
+     * 
+     * @param builder the text.
+     * @param name    the name of the metric.
+     * @param type    the type of the metric.
+     * @param help    the description of the metric.
+     */
+    private static void appendHeader(StringBuilder builder, String name, String type, String help) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+}
@@ -0,0 +1,733 @@
+package project2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Provides an HTTP server that answers queries against a loaded tree census.
+ * The server listens on the loopback interface and handles each request on its
+ * own thread, using virtual threads when the runtime supports them. Requests
+ * only read the census, so any number of them can be answered concurrently.
+ * While the server is running, rows appended to the dataset are loaded every
+ * few seconds.
+ * 
+ * The server provides the following endpoints, each of which responds with a
+ * JSON object:
+ * 
+ * <ul>
+ * <li>{@code GET /summary?keyword=oak} summarizes the species matching a
+ * keyword, as in the interactive mode.</li>
+ * <li>{@code GET /species?keyword=oak} lists the species matching a keyword.</li>
+ * <li>{@code GET /count?borough=Queens&common=pin+oak} counts the trees that
+ * match every one of the optional parameters {@code common}, {@code latin},
+ * {@code borough}, {@code status}, {@code health}, and {@code zipcode}.</li>
+ * <li>{@code GET /top?field=species&k=5&health=Poor} counts the matching trees
+ * in the largest groups by {@code species}, {@code borough}, {@code status},
+ * {@code health}, or {@code zipcode}, taking the same optional parameters as
+ * {@code /count}.</li>
+ * <li>{@code GET /ranking?k=20} ranks the most common species in the city and
+ * in each borough.</li>
+ * <li>{@code GET /tree?id=180683} gets the tree with an identifier.</li>
+ * <li>{@code GET /metrics} reports the rows loaded, the cache statistics, the
+ * failed requests, and the latency of each phase of loading and answering
+ * queries, as JSON or, given {@code format=prometheus}, in the Prometheus text
+ * format.</li>
+ * </ul>
+ * 
+ * @author Ishan Pranav
+ */
+public final class CensusServer implements AutoCloseable {
+    private static final Borough[] BOROUGHS = Borough.values();
+    private static final TreeField<?>[] FIELDS = {
+            TreeField.SPECIES, TreeField.BOROUGH, TreeField.STATUS, TreeField.HEALTH, TreeField.ZIP_CODE
+    };
+    private static final int DEFAULT_TOP = 10;
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+    private static final String PROMETHEUS_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final long REFRESH_INTERVAL = 5;
+
+    private final NYCStreetTrees program;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * Initializes a new instance of the {@link CensusServer} class.
+     * 
+     * @param program the loaded census.
+     * @param port    the port on which to listen, or zero to choose any free
+     *                port.
+     * @throws IOException if the server cannot be bound to the port.
+     */
+    CensusServer(NYCStreetTrees program, int port) throws IOException {
+        this.program = program;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = createExecutor();
+
+        server.setExecutor(executor);
+        server.createContext("/summary", new Handler() {
+            @Override
+            protected String respond(Map<String, String> query) {
+                return formatSummary(program.summarize(getRequired(query, "keyword")));
+            }
+        });
+        server.createContext("/species", new Handler() {
+            @Override
+            protected String respond(Map<String, String> query) {
+                return formatSpecies(getRequired(query, "keyword"));
+            }
+        });
+        server.createContext("/tree", new Handler() {
+            @Override
+            protected String respond(Map<String, String> query) {
+                return formatTree(getRequired(query, "id"));
+            }
+        });
+        server.createContext("/count", new Handler() {
+            @Override
+            protected String respond(Map<String, String> query) {
+                return "{\"count\":" + program.count(parseFilter(query)) + "}";
+            }
+        });
+        server.createContext("/top", new Handler() {
+            @Override
+            protected String respond(Map<String, String> query) {
+                return formatTop(query);
+            }
+        });
+        server.createContext("/ranking", new Handler() {
+            @Override
+            protected String respond(Map<String, String> query) {
+                final String k = query.get("k");
+
+                return formatRanking(program.rankSpecies(k == null ? DEFAULT_TOP : parseInteger(k, "k")));
+            }
+        });
+        server.createContext("/metrics", new Handler() {
+            @Override
+            protected String respond(Map<String, String> query) {
+                if (isPrometheus(query)) {
+                    return program.getMetrics().formatPrometheus(program.getSummaryCache());
+                }
+
+                return program.getMetrics().formatJSON(program.getSummaryCache());
+            }
+
+            @Override
+            protected String getContentType(Map<String, String> query) {
+                return isPrometheus(query) ? PROMETHEUS_TYPE : JSON_TYPE;
+            }
+        });
+    }
+
+    /**
+     * Creates an executor that runs each task on a new virtual thread if the
+     * runtime supports virtual threads, or on a pooled platform thread
+     * otherwise.
+     * 
+     * @return The executor.
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException reflectiveOperationException) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Starts the server.
+     */
+    public void start() {
+        server.start();
+        refresher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    program.refresh();
+                } catch (IOException ioException) {
+                    System.err.println(ioException.getLocalizedMessage());
+                } catch (IllegalArgumentException illegalArgumentException) {
+                    // Rows with invalid values are counted and skipped, but a header that
+                    // lacks a required column rejects the new rows until it is corrected
+
+                    System.err.println(illegalArgumentException.getLocalizedMessage());
+                } catch (RuntimeException exception) {
+                    // An exception thrown from a scheduled task cancels its later runs, so
+                    // report it and keep serving the loaded dataset
+
+                    System.err.println(exception);
+                }
+            }
+        }, REFRESH_INTERVAL, REFRESH_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Gets the port on which the server listens.
+     * 
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        refresher.shutdown();
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * Provides a base class for the request handlers that parses the query string,
+     * writes the response, and records failed requests.
+     */
+    private abstract class Handler implements HttpHandler {
+        /**
+         * Computes the response to a request.
+         * 
+         * @param query the decoded parameters of the query string.
+         * @return The JSON response.
+         * @throws IllegalArgumentException if the request is invalid.
+         * @throws NoSuchElementException   if the requested resource does not
+         *                                  exist.
+         */
+        protected abstract String respond(Map<String, String> query);
+
+        /**
+         * Gets the media type of a successful response.
+         * 
+         * @param query the decoded parameters of the query string.
+         * @return The media type.
+         */
+        protected String getContentType(Map<String, String> query) {
+            return JSON_TYPE;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            final CensusMetrics metrics = program.getMetrics();
+
+            int status = 200;
+            String contentType = JSON_TYPE;
+            String response;
+
+            try {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    status = 405;
+                    response = formatError("The request method must be GET.");
+
+                    metrics.recordFailure(CensusMetrics.Failure.BAD_REQUEST);
+                } else {
+                    final Map<String, String> query = parseQuery(exchange.getRequestURI());
+
+                    response = respond(query);
+                    contentType = getContentType(query);
+                }
+            } catch (IllegalArgumentException illegalArgumentException) {
+                status = 400;
+                response = formatError(illegalArgumentException.getLocalizedMessage());
+
+                metrics.recordFailure(CensusMetrics.Failure.BAD_REQUEST);
+            } catch (NoSuchElementException noSuchElementException) {
+                status = 404;
+                response = formatError(noSuchElementException.getLocalizedMessage());
+
+                metrics.recordFailure(CensusMetrics.Failure.NOT_FOUND);
+            } catch (RuntimeException exception) {
+                status = 500;
+                response = formatError("An unexpected error occurred.");
+
+                // The client only learns that the request failed, so report the cause
+                // where the operator can see it
+
+                metrics.recordFailure(CensusMetrics.Failure.UNEXPECTED);
+                System.err.println(exception);
+            }
+
+            final byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(status, bytes.length);
+
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Determines whether the metrics are requested in the Prometheus text format.
+     * 
+     * @param query the parameters.
+     * @return {@code true} if the {@code format} parameter is
+     *         {@code prometheus}; otherwise, {@code false}.
+     * @throws IllegalArgumentException if the {@code format} parameter is neither
+     *                                  {@code json} nor {@code prometheus}.
+     */
+    private static boolean isPrometheus(Map<String, String> query) {
+        final String format = query.get("format");
+
+        if (format == null || format.equalsIgnoreCase("json")) {
+            return false;
+        }
+
+        if (format.equalsIgnoreCase("prometheus")) {
+            return true;
+        }
+
+        throw new IllegalArgumentException(
+                "A valid format is required. Allowed values: json, prometheus. Argument name: format.");
+    }
+
+    /**
+     * Decodes the parameters of the query string of a request URI. If a
+     * parameter occurs more than once, its first value is used.
+     * 
+     * @param uri the request URI.
+     * @return The parameters.
+     */
+    private static Map<String, String> parseQuery(URI uri) {
+        final HashMap<String, String> results = new HashMap<String, String>();
+        final String query = uri.getRawQuery();
+
+        if (query == null) {
+            return results;
+        }
+
+        for (String parameter : query.split("&")) {
+            final int separator = parameter.indexOf('=');
+
+            if (separator < 0) {
+                results.putIfAbsent(URLDecoder.decode(parameter, StandardCharsets.UTF_8), "");
+            } else {
+                results.putIfAbsent(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Gets a required non-empty parameter.
+     * 
+     * @param query the parameters.
+     * @param name  the parameter name.
+     * @return The parameter value.
+     * @throws IllegalArgumentException if the parameter is missing or empty.
+     */
+    private static String getRequired(Map<String, String> query, String name) {
+        final String result = query.get(name);
+
+        if (result == null || result.isEmpty()) {
+            throw new IllegalArgumentException("Value cannot be null or empty. Argument name: " + name + ".");
+        }
+
+        return result;
+    }
+
+    /**
+     * Formats a keyword summary as JSON.
+     * 
+     * @param summary the summary.
+     * @return The JSON object.
+     */
+    static String formatSummary(SpeciesSummary summary) {
+        final StringBuilder result = new StringBuilder();
+
+        result.append("{\"keyword\":");
+        appendString(result, summary.getKeyword());
+        result.append(",\"species\":[");
+
+        for (int i = 0; i < summary.getSpeciesNames().size(); i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+
+            appendString(result, summary.getSpeciesNames().get(i));
+        }
+
+        result.append("],\"city\":{\"count\":")
+                .append(summary.getFrequency())
+                .append(",\"total\":")
+                .append(summary.getTotal())
+                .append("},\"boroughs\":[");
+
+        for (int i = 0; i < BOROUGHS.length; i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+
+            result.append("{\"name\":");
+            appendString(result, BOROUGHS[i].getName());
+            result.append(",\"count\":")
+                    .append(summary.getFrequency(BOROUGHS[i]))
+                    .append(",\"total\":")
+                    .append(summary.getTotal(BOROUGHS[i]))
+                    .append('}');
+        }
+
+        return result.append("]}").toString();
+    }
+
+    /**
+     * Formats the species that match a keyword as JSON.
+     * 
+     * @param keyword the species keyword.
+     * @return The JSON object.
+     */
+    private String formatSpecies(String keyword) {
+        final StringBuilder result = new StringBuilder();
+        final TreeSpeciesList matches = program.search(keyword);
+
+        result.append("{\"keyword\":");
+        appendString(result, keyword);
+        result.append(",\"species\":[");
+
+        for (int i = 0; i < matches.size(); i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+
+            result.append("{\"common\":");
+            appendString(result, matches.get(i).getCommonName());
+            result.append(",\"latin\":");
+            appendString(result, matches.get(i).getLatinName());
+            result.append('}');
+        }
+
+        return result.append("]}").toString();
+    }
+
+    /**
+     * Formats the tree with the given identifier as JSON.
+     * 
+     * @param id the tree identifier.
+     * @return The JSON object.
+     * @throws IllegalArgumentException if the identifier is not an integer.
+     * @throws NoSuchElementException   if no tree has the identifier.
+     */
+    private String formatTree(String id) {
+        final int treeID = parseInteger(id, "id");
+        final Tree tree = program.getTree(treeID);
+
+        if (tree == null) {
+            throw new NoSuchElementException("No tree has the identifier " + treeID + ".");
+        }
+
+        final StringBuilder result = new StringBuilder();
+
+        result.append("{\"id\":").append(tree.getTreeID()).append(",\"common\":");
+        appendString(result, tree.getCommonName());
+        result.append(",\"latin\":");
+        appendString(result, tree.getLatinName());
+        result.append(",\"status\":");
+        appendString(result, tree.getStatusValue() == null ? "" : tree.getStatus());
+        result.append(",\"health\":");
+        appendString(result, tree.getHealthValue() == null ? "" : tree.getHealth());
+        result.append(",\"zipCode\":").append(tree.getZipCode()).append(",\"borough\":");
+        appendString(result, tree.getBorough());
+
+        result.append(",\"x\":");
+        appendNumber(result, tree.getX());
+        result.append(",\"y\":");
+        appendNumber(result, tree.getY());
+
+        return result.append('}').toString();
+    }
+
+    /**
+     * Parses an integer parameter.
+     * 
+     * @param value the parameter value.
+     * @param name  the parameter name.
+     * @return The integer.
+     * @throws IllegalArgumentException if the value is not an integer.
+     */
+    private static int parseInteger(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException numberFormatException) {
+            throw new IllegalArgumentException("An integer is required. Argument name: " + name + ".");
+        }
+    }
+
+    /**
+     * Creates a filter from the optional parameters {@code common},
+     * {@code latin}, {@code borough}, {@code status}, {@code health}, and
+     * {@code zipcode}. A tree matches the filter if it matches every parameter
+     * that is present.
+     * 
+     * @param query the parameters.
+     * @return The filter.
+     * @throws IllegalArgumentException if a parameter is invalid.
+     */
+    private static TreeFilter parseFilter(Map<String, String> query) {
+        final String commonName = query.get("common");
+        final String latinName = query.get("latin");
+        final String boroName = query.get("borough");
+        final String statusName = query.get("status");
+        final String healthName = query.get("health");
+        final String zipCode = query.get("zipcode");
+
+        TreeFilter result = TreeFilter.ALL;
+
+        if (commonName != null) {
+            result = result.and(TreeFilter.commonName(commonName));
+        }
+
+        if (latinName != null) {
+            result = result.and(TreeFilter.latinName(latinName));
+        }
+
+        if (boroName != null) {
+            final Borough borough = Borough.parse(boroName);
+
+            if (borough == null) {
+                throw new IllegalArgumentException(
+                        "A valid borough name is required. Allowed values: Manhattan, Bronx, Brooklyn, Queens, Staten Island. Argument name: borough.");
+            }
+
+            result = result.and(TreeFilter.borough(borough));
+        }
+
+        if (statusName != null) {
+            final TreeStatus status = TreeStatus.parse(statusName);
+
+            if (status == null) {
+                throw new IllegalArgumentException(
+                        "A valid status is required. Allowed values: Alive, Dead, Stump, or empty. Argument name: status.");
+            }
+
+            result = result.and(TreeFilter.status(status));
+        }
+
+        if (healthName != null) {
+            final TreeHealth health = TreeHealth.parse(healthName);
+
+            if (health == null) {
+                throw new IllegalArgumentException(
+                        "A valid health is required. Allowed values: Good, Fair, Poor, or empty. Argument name: health.");
+            }
+
+            result = result.and(TreeFilter.health(health));
+        }
+
+        if (zipCode != null) {
+            result = result.and(TreeFilter.zipCode(parseInteger(zipCode, "zipcode")));
+        }
+
+        return result;
+    }
+
+    /**
+     * Formats the largest groups of the trees that match a filter as JSON.
+     * 
+     * @param query the parameters: the grouping {@code field}, the optional
+     *              maximum number of groups {@code k}, and the parameters of
+     *              the filter.
+     * @return The JSON object.
+     * @throws IllegalArgumentException if a parameter is invalid.
+     */
+    private String formatTop(Map<String, String> query) {
+        final String fieldName = getRequired(query, "field");
+        final String k = query.get("k");
+
+        TreeField<?> field = null;
+
+        for (TreeField<?> item : FIELDS) {
+            if (item.toString().equalsIgnoreCase(fieldName)) {
+                field = item;
+            }
+        }
+
+        if (field == null) {
+            throw new IllegalArgumentException(
+                    "A valid field is required. Allowed values: species, borough, status, health, zipcode. Argument name: field.");
+        }
+
+        final Map<?, Integer> groups = program.getTop(parseFilter(query), field,
+                k == null ? DEFAULT_TOP : parseInteger(k, "k"));
+        final StringBuilder result = new StringBuilder();
+
+        result.append("{\"field\":");
+        appendString(result, field.toString());
+        result.append(",\"groups\":[");
+
+        boolean first = true;
+
+        for (Map.Entry<?, Integer> entry : groups.entrySet()) {
+            final Object value = entry.getKey();
+
+            if (!first) {
+                result.append(',');
+            }
+
+            first = false;
+
+            // Species are identified by both names, and the other values by name or
+            // number
+
+            if (value instanceof TreeSpecies) {
+                result.append("{\"common\":");
+                appendString(result, ((TreeSpecies) value).getCommonName());
+                result.append(",\"latin\":");
+                appendString(result, ((TreeSpecies) value).getLatinName());
+            } else if (value instanceof Borough) {
+                result.append("{\"value\":");
+                appendString(result, ((Borough) value).getName());
+            } else if (value instanceof TreeStatus) {
+                result.append("{\"value\":");
+                appendString(result, ((TreeStatus) value).getName());
+            } else if (value instanceof TreeHealth) {
+                result.append("{\"value\":");
+                appendString(result, ((TreeHealth) value).getName());
+            } else {
+                result.append("{\"value\":").append(value);
+            }
+
+            result.append(",\"count\":").append(entry.getValue()).append('}');
+        }
+
+        return result.append("]}").toString();
+    }
+
+    /**
+     * Formats the rankings of the most common species in each area as JSON.
+     * 
+     * @param rankings the map from the name of each area to its ranking.
+     * @return The JSON object.
+     */
+    private static String formatRanking(Map<String, Map<TreeSpecies, Integer>> rankings) {
+        final StringBuilder result = new StringBuilder("{\"areas\":[");
+
+        boolean firstArea = true;
+
+        for (Map.Entry<String, Map<TreeSpecies, Integer>> area : rankings.entrySet()) {
+            if (!firstArea) {
+                result.append(',');
+            }
+
+            firstArea = false;
+
+            result.append("{\"name\":");
+            appendString(result, area.getKey());
+            result.append(",\"species\":[");
+
+            boolean first = true;
+
+            for (Map.Entry<TreeSpecies, Integer> entry : area.getValue().entrySet()) {
+                if (!first) {
+                    result.append(',');
+                }
+
+                first = false;
+
+                result.append("{\"common\":");
+                appendString(result, entry.getKey().getCommonName());
+                result.append(",\"latin\":");
+                appendString(result, entry.getKey().getLatinName());
+                result.append(",\"count\":").append(entry.getValue()).append('}');
+            }
+
+            result.append("]}");
+        }
+
+        return result.append("]}").toString();
+    }
+
+    /**
+     * Formats an error message as JSON.
+     * 
+     * @param message the message.
+     * @return The JSON object.
+     */
+    private static String formatError(String message) {
+        final StringBuilder result = new StringBuilder("{\"error\":");
+
+        appendString(result, message);
+
+        return result.append('}').toString();
+    }
+
+    /**
+     * Appends a number to a JSON document, or {@code null} if the number is not
+     * finite.
+     * 
+     * @param builder the JSON document.
+     * @param value   the number.
+     */
+    static void appendNumber(StringBuilder builder, double value) {
+        if (Double.isFinite(value)) {
+            builder.append(value);
+        } else {
+            builder.append("null");
+        }
+    }
+
+    /**
+     * Appends a string to a JSON document as a quoted and escaped string literal.
+     * 
+     * @param builder the JSON document.
+     * @param value   the string.
+     */
+    static void appendString(StringBuilder builder, String value) {
+        builder.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+
+                case '\n':
+                    builder.append("\\n");
+                    break;
+
+                case '\r':
+                    builder.append("\\r");
+                    break;
+
+                case '\t':
+                    builder.append("\\t");
+                    break;
+
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+
+                    break;
+            }
+        }
+
+        builder.append('"');
+    }
+}
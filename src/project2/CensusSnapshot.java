@@ -0,0 +1,260 @@
+package project2;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Represents a binary snapshot of the trees and tree species loaded from a tree
+ * census dataset. A snapshot is written next to the dataset after it is first
+ * parsed and is memory-mapped on subsequent starts. It is only used while the
+ * size, modification time, and checksum of the dataset match the values
+ * recorded when the snapshot was written, and while the checksum of the
+ * snapshot itself matches the value recorded at its end.
+ * 
+ * @author Ishan Pranav
+ */
+public final class CensusSnapshot {
+    private static final int MAGIC = 0x54524545;
+    private static final int VERSION = 3;
+    private static final int SAMPLE_SIZE = 1 << 20;
+    private static final String EXTENSION = ".snapshot";
+
+    private final TreeList trees;
+    private final TreeSpeciesList species;
+    private final long position;
+
+    private CensusSnapshot(TreeList trees, TreeSpeciesList species, long position) {
+        this.trees = trees;
+        this.species = species;
+        this.position = position;
+    }
+
+    /**
+     * Gets the trees in the snapshot.
+     * 
+     * @return The trees.
+     */
+    public TreeList getTrees() {
+        return trees;
+    }
+
+    /**
+     * Gets the position in the dataset after the last line in the snapshot, from
+     * which to load the lines appended to the dataset.
+     * 
+     * @return The position, in bytes.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Gets the distinct tree species in the snapshot.
+     * 
+     * @return The tree species.
+     */
+    public TreeSpeciesList getSpecies() {
+        return species;
+    }
+
+    /**
+     * Gets the path of the snapshot for the given dataset.
+     * 
+     * @param path the path to the comma-delimited (*.csv) dataset.
+     * @return The path to the snapshot.
+     */
+    public static Path getPath(String path) {
+        return Paths.get(path + EXTENSION);
+    }
+
+    /**
+     * Reads the snapshot for the given dataset.
+     * 
+     * @param path the path to the comma-delimited (*.csv) dataset.
+     * @return The snapshot, or {@code null} if the snapshot does not exist, is
+     *         invalid, or was written for a different version of the dataset.
+     * @throws IOException if an error occurs while attempting to access the
+     *                     dataset.
+     */
+    public static CensusSnapshot read(String path) throws IOException {
+        final Path source = Paths.get(path);
+        final long size = Files.size(source);
+        final long lastModified = Files.getLastModifiedTime(source).toMillis();
+
+        try (FileChannel channel = FileChannel.open(getPath(path), StandardOpenOption.READ)) {
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC
+                    || buffer.getInt() != VERSION
+                    || buffer.getLong() != size
+                    || buffer.getLong() != lastModified
+                    || buffer.getLong() != getChecksum(source, size)) {
+                return null;
+            }
+
+            final long position = buffer.getLong();
+
+            if (position < 0 || position > size) {
+                return null;
+            }
+
+            // The last eight bytes hold the checksum of the body that follows the header
+
+            final int end = buffer.limit() - Long.BYTES;
+            final CRC32C checksum = new CRC32C();
+
+            checksum.update(buffer.duplicate().limit(end));
+
+            if (buffer.getLong(end) != checksum.getValue()) {
+                return null;
+            }
+
+            buffer.limit(end);
+
+            final TreeList trees = new TreeList();
+
+            trees.read(buffer);
+
+            final TreeSpeciesList species = new TreeSpeciesList();
+            final int speciesCount = buffer.getInt();
+
+            for (int i = 0; i < speciesCount; i++) {
+                species.add(trees.getSpecies(buffer.getInt()));
+            }
+
+            if (buffer.hasRemaining()) {
+                return null;
+            }
+
+            return new CensusSnapshot(trees, species, position);
+        } catch (NoSuchFileException noSuchFileException) {
+            return null;
+        } catch (RuntimeException exception) {
+            // A truncated or corrupted snapshot is treated as a missing snapshot
+
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot for the given dataset. The snapshot is written to a
+     * temporary file that then replaces any existing snapshot atomically.
+     * 
+     * @param path     the path to the comma-delimited (*.csv) dataset.
+     * @param trees    the trees loaded from the dataset.
+     * @param species  the distinct tree species loaded from the dataset.
+     * @param position the position in the dataset after the last line that was
+     *                 loaded.
+     * @throws IOException if an error occurs while attempting to access the
+     *                     dataset or the snapshot.
+     */
+    public static void write(String path, TreeList trees, TreeSpeciesList species, long position)
+            throws IOException {
+        final Path source = Paths.get(path);
+        final Path target = getPath(path);
+        final long size = Files.size(source);
+        final long lastModified = Files.getLastModifiedTime(source).toMillis();
+        final Path directory = target.toAbsolutePath().getParent();
+        final Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+
+        try {
+            final CRC32C checksum = new CRC32C();
+
+            try (OutputStream outputStream = Files.newOutputStream(temporary);
+                    DataOutputStream output = new DataOutputStream(
+                            new CheckedOutputStream(new BufferedOutputStream(outputStream), checksum))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(size);
+                output.writeLong(lastModified);
+                output.writeLong(getChecksum(source, size));
+                output.writeLong(position);
+                checksum.reset();
+                trees.write(output);
+                output.writeInt(species.size());
+
+                for (TreeSpecies item : species) {
+                    final int speciesID = trees.indexOfSpecies(item);
+
+                    if (speciesID < 0) {
+                        throw new IllegalArgumentException(
+                                "Value does not fall within the expected range. Argument name: species.");
+                    }
+
+                    output.writeInt(speciesID);
+                }
+
+                output.writeLong(checksum.getValue());
+            }
+
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Computes a checksum over the first and last mebibyte of the dataset. Together
+     * with the size and modification time, the checksum detects changes to the
+     * dataset without reading all of it.
+     * 
+     * @param source the path to the dataset.
+     * @param size   the size of the dataset.
+     * @return The checksum.
+     * @throws IOException if an error occurs while reading the dataset.
+     */
+    private static long getChecksum(Path source, long size) throws IOException {
+        final CRC32C result = new CRC32C();
+
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(SAMPLE_SIZE);
+
+            update(result, channel, buffer, 0, Math.min(size, SAMPLE_SIZE));
+
+            if (size > SAMPLE_SIZE) {
+                final long start = Math.max(SAMPLE_SIZE, size - SAMPLE_SIZE);
+
+                update(result, channel, buffer, start, size - start);
+            }
+        }
+
+        return result.getValue();
+    }
+
+    /**
+     * Updates a checksum with a range of bytes from a file.
+     * 
+     * @param checksum the checksum.
+     * @param channel  the file channel.
+     * @param buffer   the buffer used to read the range.
+     * @param position the position of the first byte in the range.
+     * @param length   the number of bytes in the range.
+     * @throws IOException if an error occurs while reading the file.
+     */
+    private static void update(CRC32C checksum, FileChannel channel, ByteBuffer buffer, long position, long length)
+            throws IOException {
+        buffer.clear();
+        buffer.limit((int) length);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+
+        buffer.flip();
+        checksum.update(buffer);
+    }
+}
@@ -1,11 +1,21 @@
 package project2;
 
+import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides the controller for the New York City Street Tree Census parser
@@ -14,10 +24,26 @@ import java.util.Scanner;
  * @author Ishan Pranav
  */
 public final class NYCStreetTrees {
-    private static final String[] BOROUGHS = Tree.getBoroughs();
+    private static final Borough[] BOROUGHS = Borough.values();
+    private static final TreeStatus[] STATUSES = TreeStatus.values();
+    private static final TreeHealth[] HEALTHS = TreeHealth.values();
+    private static final String SERVER_OPTION = "--server";
+    private static final String REPORT_OPTION = "--report";
+    private static final String BATCH_OPTION = "--batch";
+    private static final int DEFAULT_PORT = 8080;
+    private static final int CACHE_CAPACITY = 256;
+    private static final long CACHE_TIME_TO_LIVE = TimeUnit.MINUTES.toNanos(10);
 
     /**
-     * Provides the main entry point for the application.
+     * Provides the main entry point for the application. The first argument is
+     * the path to the dataset. If it is followed by {@code --server} and an
+     * optional port, the program answers queries over HTTP instead of reading
+     * them from the standard input stream. If it is followed by
+     * {@code --report}, the program streams the dataset into aggregate totals
+     * and prints a report without loading the trees into memory. If it is
+     * followed by {@code --batch} and an optional path, the program answers every
+     * keyword in the file (or the standard input stream) at once, without
+     * prompting.
      * 
      * @param args the command-line arguments to the program.
      */
@@ -25,7 +51,7 @@ public final class NYCStreetTrees {
         // This try-catch block only catches exceptions thrown within the program
         // itself; exceptions thrown from library functions should be caught elsewhere
 
-        try {
+        try (ReportWriter writer = new ReportWriter(System.out)) {
             if (args.length == 0) {
                 // "If the program is run without any arguments, the program should display an
                 // error message and terminate. It should not prompt the user for the name of
@@ -35,6 +61,22 @@ public final class NYCStreetTrees {
                         "Usage error: The program expects a path to a CSV data set as a command-line argument.");
             } else {
                 final String path = args[0];
+
+                if (args.length == 2 && args[1].equals(REPORT_OPTION)) {
+                    final CensusAggregate aggregate = new CensusAggregate();
+
+                    try {
+                        CensusLoader.aggregate(path, aggregate);
+                    } catch (IOException ioException) {
+                        throw new IOException("Error: the file " + path + " cannot be opened.");
+                    }
+
+                    printReport(writer, aggregate);
+
+                    return;
+                }
+
+                final int port = getPort(args);
                 final NYCStreetTrees program;
 
                 try {
@@ -43,51 +85,67 @@ public final class NYCStreetTrees {
                     throw new IOException("Error: the file " + path + " cannot be opened.");
                 }
 
-                try (Scanner scanner = new Scanner(System.in)) {
-                    String line = "";
+                if (args.length > 1 && args[1].equals(BATCH_OPTION)) {
+                    final String batchPath = args.length == 3 ? args[2] : null;
+                    final List<String> keywords;
 
-                    final String terminateString = "quit";
+                    try {
+                        keywords = readKeywords(batchPath);
+                    } catch (IOException ioException) {
+                        throw new IOException("Error: the file " + batchPath + " cannot be opened.");
+                    }
 
-                    // Request next tree species until "quit" is entered
+                    for (SpeciesSummary summary : program.summarizeAll(keywords)) {
+                        printSummary(writer, summary);
+                    }
 
-                    while (!line.equalsIgnoreCase(terminateString)) {
-                        System.out.println("Enter the tree species to learn more about it (\"quit\" to stop):");
+                    return;
+                }
 
-                        line = scanner.nextLine();
+                if (port >= 0) {
+                    // The server threads keep the program running until it is terminated
 
-                        if (line.length() > 0 && !line.equalsIgnoreCase(terminateString)) {
-                            // Populate totals, frequencies, and sorted species names for each borough
+                    final CensusServer server = new CensusServer(program, port);
 
-                            if (program.summarize(line)) {
-                                // At least one matching species
+                    server.start();
+                    System.out.println("Listening on http://127.0.0.1:" + server.getPort() + "/");
 
-                                System.out.println("All matching species:");
+                    return;
+                }
 
-                                for (String speciesName : program.speciesNames) {
-                                    System.out.print('\t');
+                try (Scanner scanner = new Scanner(System.in)) {
+                    String line = "";
 
-                                    // Print lower-case species names
+                    final String terminateString = "quit";
 
-                                    System.out.println(speciesName.toLowerCase());
-                                }
+                    // Request next tree species until "quit" is entered
 
-                                System.out.println();
-                                System.out.println("Popularity in the city:");
+                    while (!line.equalsIgnoreCase(terminateString)) {
+                        writer.println("Enter the tree species to learn more about it (\"quit\" to stop):");
+
+                        // Show the prompt before waiting for input
 
-                                printPopularity("NYC", program.frequency, program.trees.getTotalNumberOfTrees());
+                        writer.flush();
 
-                                for (int i = 0; i < BOROUGHS.length; i++) {
-                                    printPopularity(BOROUGHS[i], program.frequencies[i], program.totals[i]);
-                                }
+                        line = scanner.nextLine();
 
-                                System.out.println();
-                            } else {
-                                // No matching species
-                                
-                                System.out.println();
-                                System.out.println("Tere are no records of " + line + " on NYC streets");
-                                System.out.println();
+                        if (line.length() > 0 && !line.equalsIgnoreCase(terminateString)) {
+                            // Include any rows appended to the dataset while waiting for input. If
+                            // they cannot be read, keep answering from the loaded dataset
+
+                            try {
+                                program.refresh();
+                            } catch (IOException ioException) {
+                                System.err.println("Error: the file " + path + " cannot be refreshed.");
+                            } catch (IllegalArgumentException illegalArgumentException) {
+                                System.err.println(illegalArgumentException.getLocalizedMessage());
                             }
+
+                            // Populate totals, frequencies, and sorted species names for each borough
+
+                            final SpeciesSummary summary = program.summarize(line);
+
+                            printSummary(writer, summary);
                         }
                     }
                 }
@@ -109,34 +167,232 @@ public final class NYCStreetTrees {
     }
 
     /**
-     * Prints a formatted row displaying statistics about the tree.
+     * Gets the port on which to serve queries from the command-line arguments.
+     * 
+     * @param args the command-line arguments to the program.
+     * @return The port, or -1 if the program should not serve queries over
+     *         HTTP.
+     * @throws IllegalArgumentException if the arguments are invalid.
+     */
+    private static int getPort(String[] args) {
+        if (args.length == 1 || (args.length <= 3 && args[1].equals(BATCH_OPTION))) {
+            return -1;
+        }
+
+        if (args.length <= 3 && args[1].equals(SERVER_OPTION)) {
+            if (args.length == 2) {
+                return DEFAULT_PORT;
+            }
+
+            try {
+                final int result = Integer.parseInt(args[2]);
+
+                if (result >= 0 && result <= 0xffff) {
+                    return result;
+                }
+            } catch (NumberFormatException numberFormatException) {
+            }
+        }
+
+        throw new IllegalArgumentException(
+                "Usage error: The program expects a path to a CSV data set, optionally followed by --server and a port, --batch and a path, or --report.");
+    }
+
+    /**
+     * Reads the keywords to answer in batch mode, one per line. Empty lines are
+     * skipped, and a line containing {@code "quit"} ends the batch.
      * 
-     * @param borough   The borough name.
-     * @param frequency The number of matching trees in that borough.
-     * @param total     The total number of trees in that borough.
+     * @param path the path to the file of keywords, or {@code null} to read the
+     *             keywords from the standard input stream.
+     * @return The keywords.
+     * @throws IOException if an error occurs while reading the keywords.
      */
-    private static void printPopularity(String borough, int frequency, int total) {
-        final double percentage;
+    private static List<String> readKeywords(String path) throws IOException {
+        final ArrayList<String> results = new ArrayList<String>();
+        final InputStream input = path == null ? System.in : new FileInputStream(path);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input))) {
+            String line;
+
+            while ((line = reader.readLine()) != null && !line.equalsIgnoreCase("quit")) {
+                if (line.length() > 0) {
+                    results.add(line);
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Prints the matching species and their popularity in the city and in each
+     * borough.
+     * 
+     * @param writer  the writer to which the summary is written.
+     * @param summary the summary of the species that match a keyword.
+     */
+    private static void printSummary(ReportWriter writer, SpeciesSummary summary) {
+        if (summary.hasMatches()) {
+            // At least one matching species
+
+            writer.println("All matching species:");
+
+            for (String speciesName : summary.getSpeciesNames()) {
+                writer.print('\t');
+
+                // Print lower-case species names
 
-        if (total == 0) {
-            percentage = 0;
+                writer.printlnLowerCase(speciesName);
+            }
+
+            writer.println();
+            writer.println("Popularity in the city:");
+
+            writer.printPopularity("NYC", summary.getFrequency(), summary.getTotal());
+
+            for (Borough borough : BOROUGHS) {
+                writer.printPopularity(borough.getName(), summary.getFrequency(borough), summary.getTotal(borough));
+            }
+
+            writer.println();
         } else {
-            percentage = 100d * frequency / total;
+            // No matching species
+            
+            writer.println();
+            writer.println("Tere are no records of " + summary.getKeyword() + " on NYC streets");
+            writer.println();
+        }
+    }
+
+    /**
+     * Prints the number of trees in the city and in each borough with each
+     * status, health, and species, and the number of trees in each postal (ZIP)
+     * code.
+     * 
+     * @param writer    the writer to which the report is written.
+     * @param aggregate the aggregate totals of the dataset.
+     */
+    private static void printReport(ReportWriter writer, CensusAggregate aggregate) {
+        final int total = aggregate.getTotalNumberOfTrees();
+
+        writer.println("Trees in the city:");
+
+        writer.printPopularity("NYC", total, total);
+
+        for (Borough borough : BOROUGHS) {
+            writer.printPopularity(borough.getName(), aggregate.getCountByBorough(borough), total);
         }
 
-        // Two format strings are required for perfect formatting: the parenthetical
-        // fraction is a string in its own column
+        writer.println();
+        writer.println("Status:");
+
+        for (TreeStatus status : STATUSES) {
+            int frequency = 0;
+
+            for (Borough borough : BOROUGHS) {
+                frequency += aggregate.getCountByStatusBorough(status, borough);
+            }
+
+            writer.printPopularity(status == TreeStatus.UNSPECIFIED ? "Unspecified" : status.getName(), frequency, total);
+        }
+
+        writer.println();
+        writer.println("Health:");
+
+        for (TreeHealth health : HEALTHS) {
+            int frequency = 0;
+
+            for (Borough borough : BOROUGHS) {
+                frequency += aggregate.getCountByHealthBorough(health, borough);
+            }
+
+            writer.printPopularity(health == TreeHealth.UNSPECIFIED ? "Unspecified" : health.getName(), frequency, total);
+        }
+
+        writer.println();
+        writer.println("Species:");
+
+        // Print the most common species first
+
+        final TreeSpecies[] species = aggregate.getSpecies().toArray(new TreeSpecies[0]);
+
+        Arrays.sort(species, new Comparator<TreeSpecies>() {
+            @Override
+            public int compare(TreeSpecies a, TreeSpecies b) {
+                final int result = Integer.compare(aggregate.getCountBySpecies(b), aggregate.getCountBySpecies(a));
 
-        System.out.printf("\t%-14s:%21s%9.2f%%\n", borough, String.format("%,d(%,d)", frequency, total), percentage);
+                if (result != 0) {
+                    return result;
+                }
+
+                return a.getCommonName().compareToIgnoreCase(b.getCommonName());
+            }
+        });
+
+        for (TreeSpecies item : species) {
+            writer.printPopularity(item.getCommonName().toLowerCase(), aggregate.getCountBySpecies(item), total);
+        }
+
+        writer.println();
+        writer.println("Zip codes:");
+
+        for (int zipCode = 0; zipCode <= 99999; zipCode++) {
+            final int frequency = aggregate.getCountByZipCode(zipCode);
+
+            if (frequency > 0) {
+                writer.printPopularity(String.format("%05d", zipCode), frequency, total);
+            }
+        }
+
+        writer.println();
     }
 
-    private final int[] totals = new int[BOROUGHS.length];
-    private final int[] frequencies = new int[BOROUGHS.length];
-    private final TreeList trees = new TreeList();
-    private final TreeSpeciesList species = new TreeSpeciesList();
-    private final ArrayList<String> speciesNames = new ArrayList<String>();
+    /**
+     * Represents an immutable version of the dataset. Queries read a single
+     * version throughout, and changes are made to a copy that replaces the
+     * current version at once, so queries never wait for changes and see either
+     * all or none of them.
+     */
+    private static final class View {
+        private final TreeList trees;
+        private final TreeSpeciesList species;
+        private final int[] totals = new int[BOROUGHS.length];
+        private final long version;
+
+        /**
+         * Initializes a new instance of the {@link View} class. Neither
+         * collection may be modified afterwards.
+         * 
+         * @param trees   the trees.
+         * @param species the distinct tree species.
+         * @param version the number of changes made to the dataset since it was
+         *                loaded.
+         */
+        public View(TreeList trees, TreeSpeciesList species, long version) {
+            this.trees = trees;
+            this.species = species;
+            this.version = version;
+
+            // Calculate the total number of trees in each borough
+
+            for (int i = 0; i < BOROUGHS.length; i++) {
+                totals[i] = trees.getCountByBorough(BOROUGHS[i]);
+            }
+        }
+    }
+
+    private final String path;
+    private final SummaryCache cache = new SummaryCache(CACHE_CAPACITY, CACHE_TIME_TO_LIVE);
+    private final CensusMetrics metrics = new CensusMetrics();
+
+    // Queries read the current view without locking. Changes are serialized by
+    // synchronizing on the program and published by replacing the view
+
+    private volatile View view;
 
-    private int frequency = 0;
+    // The position in the dataset from which to load appended rows
+
+    private long position;
 
     /**
      * Initializes a new instance of the {@link NYCStreetTrees} class.
@@ -145,110 +401,393 @@ public final class NYCStreetTrees {
      * @throws IOException if an error occurs while attempting to access the
      *                     dataset.
      */
-    private NYCStreetTrees(String path) throws IOException {
-        try (FileInputStream fileInputStream = new FileInputStream(path)) {
-            try (CSV csv = new CSV(fileInputStream)) {
+    NYCStreetTrees(String path) throws IOException {
+        final long start = System.nanoTime();
+        final CensusSnapshot snapshot = CensusSnapshot.read(path);
 
-                // Skip the header row
+        this.path = path;
 
-                if (csv.hasNext()) {
-                    csv.next();
-                }
+        if (snapshot == null) {
+            final TreeList trees = new TreeList();
+            final TreeSpeciesList species = new TreeSpeciesList();
+
+            position = CensusLoader.load(path, trees, species, metrics);
 
-                while (csv.hasNext()) {
-                    final List<String> fields = csv.next();
+            // The snapshot only accelerates later starts, so a dataset in a read-only
+            // directory is still usable. The snapshot records the position after the
+            // last complete line, so lines written later are loaded by a refresh
+
+            try {
+                CensusSnapshot.write(path, trees, species, position);
+            } catch (IOException ioException) {
+            }
+
+            view = new View(trees, species, 0);
+        } else {
+            view = new View(snapshot.getTrees(), snapshot.getSpecies(), 0);
+            position = snapshot.getPosition();
+        }
+
+        metrics.record(CensusMetrics.Phase.LOAD, start);
+    }
 
-                    // "Any row that contains the tree id and common species name is a valid row.
-                    // Any rows that are missing either of these two values should be silently
-                    // ignored by the program. Any other column values can be empty."
+    /**
+     * Loads the rows appended to the dataset since it was loaded or last
+     * refreshed. Only the new rows are parsed. They are then merged into the
+     * dataset and its counts at once, so concurrent queries see either all or
+     * none of them. Rows must be appended as complete lines; a final line
+     * without a line terminator is loaded once it is terminated.
+     * 
+     * @return The number of trees added.
+     * @throws IOException if an error occurs while attempting to access the
+     *                     dataset, or the dataset has been truncated.
+     */
+    synchronized int refresh() throws IOException {
+        if (Files.size(Paths.get(path)) == position) {
+            return 0;
+        }
 
-                    final String idField = fields.get(0);
-                    final String commonName = fields.get(9);
+        final long start = System.nanoTime();
+        final TreeList newTrees = new TreeList();
+        final TreeSpeciesList newSpecies = new TreeSpeciesList();
+        final long end = CensusLoader.loadAppended(path, position, newTrees, newSpecies, metrics);
 
-                    if (idField.length() > 0 && commonName.length() > 0) {
+        merge(newTrees, newSpecies);
+        metrics.record(CensusMetrics.Phase.REFRESH, start);
 
-                        TreeSpecies species = new TreeSpecies(commonName, fields.get(8));
+        position = end;
 
-                        // Avoid duplicate species
+        return newTrees.getTotalNumberOfTrees();
+    }
 
-                        if (!this.species.contains(species)) {
-                            this.species.add(species);
-                        }
+    /**
+     * Loads the rows of a separate dataset of new trees, such as a file of
+     * updates, and merges them into this dataset at once, so concurrent queries
+     * see either all or none of them. As with the dataset itself, only lines
+     * that end with a line terminator are loaded.
+     * 
+     * @param deltaPath the path to the comma-delimited (*.csv) dataset of new
+     *                  trees.
+     * @return The number of trees added.
+     * @throws IOException if an error occurs while attempting to access the
+     *                     dataset.
+     */
+    synchronized int ingest(String deltaPath) throws IOException {
+        final long start = System.nanoTime();
+        final TreeList newTrees = new TreeList();
+        final TreeSpeciesList newSpecies = new TreeSpeciesList();
 
-                        final Tree tree = new Tree(Integer.parseInt(idField), species);
+        CensusLoader.load(deltaPath, newTrees, newSpecies, metrics);
+        merge(newTrees, newSpecies);
+        metrics.record(CensusMetrics.Phase.REFRESH, start);
 
-                        tree.setStatus(fields.get(6));
-                        tree.setHealth(fields.get(7));
+        return newTrees.getTotalNumberOfTrees();
+    }
 
-                        // Assign non-nullable fields if a non-empty value exists in the CSV file
+    /**
+     * Adds newly loaded trees and tree species to a copy of the current view and
+     * publishes the copy. The copy shares all but the last chunk of each column
+     * with the current view; the search and spatial indices are rebuilt when
+     * they are next used.
+     * 
+     * @param newTrees   the new trees.
+     * @param newSpecies the distinct species of the new trees.
+     */
+    private void merge(TreeList newTrees, TreeSpeciesList newSpecies) {
+        if (newTrees.getTotalNumberOfTrees() == 0) {
+            return;
+        }
 
-                        final String zipCodeField = fields.get(25);
+        final View current = view;
+        final TreeList trees = new TreeList(current.trees);
+        final TreeSpeciesList species = (TreeSpeciesList) current.species.clone();
 
-                        if (zipCodeField.length() > 0) {
-                            tree.setZipCode(Integer.parseInt(zipCodeField));
-                        }
+        trees.addAll(newTrees);
 
-                        final String borough = fields.get(29);
+        for (TreeSpecies item : newSpecies) {
+            species.intern(item);
+        }
 
-                        if (borough.length() > 0) {
-                            tree.setBorough(borough);
-                        }
+        view = new View(trees, species, current.version + 1);
+    }
 
-                        final String xField = fields.get(39);
+    /**
+     * Gets the trees in the current version of the dataset. The collection must
+     * not be modified. Later changes to the dataset do not affect it.
+     * 
+     * @return The trees.
+     */
+    TreeList getTrees() {
+        return view.trees;
+    }
 
-                        if (xField.length() > 0) {
-                            tree.setX(Double.parseDouble(xField));
-                        }
+    /**
+     * Gets the distinct tree species in the current version of the dataset. The
+     * collection must not be modified. Later changes to the dataset do not
+     * affect it.
+     * 
+     * @return The tree species.
+     */
+    TreeSpeciesList getSpecies() {
+        return view.species;
+    }
 
-                        final String yField = fields.get(40);
+    /**
+     * Gets the cache of keyword summaries.
+     * 
+     * @return The cache.
+     */
+    SummaryCache getSummaryCache() {
+        return cache;
+    }
 
-                        if (yField.length() > 0) {
-                            tree.setY(Double.parseDouble(yField));
-                        }
+    /**
+     * Gets the measurements of loading the dataset and answering queries.
+     * 
+     * @return The metrics.
+     */
+    CensusMetrics getMetrics() {
+        return metrics;
+    }
 
-                        trees.add(tree);
-                    }
+    /**
+     * Finds the distinct tree species whose common or Latin names contain the
+     * given keyword using a case-insensitive comparison.
+     * 
+     * @param keyword the species keyword.
+     * @return A new collection of the matching species, in which the species
+     *         that match by common name come first.
+     * @throws IllegalArgumentException if keyword is {@code null}.
+     */
+    TreeSpeciesList search(String keyword) {
+        final long start = System.nanoTime();
+        final TreeSpeciesList results = new TreeSpeciesList();
+        final View current = view;
+        final TreeSpeciesList byCommonName = current.species.getByCommonName(keyword);
+        final TreeSpeciesList byLatinName = current.species.getByLatinName(keyword);
+
+        for (TreeSpeciesList list : new TreeSpeciesList[] { byCommonName, byLatinName }) {
+            if (list != null) {
+                for (TreeSpecies item : list) {
+                    results.intern(item);
                 }
             }
         }
 
-        // Calculate the total number of trees in each borough
+        metrics.record(CensusMetrics.Phase.LOOKUP, start);
+
+        return results;
+    }
+
+    /**
+     * Gets the tree with the given identifier.
+     * 
+     * @param treeID the tree identifier.
+     * @return The tree, or {@code null} if no tree has the identifier.
+     */
+    Tree getTree(int treeID) {
+        final long start = System.nanoTime();
+        final Tree result = view.trees.getByTreeID(treeID);
+
+        metrics.record(CensusMetrics.Phase.LOOKUP, start);
+
+        return result;
+    }
+
+    /**
+     * Replaces the values of the tree with the same identifier as the given tree
+     * in a copy of the current view and publishes the copy, so concurrent queries
+     * see either the old or the new values. Only the chunk that holds the tree is
+     * copied.
+     * 
+     * @param tree the tree whose values to store.
+     * @return {@code true} if a tree with the identifier was updated; otherwise,
+     *         {@code false}.
+     * @throws IllegalArgumentException if tree is {@code null}.
+     */
+    synchronized boolean update(Tree tree) {
+        if (tree == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: tree.");
+        }
+
+        final View current = view;
 
-        for (int i = 0; i < BOROUGHS.length; i++) {
-            totals[i] = trees.getCountByBorough(BOROUGHS[i]);
+        if (!current.trees.containsTreeID(tree.getTreeID())) {
+            return false;
         }
+
+        final TreeList trees = new TreeList(current.trees);
+        final TreeSpeciesList species = (TreeSpeciesList) current.species.clone();
+
+        trees.update(tree);
+        species.intern(tree.getSpecies());
+
+        view = new View(trees, species, current.version + 1);
+
+        return true;
+    }
+
+    /**
+     * Counts the trees that match the given filter.
+     * 
+     * @param filter the filter.
+     * @return The number of matching trees.
+     * @throws IllegalArgumentException if filter is {@code null}.
+     */
+    int count(TreeFilter filter) {
+        final long start = System.nanoTime();
+        final int result = view.trees.getCount(filter);
+
+        metrics.record(CensusMetrics.Phase.COUNT, start);
+
+        return result;
+    }
+
+    /**
+     * Groups the trees that match the given filter by the value of the given
+     * field and counts the trees in the largest groups.
+     * 
+     * @param <K>    the type of the values of the field.
+     * @param filter the filter.
+     * @param field  the field.
+     * @param k      the maximum number of groups to return.
+     * @return A new map from each value of the field with the most matching trees
+     *         to the number of such trees, from the largest group to the smallest.
+     * @throws IllegalArgumentException if filter or field is {@code null}, or k
+     *                                  is negative.
+     */
+    <K> Map<K, Integer> getTop(TreeFilter filter, TreeField<K> field, int k) {
+        final long start = System.nanoTime();
+        final Map<K, Integer> results = view.trees.getTop(filter, field, k);
+
+        metrics.record(CensusMetrics.Phase.COUNT, start);
+
+        return results;
     }
 
     /**
-     * Populates internal data structures that record matches and frequencies of
-     * tree species based on the given keyword.
+     * Ranks the species by their numbers of trees in the city and in each
+     * borough, all in the same version of the dataset.
+     * 
+     * @param k the maximum number of species to rank in each area.
+     * @return A new map from the name of each area, {@code "NYC"} followed by the
+     *         name of each borough, to a map from each species with the most
+     *         trees in the area to its number of trees there, from the most
+     *         common species to the least.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    Map<String, Map<TreeSpecies, Integer>> rankSpecies(int k) {
+        final long start = System.nanoTime();
+        final TreeList trees = view.trees;
+        final LinkedHashMap<String, Map<TreeSpecies, Integer>> results = new LinkedHashMap<String, Map<TreeSpecies, Integer>>();
+
+        results.put("NYC", trees.getTopSpecies(k));
+
+        for (Map.Entry<Borough, Map<TreeSpecies, Integer>> entry : trees.getTopSpeciesByBorough(k).entrySet()) {
+            results.put(entry.getKey().getName(), entry.getValue());
+        }
+
+        metrics.record(CensusMetrics.Phase.COUNT, start);
+
+        return results;
+    }
+
+    /**
+     * Summarizes the matches and frequencies of tree species based on the given
+     * keyword. The dataset is only read, so any number of threads can summarize
+     * keywords concurrently with each other and with new rows being merged,
+     * without waiting. Recent summaries are cached until the dataset changes.
      * 
      * @param keyword The species keyword.
-     * @return {@code true} if there is at least one tree speices that matches the
-     *         given
-     *         keyword in the dataset; otherwise, {@code false}.
+     * @return The summary. The summary has no species names if no tree species
+     *         matches the given keyword.
+     * @throws IllegalArgumentException if keyword is {@code null}.
      */
-    private boolean summarize(String keyword) {
-        // Reset the frequency of the matching species in NYC
+    SpeciesSummary summarize(String keyword) {
+        if (keyword == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: keyword.");
+        }
 
-        frequency = 0;
+        // Keywords are matched case-insensitively, so keywords that differ only by
+        // case share an entry
 
-        // Reset the frequency of the given species in each borough
+        final long start = System.nanoTime();
+        final String key = keyword.toUpperCase();
+        final View current = view;
+        final SpeciesSummary cached = cache.get(key, current.version);
 
-        Arrays.fill(frequencies, 0);
+        if (cached != null) {
+            metrics.record(CensusMetrics.Phase.SUMMARY, start);
 
-        // Reset the matching species names
+            return cached.withKeyword(keyword);
+        }
 
-        speciesNames.clear();
+        final SpeciesSummary result = computeSummary(current, keyword, new HashMap<TreeSpecies, int[]>());
 
-        final TreeSpeciesList byCommonName = species.getByCommonName(keyword);
-        final TreeSpeciesList byLatinName = species.getByLatinName(keyword);
+        cache.put(key, current.version, result);
+        metrics.record(CensusMetrics.Phase.SUMMARY, start);
 
-        if (byCommonName == null && byLatinName == null) {
-            // No matching species exists
+        return result;
+    }
 
-            return false;
-        } else {
+    /**
+     * Summarizes the matches and frequencies of tree species based on the given
+     * keyword without consulting the cache.
+     * 
+     * @param keyword The species keyword.
+     * @return The summary. The summary has no species names if no tree species
+     *         matches the given keyword.
+     */
+    SpeciesSummary computeSummary(String keyword) {
+        return computeSummary(view, keyword, new HashMap<TreeSpecies, int[]>());
+    }
+
+    /**
+     * Summarizes the matches and frequencies of tree species for each of the
+     * given keywords. Each species is counted once, however many keywords match
+     * it.
+     * 
+     * @param keywords the species keywords.
+     * @return The summaries, in the same order as the keywords.
+     * @throws IllegalArgumentException if keywords is {@code null}.
+     */
+    List<SpeciesSummary> summarizeAll(List<String> keywords) {
+        if (keywords == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: keywords.");
+        }
+
+        final ArrayList<SpeciesSummary> results = new ArrayList<SpeciesSummary>(keywords.size());
+        final HashMap<TreeSpecies, int[]> counts = new HashMap<TreeSpecies, int[]>();
+        final View current = view;
+
+        for (String keyword : keywords) {
+            results.add(computeSummary(current, keyword, counts));
+        }
+
+        return results;
+    }
+
+    /**
+     * Summarizes the matches and frequencies of tree species based on the given
+     * keyword in the given view, reusing the counts of species that have already
+     * been counted.
+     * 
+     * @param view    the view of the dataset.
+     * @param keyword The species keyword.
+     * @param counts  the counts of each species that has already been counted,
+     *                as returned by {@link TreeList#getCountsByCommonName(String)}.
+     *                The counts of newly counted species are added.
+     * @return The summary.
+     */
+    private static SpeciesSummary computeSummary(View view, String keyword, HashMap<TreeSpecies, int[]> counts) {
+        final ArrayList<String> speciesNames = new ArrayList<String>();
+        final int[] frequencies = new int[BOROUGHS.length];
+        final TreeSpeciesList byCommonName = view.species.getByCommonName(keyword);
+        final TreeSpeciesList byLatinName = view.species.getByLatinName(keyword);
+
+        int frequency = 0;
+
+        if (byCommonName != null || byLatinName != null) {
             // Combine matches into a list of distinct species
 
             final TreeSpeciesList bySpecies = new TreeSpeciesList();
@@ -290,22 +829,29 @@ public final class NYCStreetTrees {
             }
 
             for (TreeSpecies item : bySpecies) {
-                final String commonName = item.getCommonName();
+                int[] vector = counts.get(item);
+
+                if (vector == null) {
+                    vector = view.trees.getCountsByCommonName(item.getCommonName());
+
+                    counts.put(item, vector);
+                }
 
                 // Get the total count of the unique species matches in NYC
 
-                frequency += trees.getCountByCommonName(commonName);
+                frequency += vector[BOROUGHS.length];
 
                 // Get the total counts of the unique species matches in eadch borough
 
                 for (int i = 0; i < BOROUGHS.length; i++) {
-                    frequencies[i] += trees.getCountByCommonNameBorough(commonName, BOROUGHS[i]);
+                    frequencies[i] += vector[i];
                 }
             }
 
             speciesNames.sort(null);
-
-            return true;
         }
+
+        return new SpeciesSummary(keyword, speciesNames, frequency, view.trees.getTotalNumberOfTrees(),
+                frequencies, view.totals);
     }
 }
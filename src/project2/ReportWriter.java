@@ -0,0 +1,324 @@
+package project2;
+
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+/**
+ * Writes the text of the program's reports to a print stream through a large
+ * buffer. Numbers are formatted directly into the buffer using the grouping
+ * and decimal separators of the default locale, so the output is identical to
+ * that of {@link String#format(String, Object...)} without creating a
+ * formatter for each row. Locales whose digits or grouping cannot be
+ * reproduced this way fall back to the formatter.
+ * 
+ * @author Ishan Pranav
+ */
+final class ReportWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int NUMBER_SIZE = 32;
+
+    // The distance from a rounding boundary within which a percentage is rounded
+    // exactly rather than with floating-point arithmetic
+
+    private static final double ROUNDING_TOLERANCE = 1e-6;
+
+    private final PrintStream out;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final char[] number = new char[NUMBER_SIZE];
+    private final String lineSeparator = System.lineSeparator();
+    private final Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+    private final boolean localized;
+    private final char groupingSeparator;
+    private final char decimalSeparator;
+    private final boolean caseMapped;
+
+    private int length;
+
+    /**
+     * Initializes a new instance of the {@link ReportWriter} class.
+     * 
+     * @param out the print stream to which the buffered text is written. Closing
+     *            the writer does not close the stream.
+     * @throws IllegalArgumentException if out is {@code null}.
+     */
+    public ReportWriter(PrintStream out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: out.");
+        }
+
+        this.out = out;
+
+        final DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        final NumberFormat format = NumberFormat.getIntegerInstance(locale);
+
+        // Use the formatter unless the locale groups ASCII digits in threes
+
+        localized = symbols.getZeroDigit() != '0'
+                || !(format instanceof DecimalFormat)
+                || !format.isGroupingUsed()
+                || ((DecimalFormat) format).getGroupingSize() != 3;
+        groupingSeparator = symbols.getGroupingSeparator();
+        decimalSeparator = symbols.getDecimalSeparator();
+
+        // Only the Turkish, Azerbaijani, and Lithuanian locales map ASCII letters to
+        // lower case differently
+
+        final String language = Locale.getDefault().getLanguage();
+
+        caseMapped = language.equals("tr") || language.equals("az") || language.equals("lt");
+    }
+
+    /**
+     * Ensures that the buffer has room for the given number of characters,
+     * writing the buffered text to the stream if it does not.
+     * 
+     * @param count the number of characters.
+     */
+    private void reserve(int count) {
+        if (length + count > buffer.length) {
+            flush();
+        }
+    }
+
+    /**
+     * Appends a string to the buffer.
+     * 
+     * @param value the string.
+     */
+    public void print(String value) {
+        int offset = 0;
+
+        while (offset < value.length()) {
+            if (length == buffer.length) {
+                flush();
+            }
+
+            final int count = Math.min(value.length() - offset, buffer.length - length);
+
+            value.getChars(offset, offset + count, buffer, length);
+
+            offset += count;
+            length += count;
+        }
+    }
+
+    /**
+     * Appends a character to the buffer.
+     * 
+     * @param value the character.
+     */
+    public void print(char value) {
+        reserve(1);
+
+        buffer[length] = value;
+        length++;
+    }
+
+    /**
+     * Appends a line separator to the buffer.
+     */
+    public void println() {
+        print(lineSeparator);
+    }
+
+    /**
+     * Appends a string followed by a line separator to the buffer.
+     * 
+     * @param value the string.
+     */
+    public void println(String value) {
+        print(value);
+        println();
+    }
+
+    /**
+     * Appends a string converted to lower case using the rules of the default
+     * locale, followed by a line separator, to the buffer.
+     * 
+     * @param value the string.
+     * @see String#toLowerCase()
+     */
+    public void printlnLowerCase(String value) {
+        if (caseMapped) {
+            println(value.toLowerCase());
+
+            return;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                // Only ASCII letters can be converted in place
+
+                println(value.toLowerCase());
+
+                return;
+            }
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+
+            print(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+
+        println();
+    }
+
+    /**
+     * Appends a row of popularity statistics to the buffer. The row is identical
+     * to the result of formatting {@code "\t%-14s:%21s%9.2f%%\n"} with the name,
+     * the string {@code "%,d(%,d)"} formatted with the frequency and total, and
+     * the percentage of trees that match.
+     * 
+     * @param name      the name of the city or borough.
+     * @param frequency the number of matching trees.
+     * @param total     the total number of trees.
+     */
+    public void printPopularity(String name, int frequency, int total) {
+        final double percentage;
+
+        if (total == 0) {
+            percentage = 0;
+        } else {
+            percentage = 100d * frequency / total;
+        }
+
+        if (localized || frequency < 0 || total < 0) {
+            print(String.format("\t%-14s:%21s%9.2f%%\n", name, String.format("%,d(%,d)", frequency, total),
+                    percentage));
+
+            return;
+        }
+
+        print('\t');
+        print(name);
+
+        for (int i = name.length(); i < 14; i++) {
+            print(' ');
+        }
+
+        print(':');
+
+        // Right-align the parenthetical fraction in its own column, as the nested
+        // format string does
+
+        int start = NUMBER_SIZE;
+
+        number[--start] = ')';
+        start = formatGrouped(total, start);
+        number[--start] = '(';
+        start = formatGrouped(frequency, start);
+
+        for (int i = NUMBER_SIZE - start; i < 21; i++) {
+            print(' ');
+        }
+
+        reserve(NUMBER_SIZE);
+        System.arraycopy(number, start, buffer, length, NUMBER_SIZE - start);
+
+        length += NUMBER_SIZE - start;
+
+        // Right-align the percentage rounded half up to two decimal places
+
+        final long hundredths = roundHundredths(percentage);
+
+        start = NUMBER_SIZE;
+        number[--start] = (char) ('0' + hundredths % 10);
+        number[--start] = (char) ('0' + hundredths / 10 % 10);
+        number[--start] = decimalSeparator;
+
+        long whole = hundredths / 100;
+
+        do {
+            number[--start] = (char) ('0' + whole % 10);
+            whole /= 10;
+        } while (whole > 0);
+
+        for (int i = NUMBER_SIZE - start; i < 9; i++) {
+            print(' ');
+        }
+
+        reserve(NUMBER_SIZE);
+        System.arraycopy(number, start, buffer, length, NUMBER_SIZE - start);
+
+        length += NUMBER_SIZE - start;
+
+        print('%');
+        print('\n');
+    }
+
+    /**
+     * Formats a non-negative integer with grouping separators into the number
+     * buffer, ending before the given position.
+     * 
+     * @param value the integer.
+     * @param end   the position after the last character.
+     * @return The position of the first character.
+     */
+    private int formatGrouped(int value, int end) {
+        int start = end;
+        int digits = 0;
+
+        do {
+            if (digits > 0 && digits % 3 == 0) {
+                number[--start] = groupingSeparator;
+            }
+
+            number[--start] = (char) ('0' + value % 10);
+            value /= 10;
+            digits++;
+        } while (value > 0);
+
+        return start;
+    }
+
+    /**
+     * Rounds a non-negative number half up to a whole number of hundredths. As
+     * with {@link java.util.Formatter}, the rounding applies to the shortest
+     * decimal representation of the number rather than to its exact binary
+     * value.
+     * 
+     * @param value the number.
+     * @return The number of hundredths.
+     */
+    private static long roundHundredths(double value) {
+        final double scaled = value * 100;
+        final double fraction = scaled - Math.floor(scaled);
+
+        if (Math.abs(fraction - 0.5) > ROUNDING_TOLERANCE) {
+            return (long) Math.floor(scaled + 0.5);
+        }
+
+        return new BigDecimal(Double.toString(value)).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    /**
+     * Writes the buffered text to the stream.
+     */
+    public void flush() {
+        if (length == 0) {
+            return;
+        }
+
+        if (length == buffer.length) {
+            out.print(buffer);
+        } else {
+            out.print(new String(buffer, 0, length));
+        }
+
+        length = 0;
+
+        out.flush();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        flush();
+    }
+}
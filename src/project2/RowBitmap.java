@@ -0,0 +1,530 @@
+package project2;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Represents an immutable compressed set of row positions. Positions are
+ * divided into blocks of 65,536 rows, and the positions in each block are
+ * stored in a container chosen by their number: a sorted array of the low 16
+ * bits of each position when there are at most 4,096 of them, or otherwise a
+ * bitmap of 1,024 words. Sparse sets therefore take two bytes per position
+ * and dense sets one bit per row, and intersections and unions operate on
+ * whole words and count their results with {@link Long#bitCount(long)}.
+ * 
+ * @author Ishan Pranav
+ */
+final class RowBitmap {
+    private static final int BLOCK_SHIFT = 16;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int WORDS = BLOCK_SIZE / Long.SIZE;
+    private static final int MAX_ARRAY_SIZE = 4096;
+
+    // Each block has either an array container or a bitmap container, or neither
+    // if it is empty
+
+    private final char[][] arrays;
+    private final long[][] bitmaps;
+    private final int[] cardinalities;
+    private final int cardinality;
+
+    private RowBitmap(char[][] arrays, long[][] bitmaps, int[] cardinalities) {
+        int sum = 0;
+
+        for (int value : cardinalities) {
+            sum += value;
+        }
+
+        this.arrays = arrays;
+        this.bitmaps = bitmaps;
+        this.cardinalities = cardinalities;
+        this.cardinality = sum;
+    }
+
+    /**
+     * Creates a bitmap for each code of a column of codes. The bitmap of each
+     * code holds the positions of the rows with that code.
+     * 
+     * @param codes  the code of each row. Rows with negative codes are not
+     *               indexed.
+     * @param length the number of rows.
+     * @param count  the number of distinct codes.
+     * @return The bitmaps, indexed by code.
+     */
+    public static RowBitmap[] build(int[] codes, int length, int count) {
+        final int blocks = (length + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+        final char[][][] arrays = new char[count][blocks][];
+        final long[][][] bitmaps = new long[count][blocks][];
+        final int[][] cardinalities = new int[count][blocks];
+
+        for (int block = 0; block < blocks; block++) {
+            final int start = block << BLOCK_SHIFT;
+            final int end = Math.min(length, start + BLOCK_SIZE);
+
+            // Count the rows with each code to choose the container of each code
+
+            for (int i = start; i < end; i++) {
+                if (codes[i] >= 0) {
+                    cardinalities[codes[i]][block]++;
+                }
+            }
+
+            final int[] sizes = new int[count];
+
+            for (int code = 0; code < count; code++) {
+                final int size = cardinalities[code][block];
+
+                if (size > MAX_ARRAY_SIZE) {
+                    bitmaps[code][block] = new long[WORDS];
+                } else if (size > 0) {
+                    arrays[code][block] = new char[size];
+                }
+            }
+
+            for (int i = start; i < end; i++) {
+                final int code = codes[i];
+
+                if (code < 0) {
+                    continue;
+                }
+
+                final int low = i & (BLOCK_SIZE - 1);
+                final long[] words = bitmaps[code][block];
+
+                if (words == null) {
+                    arrays[code][block][sizes[code]] = (char) low;
+                    sizes[code]++;
+                } else {
+                    words[low >>> 6] |= 1L << low;
+                }
+            }
+        }
+
+        final RowBitmap[] results = new RowBitmap[count];
+
+        for (int code = 0; code < count; code++) {
+            results[code] = new RowBitmap(arrays[code], bitmaps[code], cardinalities[code]);
+        }
+
+        return results;
+    }
+
+    /**
+     * Gets the number of positions in the set.
+     * 
+     * @return The number of positions.
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Gets the number of positions in both this set and another set without
+     * creating their intersection.
+     * 
+     * @param other the other set.
+     * @return The number of positions in the intersection.
+     */
+    public int andCardinality(RowBitmap other) {
+        final int blocks = Math.min(cardinalities.length, other.cardinalities.length);
+
+        int result = 0;
+
+        for (int block = 0; block < blocks; block++) {
+            if (cardinalities[block] == 0 || other.cardinalities[block] == 0) {
+                continue;
+            }
+
+            final long[] words = bitmaps[block];
+            final long[] otherWords = other.bitmaps[block];
+
+            if (words != null && otherWords != null) {
+                for (int i = 0; i < WORDS; i++) {
+                    result += Long.bitCount(words[i] & otherWords[i]);
+                }
+            } else if (words != null) {
+                result += countContained(other.arrays[block], other.cardinalities[block], words);
+            } else if (otherWords != null) {
+                result += countContained(arrays[block], cardinalities[block], otherWords);
+            } else {
+                result += intersect(arrays[block], cardinalities[block], other.arrays[block],
+                        other.cardinalities[block], null);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates the intersection of this set and another set.
+     * 
+     * @param other the other set.
+     * @return The positions in both sets.
+     */
+    public RowBitmap and(RowBitmap other) {
+        final int blocks = Math.min(cardinalities.length, other.cardinalities.length);
+        final char[][] resultArrays = new char[blocks][];
+        final long[][] resultBitmaps = new long[blocks][];
+        final int[] resultCardinalities = new int[blocks];
+
+        for (int block = 0; block < blocks; block++) {
+            if (cardinalities[block] == 0 || other.cardinalities[block] == 0) {
+                continue;
+            }
+
+            final long[] words = bitmaps[block];
+            final long[] otherWords = other.bitmaps[block];
+
+            if (words != null && otherWords != null) {
+                final long[] result = new long[WORDS];
+
+                int size = 0;
+
+                for (int i = 0; i < WORDS; i++) {
+                    result[i] = words[i] & otherWords[i];
+                    size += Long.bitCount(result[i]);
+                }
+
+                setContainer(resultArrays, resultBitmaps, resultCardinalities, block, result, size);
+            } else if (words != null || otherWords != null) {
+                // Keep the elements of the array container that are in the bitmap
+
+                final char[] values = words == null ? arrays[block] : other.arrays[block];
+                final int length = words == null ? cardinalities[block] : other.cardinalities[block];
+                final long[] mask = words == null ? otherWords : words;
+                final char[] result = new char[length];
+
+                int size = 0;
+
+                // Write every element but only advance past the elements that are set,
+                // which avoids a branch that cannot be predicted
+
+                for (int i = 0; i < length; i++) {
+                    final char value = values[i];
+
+                    result[size] = value;
+                    size += (int) ((mask[value >>> 6] >>> value) & 1);
+                }
+
+                resultArrays[block] = result;
+                resultCardinalities[block] = size;
+            } else {
+                final char[] result = new char[Math.min(cardinalities[block], other.cardinalities[block])];
+
+                resultArrays[block] = result;
+                resultCardinalities[block] = intersect(arrays[block], cardinalities[block], other.arrays[block],
+                        other.cardinalities[block], result);
+            }
+        }
+
+        return new RowBitmap(resultArrays, resultBitmaps, resultCardinalities);
+    }
+
+    /**
+     * Creates the union of this set and another set.
+     * 
+     * @param other the other set.
+     * @return The positions in either set.
+     */
+    public RowBitmap or(RowBitmap other) {
+        final int blocks = Math.max(cardinalities.length, other.cardinalities.length);
+        final char[][] resultArrays = new char[blocks][];
+        final long[][] resultBitmaps = new long[blocks][];
+        final int[] resultCardinalities = new int[blocks];
+
+        for (int block = 0; block < blocks; block++) {
+            final int size = block < cardinalities.length ? cardinalities[block] : 0;
+            final int otherSize = block < other.cardinalities.length ? other.cardinalities[block] : 0;
+
+            if (otherSize == 0) {
+                if (size > 0) {
+                    resultArrays[block] = arrays[block];
+                    resultBitmaps[block] = bitmaps[block];
+                    resultCardinalities[block] = size;
+                }
+
+                continue;
+            }
+
+            if (size == 0) {
+                resultArrays[block] = other.arrays[block];
+                resultBitmaps[block] = other.bitmaps[block];
+                resultCardinalities[block] = otherSize;
+
+                continue;
+            }
+
+            final long[] words = bitmaps[block];
+            final long[] otherWords = other.bitmaps[block];
+
+            if (words == null && otherWords == null && size + otherSize <= MAX_ARRAY_SIZE) {
+                final char[] result = new char[size + otherSize];
+
+                resultArrays[block] = result;
+                resultCardinalities[block] = union(arrays[block], size, other.arrays[block], otherSize, result);
+
+                continue;
+            }
+
+            // Otherwise the union is formed in a bitmap
+
+            final long[] result = words == null ? new long[WORDS] : words.clone();
+
+            if (words == null) {
+                addAll(result, arrays[block], size);
+            }
+
+            if (otherWords == null) {
+                addAll(result, other.arrays[block], otherSize);
+            } else {
+                for (int i = 0; i < WORDS; i++) {
+                    result[i] |= otherWords[i];
+                }
+            }
+
+            int resultSize = 0;
+
+            for (int i = 0; i < WORDS; i++) {
+                resultSize += Long.bitCount(result[i]);
+            }
+
+            setContainer(resultArrays, resultBitmaps, resultCardinalities, block, result, resultSize);
+        }
+
+        return new RowBitmap(resultArrays, resultBitmaps, resultCardinalities);
+    }
+
+    /**
+     * Stores a bitmap container, or the equivalent array container if the
+     * bitmap is sparse.
+     * 
+     * @param arrays        the array containers of each block.
+     * @param bitmaps       the bitmap containers of each block.
+     * @param cardinalities the number of positions in each block.
+     * @param block         the block index.
+     * @param words         the bitmap.
+     * @param size          the number of bits set in the bitmap.
+     */
+    private static void setContainer(char[][] arrays, long[][] bitmaps, int[] cardinalities, int block,
+            long[] words, int size) {
+        cardinalities[block] = size;
+
+        if (size > MAX_ARRAY_SIZE) {
+            bitmaps[block] = words;
+
+            return;
+        }
+
+        if (size == 0) {
+            return;
+        }
+
+        final char[] values = new char[size];
+
+        int index = 0;
+
+        for (int i = 0; i < WORDS; i++) {
+            long word = words[i];
+
+            while (word != 0) {
+                values[index] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                index++;
+                word &= word - 1;
+            }
+        }
+
+        arrays[block] = values;
+    }
+
+    /**
+     * Counts the elements of an array container that are set in a bitmap.
+     * 
+     * @param values the array container.
+     * @param length the number of elements in the array container.
+     * @param words  the bitmap.
+     * @return The number of elements that are set.
+     */
+    private static int countContained(char[] values, int length, long[] words) {
+        int result = 0;
+
+        for (int i = 0; i < length; i++) {
+            final char value = values[i];
+
+            result += (int) ((words[value >>> 6] >>> value) & 1);
+        }
+
+        return result;
+    }
+
+    /**
+     * Sets the bits of the elements of an array container in a bitmap.
+     * 
+     * @param words  the bitmap.
+     * @param values the array container.
+     * @param length the number of elements in the array container.
+     */
+    private static void addAll(long[] words, char[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            final char value = values[i];
+
+            words[value >>> 6] |= 1L << value;
+        }
+    }
+
+    /**
+     * Intersects two sorted array containers.
+     * 
+     * @param first        the first array container.
+     * @param firstLength  the number of elements in the first container.
+     * @param second       the second array container.
+     * @param secondLength the number of elements in the second container.
+     * @param result       the array to which the common elements are written, or
+     *                     {@code null} to count them only.
+     * @return The number of common elements.
+     */
+    private static int intersect(char[] first, int firstLength, char[] second, int secondLength, char[] result) {
+        int i = 0;
+        int j = 0;
+        int size = 0;
+
+        while (i < firstLength && j < secondLength) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                if (result != null) {
+                    result[size] = first[i];
+                }
+
+                size++;
+                i++;
+                j++;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Merges two sorted array containers.
+     * 
+     * @param first        the first array container.
+     * @param firstLength  the number of elements in the first container.
+     * @param second       the second array container.
+     * @param secondLength the number of elements in the second container.
+     * @param result       the array to which the distinct elements are written.
+     * @return The number of distinct elements.
+     */
+    private static int union(char[] first, int firstLength, char[] second, int secondLength, char[] result) {
+        int i = 0;
+        int j = 0;
+        int size = 0;
+
+        while (i < firstLength || j < secondLength) {
+            if (j == secondLength || (i < firstLength && first[i] < second[j])) {
+                result[size] = first[i];
+                i++;
+            } else if (i == firstLength || second[j] < first[i]) {
+                result[size] = second[j];
+                j++;
+            } else {
+                result[size] = first[i];
+                i++;
+                j++;
+            }
+
+            size++;
+        }
+
+        return size;
+    }
+
+    /**
+     * Creates an iterator over the positions in the set, in increasing order.
+     * 
+     * @return The iterator.
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PositionIterator();
+    }
+
+    /**
+     * Provides an iterator over the positions in the set.
+     */
+    private final class PositionIterator implements PrimitiveIterator.OfInt {
+        private int block = -1;
+        private int index;
+        private long word;
+        private int next = -1;
+
+        /**
+         * Initializes a new instance of the {@link PositionIterator} class.
+         */
+        public PositionIterator() {
+            advance();
+        }
+
+        /**
+         * Finds the next position in the set.
+         */
+        private void advance() {
+            while (true) {
+                if (block >= 0) {
+                    final long[] words = bitmaps[block];
+
+                    if (words == null) {
+                        if (index < cardinalities[block]) {
+                            next = (block << BLOCK_SHIFT) | arrays[block][index];
+                            index++;
+
+                            return;
+                        }
+                    } else {
+                        while (word == 0 && index < WORDS) {
+                            word = words[index];
+                            index++;
+                        }
+
+                        if (word != 0) {
+                            next = (block << BLOCK_SHIFT) | ((index - 1) << 6) | Long.numberOfTrailingZeros(word);
+                            word &= word - 1;
+
+                            return;
+                        }
+                    }
+                }
+
+                block++;
+                index = 0;
+                word = 0;
+
+                if (block >= cardinalities.length) {
+                    next = -1;
+
+                    return;
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int nextInt() {
+            if (next < 0) {
+                throw new NoSuchElementException("Collection has no more elements.");
+            }
+
+            final int result = next;
+
+            advance();
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,760 @@
+package project2;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Represents an immutable uniform grid over the coordinates of the trees in a
+ * {@link TreeList}. The grid covers the bounding box of the located trees and
+ * is divided into cells that hold a few trees each. The coordinates of the
+ * trees are stored contiguously in cell order, together with the bounding box
+ * of the trees in each cell, so that a query only examines the cells it
+ * overlaps and counts the cells it contains without examining their trees.
+ * 
+ * Trees without coordinates, represented by non-finite values or by the origin,
+ * are kept apart from the grid and examined by every query.
+ * 
+ * @author Ishan Pranav
+ */
+final class SpatialGrid {
+    private static final int TREES_PER_CELL = 8;
+    private static final int MAX_CELLS = 1 << 22;
+
+    private final double minX;
+    private final double minY;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final double epsilon;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStarts;
+    private final double[] cellBounds;
+    private final int[] indices;
+    private final double[] xs;
+    private final double[] ys;
+    private final int[] unlocated;
+
+    /**
+     * Initializes a new instance of the {@link SpatialGrid} class.
+     * 
+     * @param trees the trees to index.
+     */
+    public SpatialGrid(TreeList trees) {
+        final int count = trees.getTotalNumberOfTrees();
+
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        int located = 0;
+
+        for (int i = 0; i < count; i++) {
+            final double x = trees.getX(i);
+            final double y = trees.getY(i);
+
+            if (isLocated(x, y)) {
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+                located++;
+            }
+        }
+
+        if (located == 0) {
+            minX = 0;
+            minY = 0;
+            maxX = 0;
+            maxY = 0;
+        }
+
+        // Choose square cells so that each cell holds a few trees on average. The
+        // side of a cell is computed without forming the area, which can underflow,
+        // and is at least the longer side of the bounding box divided by the number
+        // of cells, so trees on a line yield no more rows or columns than cells.
+        // Trees at a single point share one cell
+
+        final double width = Math.max(maxX - minX, Double.MIN_NORMAL);
+        final double height = Math.max(maxY - minY, Double.MIN_NORMAL);
+        final double cellCount = Math.max(1, Math.min(MAX_CELLS, located / TREES_PER_CELL));
+        final double cellSize;
+
+        if (maxX == minX && maxY == minY) {
+            cellSize = Double.POSITIVE_INFINITY;
+        } else {
+            cellSize = Math.max(Math.sqrt(width) * Math.sqrt(height / cellCount), Math.max(width, height) / cellCount);
+        }
+
+        this.minX = minX;
+        this.minY = minY;
+        this.columns = (int) Math.max(1, Math.min(MAX_CELLS, Math.ceil(width / cellSize)));
+        this.rows = (int) Math.max(1, Math.min(MAX_CELLS / columns, Math.ceil(height / cellSize)));
+        this.cellWidth = width / columns;
+        this.cellHeight = height / rows;
+
+        // Allow for rounding when the cell of a coordinate is computed
+
+        this.epsilon = 1e-9 * (width + height);
+
+        // Sort the trees into cells with a counting sort
+
+        cellStarts = new int[columns * rows + 1];
+        cellBounds = new double[columns * rows * 4];
+        indices = new int[located];
+        xs = new double[located];
+        ys = new double[located];
+        unlocated = new int[count - located];
+
+        for (int i = 0; i < count; i++) {
+            final double x = trees.getX(i);
+            final double y = trees.getY(i);
+
+            if (isLocated(x, y)) {
+                cellStarts[getCell(x, y) + 1]++;
+            }
+        }
+
+        for (int i = 0; i < columns * rows; i++) {
+            cellStarts[i + 1] += cellStarts[i];
+        }
+
+        final int[] positions = new int[columns * rows];
+        int unlocatedCount = 0;
+
+        System.arraycopy(cellStarts, 0, positions, 0, positions.length);
+
+        for (int i = 0; i < count; i++) {
+            final double x = trees.getX(i);
+            final double y = trees.getY(i);
+
+            if (isLocated(x, y)) {
+                final int position = positions[getCell(x, y)]++;
+
+                indices[position] = i;
+                xs[position] = x;
+                ys[position] = y;
+            } else {
+                unlocated[unlocatedCount] = i;
+                unlocatedCount++;
+            }
+        }
+
+        for (int cell = 0; cell < columns * rows; cell++) {
+            double cellMinX = Double.POSITIVE_INFINITY;
+            double cellMinY = Double.POSITIVE_INFINITY;
+            double cellMaxX = Double.NEGATIVE_INFINITY;
+            double cellMaxY = Double.NEGATIVE_INFINITY;
+
+            for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+                cellMinX = Math.min(cellMinX, xs[i]);
+                cellMinY = Math.min(cellMinY, ys[i]);
+                cellMaxX = Math.max(cellMaxX, xs[i]);
+                cellMaxY = Math.max(cellMaxY, ys[i]);
+            }
+
+            cellBounds[cell * 4] = cellMinX;
+            cellBounds[cell * 4 + 1] = cellMinY;
+            cellBounds[cell * 4 + 2] = cellMaxX;
+            cellBounds[cell * 4 + 3] = cellMaxY;
+        }
+    }
+
+    /**
+     * Represents a convex region of the plane, either a rectangle or a circle,
+     * described together with its bounding box.
+     */
+    static final class Region {
+        private final double minX;
+        private final double minY;
+        private final double maxX;
+        private final double maxY;
+        private final double centerX;
+        private final double centerY;
+        private final double radius;
+
+        private Region(double minX, double minY, double maxX, double maxY, double centerX, double centerY,
+                double radius) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.centerX = centerX;
+            this.centerY = centerY;
+            this.radius = radius;
+        }
+
+        /**
+         * Creates a rectangular region. The edges belong to the region.
+         * 
+         * @param minX the minimum x-coordinate.
+         * @param minY the minimum y-coordinate.
+         * @param maxX the maximum x-coordinate.
+         * @param maxY the maximum y-coordinate.
+         * @return The region.
+         */
+        public static Region bounds(double minX, double minY, double maxX, double maxY) {
+            return new Region(minX, minY, maxX, maxY, 0, 0, -1);
+        }
+
+        /**
+         * Creates a circular region. The circumference belongs to the region.
+         * 
+         * @param x      the x-coordinate of the center.
+         * @param y      the y-coordinate of the center.
+         * @param radius the radius.
+         * @return The region.
+         */
+        public static Region circle(double x, double y, double radius) {
+            // Widen the bounding box to allow for rounding
+
+            return new Region(Math.nextDown(x - radius), Math.nextDown(y - radius), Math.nextUp(x + radius),
+                    Math.nextUp(y + radius), x, y, radius);
+        }
+
+        /**
+         * Determines whether the bounding box of the region is empty or undefined.
+         * 
+         * @return {@code true} if the region contains no points; otherwise,
+         *         {@code false}.
+         */
+        private boolean isEmpty() {
+            return !(minX <= maxX && minY <= maxY);
+        }
+
+        /**
+         * Determines whether the given point lies within the region.
+         * 
+         * @param x the x-coordinate of the point.
+         * @param y the y-coordinate of the point.
+         * @return {@code true} if the point lies within the region; otherwise,
+         *         {@code false}.
+         */
+        public boolean contains(double x, double y) {
+            if (radius < 0) {
+                return x >= minX && x <= maxX && y >= minY && y <= maxY;
+            }
+
+            final double dx = x - centerX;
+            final double dy = y - centerY;
+
+            return dx * dx + dy * dy <= radius * radius;
+        }
+
+        /**
+         * Determines whether the given rectangle is disjoint from the bounding box
+         * of the region.
+         * 
+         * @param minX the minimum x-coordinate of the rectangle.
+         * @param minY the minimum y-coordinate of the rectangle.
+         * @param maxX the maximum x-coordinate of the rectangle.
+         * @param maxY the maximum y-coordinate of the rectangle.
+         * @return {@code true} if the rectangle lies outside the bounding box;
+         *         otherwise, {@code false}.
+         */
+        private boolean isDisjoint(double minX, double minY, double maxX, double maxY) {
+            return maxX < this.minX || minX > this.maxX || maxY < this.minY || minY > this.maxY;
+        }
+    }
+
+    /**
+     * Gets the number of cells in the grid.
+     * 
+     * @return The number of cells.
+     */
+    public int getCellCount() {
+        return columns * rows;
+    }
+
+    /**
+     * Determines whether the given coordinates locate a tree.
+     * 
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return {@code true} if the coordinates are finite and not both zero;
+     *         otherwise, {@code false}.
+     */
+    private static boolean isLocated(double x, double y) {
+        return Double.isFinite(x) && Double.isFinite(y) && (x != 0 || y != 0);
+    }
+
+    /**
+     * Gets the column of the cell that contains the given x-coordinate.
+     * 
+     * @param x the x-coordinate.
+     * @return The column, clamped to the grid.
+     */
+    private int getColumn(double x) {
+        return (int) Math.max(0, Math.min(columns - 1, Math.floor((x - minX) / cellWidth)));
+    }
+
+    /**
+     * Gets the row of the cell that contains the given y-coordinate.
+     * 
+     * @param y the y-coordinate.
+     * @return The row, clamped to the grid.
+     */
+    private int getRow(double y) {
+        return (int) Math.max(0, Math.min(rows - 1, Math.floor((y - minY) / cellHeight)));
+    }
+
+    /**
+     * Gets the cell that contains the given coordinates.
+     * 
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return The cell index.
+     */
+    private int getCell(double x, double y) {
+        return getRow(y) * columns + getColumn(x);
+    }
+
+    /**
+     * Counts the trees within a region. Cells whose trees all lie within the
+     * region are counted without examining their trees.
+     * 
+     * @param region the region.
+     * @param trees  the indexed trees.
+     * @return The number of trees.
+     */
+    public int count(Region region, TreeList trees) {
+        int result = 0;
+
+        for (int index : unlocated) {
+            if (region.contains(trees.getX(index), trees.getY(index))) {
+                result++;
+            }
+        }
+
+        if (indices.length == 0 || region.isEmpty()) {
+            return result;
+        }
+
+        final int firstColumn = getColumn(region.minX);
+        final int lastColumn = getColumn(region.maxX);
+        final int lastRow = getRow(region.maxY);
+
+        for (int row = getRow(region.minY); row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                final int cell = row * columns + column;
+                final int start = cellStarts[cell];
+                final int end = cellStarts[cell + 1];
+
+                if (start == end) {
+                    continue;
+                }
+
+                final int bounds = cell * 4;
+                final double cellMinX = cellBounds[bounds];
+                final double cellMinY = cellBounds[bounds + 1];
+                final double cellMaxX = cellBounds[bounds + 2];
+                final double cellMaxY = cellBounds[bounds + 3];
+
+                // The region is convex, so it contains every tree in the cell if it
+                // contains every corner of the bounding box of the cell
+
+                if (region.contains(cellMinX, cellMinY)
+                        && region.contains(cellMaxX, cellMaxY)
+                        && region.contains(cellMinX, cellMaxY)
+                        && region.contains(cellMaxX, cellMinY)) {
+                    result += end - start;
+
+                    continue;
+                }
+
+                if (region.isDisjoint(cellMinX, cellMinY, cellMaxX, cellMaxY)) {
+                    continue;
+                }
+
+                for (int i = start; i < end; i++) {
+                    if (region.contains(xs[i], ys[i])) {
+                        result++;
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates an iterator over the positions of the trees within a region. The
+     * positions are produced in no particular order.
+     * 
+     * @param region the region.
+     * @param trees  the indexed trees.
+     * @return The iterator.
+     */
+    public PrimitiveIterator.OfInt iterator(Region region, TreeList trees) {
+        return new RegionIterator(region, trees);
+    }
+
+    /**
+     * Provides an iterator over the positions of the trees within a region.
+     */
+    private final class RegionIterator implements PrimitiveIterator.OfInt {
+        private final Region region;
+        private final TreeList trees;
+        private final int firstColumn;
+        private final int lastColumn;
+        private final int lastRow;
+
+        private int unlocatedIndex;
+        private int row;
+        private int column;
+        private int position;
+        private int end;
+        private int next = -1;
+
+        /**
+         * Initializes a new instance of the {@link RegionIterator} class.
+         * 
+         * @param region the region.
+         * @param trees  the indexed trees.
+         */
+        public RegionIterator(Region region, TreeList trees) {
+            this.region = region;
+            this.trees = trees;
+            this.firstColumn = getColumn(region.minX);
+            this.column = firstColumn - 1;
+
+            if (indices.length == 0 || region.isEmpty()) {
+                this.lastColumn = -1;
+                this.lastRow = -1;
+                this.row = 0;
+            } else {
+                this.lastColumn = getColumn(region.maxX);
+                this.lastRow = getRow(region.maxY);
+                this.row = getRow(region.minY);
+            }
+        }
+
+        /**
+         * Finds the position of the next tree within the region.
+         * 
+         * @return The position, or -1 if there are no more trees.
+         */
+        private int advance() {
+            while (unlocatedIndex < unlocated.length) {
+                final int index = unlocated[unlocatedIndex];
+
+                unlocatedIndex++;
+
+                if (region.contains(trees.getX(index), trees.getY(index))) {
+                    return index;
+                }
+            }
+
+            while (true) {
+                while (position < end) {
+                    final int i = position;
+
+                    position++;
+
+                    if (region.contains(xs[i], ys[i])) {
+                        return indices[i];
+                    }
+                }
+
+                // Move to the next cell that may contain trees within the region
+
+                column++;
+
+                if (column > lastColumn) {
+                    column = firstColumn;
+                    row++;
+                }
+
+                if (row > lastRow) {
+                    return -1;
+                }
+
+                final int cell = row * columns + column;
+                final int bounds = cell * 4;
+
+                position = cellStarts[cell];
+                end = cellStarts[cell + 1];
+
+                if (region.isDisjoint(cellBounds[bounds], cellBounds[bounds + 1], cellBounds[bounds + 2],
+                        cellBounds[bounds + 3])) {
+                    position = end;
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasNext() {
+            if (next < 0) {
+                next = advance();
+            }
+
+            return next >= 0;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Collection has no more elements.");
+            }
+
+            final int result = next;
+
+            next = -1;
+
+            return result;
+        }
+    }
+
+    /**
+     * Finds the positions of the trees nearest to the given point. The search
+     * visits rings of cells around the point until no unvisited cell can contain
+     * a nearer tree or the rings lie entirely outside the grid. Each ring is
+     * clipped to the grid, so only cells of the grid are visited. Ties are broken
+     * by position.
+     * 
+     * @param x     the x-coordinate of the point.
+     * @param y     the y-coordinate of the point.
+     * @param k     the maximum number of trees to find.
+     * @param trees the indexed trees.
+     * @return The positions of the nearest trees, ordered by increasing
+     *         distance.
+     */
+    public int[] getNearest(double x, double y, int k, TreeList trees) {
+        final int capacity = Math.min(k, indices.length + unlocated.length);
+        final double[] heapDistances = new double[capacity];
+        final int[] heapIndices = new int[capacity];
+
+        int size = 0;
+
+        for (int index : unlocated) {
+            final double dx = trees.getX(index) - x;
+            final double dy = trees.getY(index) - y;
+
+            size = offer(heapDistances, heapIndices, size, dx * dx + dy * dy, index);
+        }
+
+        if (indices.length > 0 && capacity > 0) {
+            final int centerColumn = getColumn(x);
+            final int centerRow = getRow(y);
+
+            // Every cell of the grid lies within this many rings of the center
+
+            final int maxRing = Math.max(Math.max(centerColumn, columns - 1 - centerColumn),
+                    Math.max(centerRow, rows - 1 - centerRow));
+
+            for (int ring = 0; ring <= maxRing; ring++) {
+                if (size == capacity && ring > 0) {
+                    // Every unvisited cell lies outside the block of visited cells
+
+                    final double gap = getGap(x, y, centerColumn, centerRow, ring - 1) - epsilon;
+
+                    if (gap > 0 && gap * gap > heapDistances[0]) {
+                        break;
+                    }
+                }
+
+                final int firstRow = Math.max(0, centerRow - ring);
+                final int lastRow = Math.min(rows - 1, centerRow + ring);
+                final int firstColumn = Math.max(0, centerColumn - ring);
+                final int lastColumn = Math.min(columns - 1, centerColumn + ring);
+
+                for (int row = firstRow; row <= lastRow; row++) {
+                    if (row == centerRow - ring || row == centerRow + ring) {
+                        // Visit the whole top or bottom edge of the ring
+
+                        for (int column = firstColumn; column <= lastColumn; column++) {
+                            size = offerCell(row * columns + column, x, y, heapDistances, heapIndices, size);
+                        }
+                    } else {
+                        // Visit only the left and right edges of the ring
+
+                        if (centerColumn - ring >= 0) {
+                            size = offerCell(row * columns + centerColumn - ring, x, y, heapDistances, heapIndices,
+                                    size);
+                        }
+
+                        if (centerColumn + ring < columns) {
+                            size = offerCell(row * columns + centerColumn + ring, x, y, heapDistances, heapIndices,
+                                    size);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Sort the heap in place by repeatedly moving its root to the end
+
+        for (int i = size - 1; i > 0; i--) {
+            swap(heapDistances, heapIndices, 0, i);
+            siftDown(heapDistances, heapIndices, 0, i);
+        }
+
+        if (size < capacity) {
+            return Arrays.copyOf(heapIndices, size);
+        }
+
+        return heapIndices;
+    }
+
+    /**
+     * Offers the trees in a cell to a bounded max-heap ordered by distance from
+     * a point.
+     * 
+     * @param cell          the cell index.
+     * @param x             the x-coordinate of the point.
+     * @param y             the y-coordinate of the point.
+     * @param heapDistances the squared distances in the heap.
+     * @param heapIndices   the positions in the heap.
+     * @param size          the number of trees in the heap.
+     * @return The new number of trees in the heap.
+     */
+    private int offerCell(int cell, double x, double y, double[] heapDistances, int[] heapIndices, int size) {
+        for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+            final double dx = xs[i] - x;
+            final double dy = ys[i] - y;
+
+            size = offer(heapDistances, heapIndices, size, dx * dx + dy * dy, indices[i]);
+        }
+
+        return size;
+    }
+
+    /**
+     * Gets the distance from a point to the nearest cell outside a block of
+     * cells.
+     * 
+     * @param x            the x-coordinate of the point.
+     * @param y            the y-coordinate of the point.
+     * @param centerColumn the column at the center of the block.
+     * @param centerRow    the row at the center of the block.
+     * @param ring         the number of cells between the center and the edge of
+     *                     the block.
+     * @return The distance.
+     */
+    private double getGap(double x, double y, int centerColumn, int centerRow, int ring) {
+        final double left = centerColumn - ring <= 0 ? Double.POSITIVE_INFINITY
+                : x - (minX + (centerColumn - ring) * cellWidth);
+        final double right = centerColumn + ring >= columns - 1 ? Double.POSITIVE_INFINITY
+                : minX + (centerColumn + ring + 1) * cellWidth - x;
+        final double bottom = centerRow - ring <= 0 ? Double.POSITIVE_INFINITY
+                : y - (minY + (centerRow - ring) * cellHeight);
+        final double top = centerRow + ring >= rows - 1 ? Double.POSITIVE_INFINITY
+                : minY + (centerRow + ring + 1) * cellHeight - y;
+
+        return Math.min(Math.min(left, right), Math.min(bottom, top));
+    }
+
+    /**
+     * Offers a tree to a bounded max-heap ordered by distance and then by
+     * position.
+     * 
+     * @param distances the squared distances in the heap.
+     * @param indices   the positions in the heap.
+     * @param size      the number of trees in the heap.
+     * @param distance  the squared distance of the tree.
+     * @param index     the position of the tree.
+     * @return The new number of trees in the heap.
+     */
+    private static int offer(double[] distances, int[] indices, int size, double distance, int index) {
+        if (Double.isNaN(distance)) {
+            return size;
+        }
+
+        if (size < distances.length) {
+            int i = size;
+
+            distances[i] = distance;
+            indices[i] = index;
+
+            while (i > 0 && compare(distances, indices, i, (i - 1) / 2) > 0) {
+                swap(distances, indices, i, (i - 1) / 2);
+
+                i = (i - 1) / 2;
+            }
+
+            return size + 1;
+        }
+
+        if (size > 0 && (distance < distances[0] || (distance == distances[0] && index < indices[0]))) {
+            distances[0] = distance;
+            indices[0] = index;
+
+            siftDown(distances, indices, 0, size);
+        }
+
+        return size;
+    }
+
+    /**
+     * Restores the max-heap property below the given node.
+     * 
+     * @param distances the squared distances in the heap.
+     * @param indices   the positions in the heap.
+     * @param i         the node.
+     * @param size      the number of trees in the heap.
+     */
+    private static void siftDown(double[] distances, int[] indices, int i, int size) {
+        while (true) {
+            final int left = 2 * i + 1;
+            final int right = left + 1;
+
+            int largest = i;
+
+            if (left < size && compare(distances, indices, left, largest) > 0) {
+                largest = left;
+            }
+
+            if (right < size && compare(distances, indices, right, largest) > 0) {
+                largest = right;
+            }
+
+            if (largest == i) {
+                return;
+            }
+
+            swap(distances, indices, i, largest);
+
+            i = largest;
+        }
+    }
+
+    /**
+     * Compares two trees in a heap by distance and then by position.
+     * 
+     * @param distances the squared distances in the heap.
+     * @param indices   the positions in the heap.
+     * @param i         the first node.
+     * @param j         the second node.
+     * @return A negative number, zero, or a positive number if the first tree is
+     *         nearer than, as near as, or farther than the second tree.
+     */
+    private static int compare(double[] distances, int[] indices, int i, int j) {
+        final int result = Double.compare(distances[i], distances[j]);
+
+        if (result != 0) {
+            return result;
+        }
+
+        return Integer.compare(indices[i], indices[j]);
+    }
+
+    /**
+     * Swaps two nodes in a heap.
+     * 
+     * @param distances the squared distances in the heap.
+     * @param indices   the positions in the heap.
+     * @param i         the first node.
+     * @param j         the second node.
+     */
+    private static void swap(double[] distances, int[] indices, int i, int j) {
+        final double distance = distances[i];
+        final int index = indices[i];
+
+        distances[i] = distances[j];
+        indices[i] = indices[j];
+        distances[j] = distance;
+        indices[j] = index;
+    }
+}
@@ -0,0 +1,119 @@
+package project2;
+
+import java.util.Arrays;
+
+/**
+ * Represents a case-insensitive index from species names to the identifiers
+ * of the species with each name. More than one species can share a common or
+ * scientific name. The index is an open-addressing hash table whose probes
+ * compare names with {@link String#equalsIgnoreCase(String)}, so a lookup
+ * neither converts the name nor allocates memory.
+ * 
+ * @author Ishan Pranav
+ */
+final class SpeciesNameIndex {
+    private static final int MIN_CAPACITY = 16;
+    private static final int[] EMPTY = new int[0];
+
+    private String[] names = new String[MIN_CAPACITY];
+    private int[][] speciesIDs = new int[MIN_CAPACITY][];
+    private int size;
+
+    /**
+     * Initializes a new instance of the {@link SpeciesNameIndex} class.
+     */
+    public SpeciesNameIndex() {
+    }
+
+    /**
+     * Associates a species identifier with a name.
+     * 
+     * @param name      the species name.
+     * @param speciesID the species identifier.
+     */
+    public void add(String name, int speciesID) {
+        int slot = find(names, name);
+
+        if (names[slot] != null) {
+            final int[] current = speciesIDs[slot];
+            final int[] result = Arrays.copyOf(current, current.length + 1);
+
+            result[current.length] = speciesID;
+            speciesIDs[slot] = result;
+
+            return;
+        }
+
+        // Keep the table at most half full so that probe sequences stay short
+
+        if (2 * (size + 1) > names.length) {
+            grow();
+
+            slot = find(names, name);
+        }
+
+        names[slot] = name;
+        speciesIDs[slot] = new int[] { speciesID };
+        size++;
+    }
+
+    /**
+     * Gets the identifiers of the species with the given name using a
+     * case-insensitive comparison.
+     * 
+     * @param name the species name.
+     * @return The species identifiers, or an empty array if no species has the
+     *         name. The same name always yields the same array until another
+     *         species with that name is added. The array must not be modified.
+     */
+    public int[] get(String name) {
+        final int slot = find(names, name);
+
+        if (names[slot] == null) {
+            return EMPTY;
+        }
+
+        return speciesIDs[slot];
+    }
+
+    /**
+     * Finds the slot that holds the given name, or the empty slot at which the
+     * name would be added.
+     * 
+     * @param table the names in each slot.
+     * @param name  the species name.
+     * @return The slot.
+     */
+    private static int find(String[] table, String name) {
+        final int mask = table.length - 1;
+        final int hashCode = TreeSpecies.getHashCode(name);
+
+        int result = (hashCode ^ (hashCode >>> 16)) & mask;
+
+        while (table[result] != null && !table[result].equalsIgnoreCase(name)) {
+            result = (result + 1) & mask;
+        }
+
+        return result;
+    }
+
+    /**
+     * Doubles the number of slots and adds every name to its new slot.
+     */
+    private void grow() {
+        final String[] newNames = new String[names.length * 2];
+        final int[][] newSpeciesIDs = new int[newNames.length][];
+
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null) {
+                final int slot = find(newNames, names[i]);
+
+                newNames[slot] = names[i];
+                newSpeciesIDs[slot] = speciesIDs[i];
+            }
+        }
+
+        names = newNames;
+        speciesIDs = newSpeciesIDs;
+    }
+}
@@ -0,0 +1,143 @@
+package project2;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the immutable result of summarizing the tree species that match a
+ * keyword: the names of the matching species and the number of matching trees
+ * in the city and in each borough. Instances can be shared freely between
+ * threads.
+ * 
+ * @author Ishan Pranav
+ */
+public final class SpeciesSummary {
+    private final String keyword;
+    private final List<String> speciesNames;
+    private final int frequency;
+    private final int total;
+    private final int[] frequencies;
+    private final int[] totals;
+
+    /**
+     * Initializes a new instance of the {@link SpeciesSummary} class.
+     * 
+     * @param keyword      the species keyword.
+     * @param speciesNames the sorted names of the matching species.
+     * @param frequency    the number of matching trees in the city.
+     * @param total        the total number of trees in the city.
+     * @param frequencies  the number of matching trees in each borough, indexed
+     *                     by {@link Borough#ordinal()}.
+     * @param totals       the total number of trees in each borough, indexed by
+     *                     {@link Borough#ordinal()}.
+     */
+    SpeciesSummary(String keyword, List<String> speciesNames, int frequency, int total, int[] frequencies,
+            int[] totals) {
+        this.keyword = keyword;
+        this.speciesNames = Collections.unmodifiableList(speciesNames);
+        this.frequency = frequency;
+        this.total = total;
+        this.frequencies = Arrays.copyOf(frequencies, frequencies.length);
+        this.totals = Arrays.copyOf(totals, totals.length);
+    }
+
+    /**
+     * Initializes a new instance of the {@link SpeciesSummary} class that shares
+     * the results of another summary for an equivalent keyword.
+     * 
+     * @param keyword the species keyword.
+     * @param other   the summary whose results to share.
+     */
+    private SpeciesSummary(String keyword, SpeciesSummary other) {
+        this.keyword = keyword;
+        this.speciesNames = other.speciesNames;
+        this.frequency = other.frequency;
+        this.total = other.total;
+        this.frequencies = other.frequencies;
+        this.totals = other.totals;
+    }
+
+    /**
+     * Gets a summary with the same results for the given equivalent keyword,
+     * which differs from the keyword of this summary at most by case.
+     * 
+     * @param keyword the species keyword.
+     * @return This summary if the keywords are identical; otherwise, a new summary
+     *         that shares the results of this summary.
+     */
+    SpeciesSummary withKeyword(String keyword) {
+        if (this.keyword.equals(keyword)) {
+            return this;
+        }
+
+        return new SpeciesSummary(keyword, this);
+    }
+
+    /**
+     * Gets the species keyword.
+     * 
+     * @return The keyword.
+     */
+    public String getKeyword() {
+        return keyword;
+    }
+
+    /**
+     * Determines whether at least one tree species matches the keyword.
+     * 
+     * @return {@code true} if there is at least one matching species; otherwise,
+     *         {@code false}.
+     */
+    public boolean hasMatches() {
+        return !speciesNames.isEmpty();
+    }
+
+    /**
+     * Gets the distinct common and Latin names of the matching species in sorted
+     * order.
+     * 
+     * @return A read-only list of species names.
+     */
+    public List<String> getSpeciesNames() {
+        return speciesNames;
+    }
+
+    /**
+     * Gets the number of matching trees in the city.
+     * 
+     * @return The number of matching trees.
+     */
+    public int getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Gets the number of matching trees in the given borough.
+     * 
+     * @param borough the borough.
+     * @return The number of matching trees in the borough.
+     */
+    public int getFrequency(Borough borough) {
+        return frequencies[borough.ordinal()];
+    }
+
+    /**
+     * Gets the total number of trees in the city.
+     * 
+     * @return The total number of trees.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the total number of trees in the given borough.
+     * 
+     * @param borough the borough.
+     * @return The total number of trees in the borough.
+     */
+    public int getTotal(Borough borough) {
+        return totals[borough.ordinal()];
+    }
+}
@@ -0,0 +1,205 @@
+package project2;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Represents a bounded, thread-safe cache of keyword summaries. Entries are
+ * evicted in least-recently-used order once the capacity is reached, expire
+ * after a fixed time to live, and are discarded as soon as the version of the
+ * underlying dataset increases. Versions never decrease, so summaries read or
+ * computed from an earlier version are ignored rather than replacing the
+ * entries of the current version.
+ * 
+ * @author Ishan Pranav
+ */
+final class SummaryCache {
+    private final int capacity;
+    private final long timeToLive;
+    private final LinkedHashMap<String, Entry> entries;
+
+    // Every entry was computed from this version of the dataset, which is the
+    // latest version seen by the cache
+
+    private long version;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Initializes a new instance of the {@link SummaryCache} class.
+     * 
+     * @param capacity   the maximum number of entries.
+     * @param timeToLive the number of nanoseconds after which an entry expires.
+     * @throws IllegalArgumentException if capacity or timeToLive is not positive.
+     */
+    public SummaryCache(int capacity, long timeToLive) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Value must be positive. Argument name: capacity.");
+        }
+
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("Value must be positive. Argument name: timeToLive.");
+        }
+
+        this.capacity = capacity;
+        this.timeToLive = timeToLive;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    }
+
+    /**
+     * Represents a cached summary and the time at which it was computed.
+     */
+    private static final class Entry {
+        private final SpeciesSummary summary;
+        private final long created;
+
+        /**
+         * Initializes a new instance of the {@link Entry} class.
+         * 
+         * @param summary the summary.
+         * @param created the value of {@link System#nanoTime()} when the summary
+         *                was computed.
+         */
+        public Entry(SpeciesSummary summary, long created) {
+            this.summary = summary;
+            this.created = created;
+        }
+    }
+
+    /**
+     * Discards every entry if the dataset has changed since the entries were
+     * computed.
+     * 
+     * @param version the version of the dataset read by the caller.
+     * @return {@code true} if the version is current; {@code false} if the
+     *         caller read an earlier version than the entries were computed
+     *         from.
+     */
+    private boolean validate(long version) {
+        if (version < this.version) {
+            return false;
+        }
+
+        if (version > this.version) {
+            entries.clear();
+
+            this.version = version;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the cached summary for the given normalized keyword.
+     * 
+     * @param key     the normalized keyword.
+     * @param version the current version of the dataset.
+     * @return The summary, or {@code null} if there is no valid entry for the
+     *         keyword or the version is earlier than the version of the cache.
+     */
+    public synchronized SpeciesSummary get(String key, long version) {
+        if (!validate(version)) {
+            missCount++;
+
+            return null;
+        }
+
+        final Entry entry = entries.get(key);
+
+        if (entry == null) {
+            missCount++;
+
+            return null;
+        }
+
+        if (System.nanoTime() - entry.created >= timeToLive) {
+            entries.remove(key);
+
+            evictionCount++;
+            missCount++;
+
+            return null;
+        }
+
+        hitCount++;
+
+        return entry.summary;
+    }
+
+    /**
+     * Adds or replaces the cached summary for the given normalized keyword,
+     * evicting the least-recently-used entries if the cache is full. A summary
+     * computed from a version earlier than the version of the cache is ignored.
+     * 
+     * @param key     the normalized keyword.
+     * @param version the version of the dataset from which the summary was
+     *                computed.
+     * @param summary the summary.
+     */
+    public synchronized void put(String key, long version, SpeciesSummary summary) {
+        if (!validate(version)) {
+            return;
+        }
+
+        entries.put(key, new Entry(summary, System.nanoTime()));
+
+        // The iteration order of an access-ordered map begins with the least
+        // recently used entry
+
+        final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+
+        while (entries.size() > capacity) {
+            iterator.next();
+            iterator.remove();
+
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Removes every entry from the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of entries in the cache, including expired entries that
+     * have not yet been evicted.
+     * 
+     * @return The number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of lookups that found a valid entry.
+     * 
+     * @return The number of cache hits.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of lookups that did not find a valid entry.
+     * 
+     * @return The number of cache misses.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of entries evicted because the cache was full or because
+     * they expired.
+     * 
+     * @return The number of evictions.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+}
@@ -1,14 +1,12 @@
 package project2;
 
-import java.util.Objects;
-
 /**
  * Represents a particular tree in New York City.
  * 
  * @author Ishan Pranav
  */
 public class Tree implements Comparable<Tree> {
-    private static final String MANHATTAN_BOROUGH = "Manhattan";
+    private static final Borough[] BOROUGHS = Borough.values();
 
     /**
      * Gets a collection of valid borough names.
@@ -16,16 +14,22 @@ public class Tree implements Comparable<Tree> {
      * @return The valid borough names.
      */
     public static String[] getBoroughs() {
-        return new String[] { MANHATTAN_BOROUGH, "Bronx", "Brooklyn", "Queens", "Staten Island" };
+        final String[] results = new String[BOROUGHS.length];
+
+        for (int i = 0; i < results.length; i++) {
+            results[i] = BOROUGHS[i].getName();
+        }
+
+        return results;
     }
 
     private final int treeID;
     private final TreeSpecies species;
 
-    private String status;
-    private String health;
+    private TreeStatus status;
+    private TreeHealth health;
     private int zipCode;
-    private String borough = MANHATTAN_BOROUGH;
+    private Borough borough = Borough.MANHATTAN;
     private double x;
     private double y;
 
@@ -64,6 +68,16 @@ public class Tree implements Comparable<Tree> {
         return treeID;
     }
 
+    /**
+     * Gets the species of the tree. This property represents the
+     * {@code spc_latin} and {@code spc_common} fields in the dataset.
+     * 
+     * @return The species, a non-null value.
+     */
+    public TreeSpecies getSpecies() {
+        return species;
+    }
+
     /**
      * Gets the status of the tree. This property represents the {@code status}
      * field in the dataset.
@@ -73,6 +87,20 @@ public class Tree implements Comparable<Tree> {
      *         case-insensitive.
      */
     public String getStatus() {
+        if (status == null) {
+            return null;
+        }
+
+        return status.getName();
+    }
+
+    /**
+     * Gets the status of the tree. This property represents the {@code status}
+     * field in the dataset.
+     * 
+     * @return The status, or {@code null} if the status has not been set.
+     */
+    public TreeStatus getStatusValue() {
         return status;
     }
 
@@ -90,12 +118,27 @@ public class Tree implements Comparable<Tree> {
             return;
         }
         
-        if (!status.equals("") && !status.equalsIgnoreCase("Alive") && !status.equalsIgnoreCase("Dead")
-                && !status.equalsIgnoreCase("Stump")) {
+        final TreeStatus value = TreeStatus.parse(status);
+
+        if (value == null) {
             throw new IllegalArgumentException(
                     "A valid status value is required. Allowed values: null or empty, Alive, Dead, and Stump. Argument name: status.");
         }
         
+        this.status = value;
+    }
+
+    /**
+     * Sets the status of the tree. This property represents the {@code status}
+     * field in the dataset.
+     * 
+     * @param status the status, or {@code null} to leave the status unchanged.
+     */
+    public void setStatus(TreeStatus status) {
+        if (status == null) {
+            return;
+        }
+
         this.status = status;
     }
 
@@ -108,6 +151,20 @@ public class Tree implements Comparable<Tree> {
      *         case-insensitive.
      */
     public String getHealth() {
+        if (health == null) {
+            return null;
+        }
+
+        return health.getName();
+    }
+
+    /**
+     * Gets the health of the tree. This property represents the {@code health}
+     * field in the dataset.
+     * 
+     * @return The health, or {@code null} if the health has not been set.
+     */
+    public TreeHealth getHealthValue() {
         return health;
     }
 
@@ -125,12 +182,27 @@ public class Tree implements Comparable<Tree> {
             return;
         }
         
-        if (!health.equals("") && health.equalsIgnoreCase("Good") && !health.equalsIgnoreCase("Fair")
-                && !health.equalsIgnoreCase("Poor")) {   
+        final TreeHealth value = TreeHealth.parse(health);
+
+        if (value == null) {
             throw new IllegalArgumentException(
                     "A valid health value is required. Allowed values: null or empty, Good, Fair, and Poor. Argument name: health.");
         }
         
+        this.health = value;
+    }
+
+    /**
+     * Sets the health of the tree. This property represents the {@code health}
+     * field in the dataset.
+     * 
+     * @param health the health, or {@code null} to leave the health unchanged.
+     */
+    public void setHealth(TreeHealth health) {
+        if (health == null) {
+            return;
+        }
+
         this.health = health;
     }
 
@@ -190,6 +262,16 @@ public class Tree implements Comparable<Tree> {
      *         borough. Borough names are case-insensitive.
      */
     public String getBorough() {
+        return borough.getName();
+    }
+
+    /**
+     * Gets the borough in which the tree is located. This property represents the
+     * {@code boroname} field in the dataset.
+     * 
+     * @return The borough, a non-null value.
+     */
+    public Borough getBoroughValue() {
         return borough;
     }
 
@@ -203,16 +285,29 @@ public class Tree implements Comparable<Tree> {
      * @throws IllegalArgumentException if borough is not a valid borough name.
      */
     public void setBorough(String borough) {
-        for (String item : getBoroughs()) {
-            if (item.equalsIgnoreCase(borough)) {
-                this.borough = item;
+        final Borough value = Borough.parse(borough);
 
-                return;
-            }
+        if (value == null) {
+            throw new IllegalArgumentException(
+                    "A valid borough name is required. Allowed values: Manhattan, Bronx, Brooklyn, Queens, Staten Island. Argument name: borough.");
         }
 
-        throw new IllegalArgumentException(
-                "A valid borough name is required. Allowed values: Manhattan, Bronx, Brooklyn, Queens, Staten Island. Argument name: borough.");
+        this.borough = value;
+    }
+
+    /**
+     * Sets the borough in which the tree is located. This property represents the
+     * {@code boroname} field in the dataset.
+     * 
+     * @param borough the borough.
+     * @throws IllegalArgumentException if borough is {@code null}.
+     */
+    public void setBorough(Borough borough) {
+        if (borough == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: borough.");
+        }
+
+        this.borough = borough;
     }
 
     /**
@@ -257,13 +352,10 @@ public class Tree implements Comparable<Tree> {
 
     /** {@inheritDoc} */
     public int compareTo(Tree o) {
-        Tree other = (Tree) o;
-        int result = getCommonName().compareToIgnoreCase(other.getCommonName());
+        int result = getCommonName().compareToIgnoreCase(o.getCommonName());
 
         if (result == 0) {
-            Comparable<Integer> comparable = treeID;
-
-            result = comparable.compareTo(other.treeID);
+            result = Integer.compare(treeID, o.treeID);
         }
 
         return result;
@@ -278,14 +370,16 @@ public class Tree implements Comparable<Tree> {
         
         Tree other = (Tree) obj;
 
-        return treeID == other.treeID && getLatinName().equalsIgnoreCase(other.getLatinName())
-                && getCommonName().equalsIgnoreCase(other.getCommonName());
+        // Species are compared case-insensitively, and their hash codes are
+        // consistent with that comparison
+
+        return treeID == other.treeID && species.equals(other.species);
     }
 
     /** {@inheritDoc} */
     @Override
     public int hashCode() {
-        return Objects.hash(treeID, getLatinName(), getCommonName());
+        return 31 * treeID + species.hashCode();
     }
 
     /** {@inheritDoc} */
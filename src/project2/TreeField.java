@@ -0,0 +1,67 @@
+package project2;
+
+/**
+ * Represents a field of a tree by which the trees in a {@link TreeList} can be
+ * grouped. Each field has a fixed set of possible values, so groups are
+ * counted in an array indexed by the code of each value rather than in a map.
+ * 
+ * @param <K> the type of the values of the field.
+ * @author Ishan Pranav
+ */
+public final class TreeField<K> {
+    static final int SPECIES_ID = 0;
+    static final int BOROUGH_ID = 1;
+    static final int STATUS_ID = 2;
+    static final int HEALTH_ID = 3;
+    static final int ZIP_CODE_ID = 4;
+
+    /**
+     * Represents the species of a tree.
+     */
+    public static final TreeField<TreeSpecies> SPECIES = new TreeField<TreeSpecies>(SPECIES_ID, "species");
+
+    /**
+     * Represents the borough in which a tree is located.
+     */
+    public static final TreeField<Borough> BOROUGH = new TreeField<Borough>(BOROUGH_ID, "borough");
+
+    /**
+     * Represents the status of a tree. A tree whose status has not been set has
+     * the status {@link TreeStatus#UNSPECIFIED}.
+     */
+    public static final TreeField<TreeStatus> STATUS = new TreeField<TreeStatus>(STATUS_ID, "status");
+
+    /**
+     * Represents the health of a tree. A tree whose health has not been set has
+     * the health {@link TreeHealth#UNSPECIFIED}.
+     */
+    public static final TreeField<TreeHealth> HEALTH = new TreeField<TreeHealth>(HEALTH_ID, "health");
+
+    /**
+     * Represents the postal (ZIP) code of a tree.
+     */
+    public static final TreeField<Integer> ZIP_CODE = new TreeField<Integer>(ZIP_CODE_ID, "zipcode");
+
+    private final int id;
+    private final String name;
+
+    private TreeField(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    /**
+     * Gets the identifier of the field.
+     * 
+     * @return The identifier.
+     */
+    int getID() {
+        return id;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,362 @@
+package project2;
+
+import java.util.Arrays;
+
+/**
+ * Represents an immutable condition on the trees in a {@link TreeList}. A
+ * filter constrains any combination of the species, borough, status, health,
+ * postal (ZIP) code, and location of a tree. Filters are combined using
+ * {@link #and(TreeFilter)}, and a tree matches a filter only if it satisfies
+ * every constraint. Names are compared case-insensitively, and a tree whose
+ * status or health has not been set has an unspecified status or health.
+ * 
+ * @author Ishan Pranav
+ */
+public final class TreeFilter {
+    static final int ZIP_CODES = 100000;
+
+    private static final int MAX_ZIP_CODE = ZIP_CODES - 1;
+    private static final String[][] NO_NAMES = new String[0][];
+    private static final SpatialGrid.Region[] NO_REGIONS = new SpatialGrid.Region[0];
+
+    /**
+     * Represents the filter that matches every tree.
+     */
+    public static final TreeFilter ALL = new TreeFilter(NO_NAMES, NO_NAMES, -1, -1, -1, 0, MAX_ZIP_CODE,
+            NO_REGIONS);
+
+    // Each set of names is satisfied by a species with any one of the names, and
+    // the masks hold one bit for the ordinal of each accepted constant
+
+    private final String[][] commonNames;
+    private final String[][] latinNames;
+    private final int boroughMask;
+    private final int statusMask;
+    private final int healthMask;
+    private final int minZipCode;
+    private final int maxZipCode;
+    private final SpatialGrid.Region[] regions;
+
+    private TreeFilter(String[][] commonNames, String[][] latinNames, int boroughMask, int statusMask,
+            int healthMask, int minZipCode, int maxZipCode, SpatialGrid.Region[] regions) {
+        this.commonNames = commonNames;
+        this.latinNames = latinNames;
+        this.boroughMask = boroughMask;
+        this.statusMask = statusMask;
+        this.healthMask = healthMask;
+        this.minZipCode = minZipCode;
+        this.maxZipCode = maxZipCode;
+        this.regions = regions;
+    }
+
+    /**
+     * Creates a filter that matches the trees whose species have any of the given
+     * common names.
+     * 
+     * @param names the common names.
+     * @return The filter.
+     * @throws IllegalArgumentException if names or any of its elements is
+     *                                  {@code null}.
+     */
+    public static TreeFilter commonName(String... names) {
+        return new TreeFilter(new String[][] { checkNames(names) }, NO_NAMES, -1, -1, -1, 0, MAX_ZIP_CODE,
+                NO_REGIONS);
+    }
+
+    /**
+     * Creates a filter that matches the trees whose species have any of the given
+     * scientific names.
+     * 
+     * @param names the scientific names.
+     * @return The filter.
+     * @throws IllegalArgumentException if names or any of its elements is
+     *                                  {@code null}.
+     */
+    public static TreeFilter latinName(String... names) {
+        return new TreeFilter(NO_NAMES, new String[][] { checkNames(names) }, -1, -1, -1, 0, MAX_ZIP_CODE,
+                NO_REGIONS);
+    }
+
+    /**
+     * Creates a filter that matches the trees located in any of the given
+     * boroughs.
+     * 
+     * @param values the boroughs.
+     * @return The filter.
+     * @throws IllegalArgumentException if values or any of its elements is
+     *                                  {@code null}.
+     */
+    public static TreeFilter borough(Borough... values) {
+        return new TreeFilter(NO_NAMES, NO_NAMES, getMask(values), -1, -1, 0, MAX_ZIP_CODE, NO_REGIONS);
+    }
+
+    /**
+     * Creates a filter that matches the trees with any of the given statuses.
+     * 
+     * @param values the statuses.
+     * @return The filter.
+     * @throws IllegalArgumentException if values or any of its elements is
+     *                                  {@code null}.
+     */
+    public static TreeFilter status(TreeStatus... values) {
+        return new TreeFilter(NO_NAMES, NO_NAMES, -1, getMask(values), -1, 0, MAX_ZIP_CODE, NO_REGIONS);
+    }
+
+    /**
+     * Creates a filter that matches the trees with any of the given health
+     * descriptions.
+     * 
+     * @param values the health descriptions.
+     * @return The filter.
+     * @throws IllegalArgumentException if values or any of its elements is
+     *                                  {@code null}.
+     */
+    public static TreeFilter health(TreeHealth... values) {
+        return new TreeFilter(NO_NAMES, NO_NAMES, -1, -1, getMask(values), 0, MAX_ZIP_CODE, NO_REGIONS);
+    }
+
+    /**
+     * Creates a filter that matches the trees in the given postal (ZIP) code.
+     * 
+     * @param zipCode the postcode, an integer between 00000 and 99999.
+     * @return The filter.
+     * @throws IllegalArgumentException if zipCode is less than 0 or greater than
+     *                                  99999.
+     */
+    public static TreeFilter zipCode(int zipCode) {
+        return zipCodeRange(zipCode, zipCode);
+    }
+
+    /**
+     * Creates a filter that matches the trees in the given range of postal (ZIP)
+     * codes.
+     * 
+     * @param minZipCode the minimum postcode, inclusive.
+     * @param maxZipCode the maximum postcode, inclusive.
+     * @return The filter.
+     * @throws IllegalArgumentException if either postcode is less than 0 or
+     *                                  greater than 99999.
+     */
+    public static TreeFilter zipCodeRange(int minZipCode, int maxZipCode) {
+        if (minZipCode < 0 || minZipCode > MAX_ZIP_CODE) {
+            throw new IllegalArgumentException(
+                    "Value is out of range. Zip codes must be between 00000 and 99999, inclusive. Argument name: minZipCode.");
+        }
+
+        if (maxZipCode < 0 || maxZipCode > MAX_ZIP_CODE) {
+            throw new IllegalArgumentException(
+                    "Value is out of range. Zip codes must be between 00000 and 99999, inclusive. Argument name: maxZipCode.");
+        }
+
+        return new TreeFilter(NO_NAMES, NO_NAMES, -1, -1, -1, minZipCode, maxZipCode, NO_REGIONS);
+    }
+
+    /**
+     * Creates a filter that matches the trees located within the given
+     * rectangle. Points on the edges of the rectangle are within the rectangle.
+     * 
+     * @param minX the minimum x-coordinate.
+     * @param minY the minimum y-coordinate.
+     * @param maxX the maximum x-coordinate.
+     * @param maxY the maximum y-coordinate.
+     * @return The filter.
+     */
+    public static TreeFilter bounds(double minX, double minY, double maxX, double maxY) {
+        return new TreeFilter(NO_NAMES, NO_NAMES, -1, -1, -1, 0, MAX_ZIP_CODE,
+                new SpatialGrid.Region[] { SpatialGrid.Region.bounds(minX, minY, maxX, maxY) });
+    }
+
+    /**
+     * Creates a filter that matches the trees located within the given distance
+     * of a point.
+     * 
+     * @param x      the x-coordinate of the point.
+     * @param y      the y-coordinate of the point.
+     * @param radius the distance, in the units of the coordinates.
+     * @return The filter.
+     * @throws IllegalArgumentException if radius is negative.
+     */
+    public static TreeFilter withinRadius(double x, double y, double radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException(
+                    "Value is out of range. A non-negative number is required. Argument name: radius.");
+        }
+
+        return new TreeFilter(NO_NAMES, NO_NAMES, -1, -1, -1, 0, MAX_ZIP_CODE,
+                new SpatialGrid.Region[] { SpatialGrid.Region.circle(x, y, radius) });
+    }
+
+    /**
+     * Validates a set of names.
+     * 
+     * @param names the names.
+     * @return A copy of the names.
+     * @throws IllegalArgumentException if names or any of its elements is
+     *                                  {@code null}.
+     */
+    private static String[] checkNames(String[] names) {
+        if (names == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: names.");
+        }
+
+        for (String name : names) {
+            if (name == null) {
+                throw new IllegalArgumentException("Value cannot contain null elements. Argument name: names.");
+            }
+        }
+
+        return names.clone();
+    }
+
+    /**
+     * Gets the mask with one bit set for the ordinal of each of the given
+     * constants.
+     * 
+     * @param values the constants.
+     * @return The mask.
+     * @throws IllegalArgumentException if values or any of its elements is
+     *                                  {@code null}.
+     */
+    private static int getMask(Enum<?>[] values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: values.");
+        }
+
+        int result = 0;
+
+        for (Enum<?> value : values) {
+            if (value == null) {
+                throw new IllegalArgumentException("Value cannot contain null elements. Argument name: values.");
+            }
+
+            result |= 1 << value.ordinal();
+        }
+
+        return result;
+    }
+
+    /**
+     * Concatenates two arrays.
+     * 
+     * @param <T>    the type of the elements.
+     * @param first  the first array.
+     * @param second the second array.
+     * @return The first array if the second is empty, the second if the first is
+     *         empty, or otherwise a new array.
+     */
+    private static <T> T[] concat(T[] first, T[] second) {
+        if (second.length == 0) {
+            return first;
+        }
+
+        if (first.length == 0) {
+            return second;
+        }
+
+        final T[] result = Arrays.copyOf(first, first.length + second.length);
+
+        System.arraycopy(second, 0, result, first.length, second.length);
+
+        return result;
+    }
+
+    /**
+     * Creates a filter that matches the trees that match both this filter and
+     * another filter.
+     * 
+     * @param other the other filter.
+     * @return The filter.
+     * @throws IllegalArgumentException if other is {@code null}.
+     */
+    public TreeFilter and(TreeFilter other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: other.");
+        }
+
+        return new TreeFilter(concat(commonNames, other.commonNames),
+                concat(latinNames, other.latinNames),
+                boroughMask & other.boroughMask,
+                statusMask & other.statusMask,
+                healthMask & other.healthMask,
+                Math.max(minZipCode, other.minZipCode),
+                Math.min(maxZipCode, other.maxZipCode),
+                concat(regions, other.regions));
+    }
+
+    /**
+     * Gets the sets of common names. A species satisfies a set if it has any of
+     * the names in the set.
+     * 
+     * @return The sets of common names. The array must not be modified.
+     */
+    String[][] getCommonNames() {
+        return commonNames;
+    }
+
+    /**
+     * Gets the sets of scientific names. A species satisfies a set if it has any
+     * of the names in the set.
+     * 
+     * @return The sets of scientific names. The array must not be modified.
+     */
+    String[][] getLatinNames() {
+        return latinNames;
+    }
+
+    /**
+     * Gets the mask of accepted boroughs.
+     * 
+     * @return The mask, with one bit set for the ordinal of each accepted
+     *         borough, or -1 if the borough is not constrained.
+     */
+    int getBoroughMask() {
+        return boroughMask;
+    }
+
+    /**
+     * Gets the mask of accepted statuses.
+     * 
+     * @return The mask, with one bit set for the ordinal of each accepted
+     *         status, or -1 if the status is not constrained.
+     */
+    int getStatusMask() {
+        return statusMask;
+    }
+
+    /**
+     * Gets the mask of accepted health descriptions.
+     * 
+     * @return The mask, with one bit set for the ordinal of each accepted health
+     *         description, or -1 if the health is not constrained.
+     */
+    int getHealthMask() {
+        return healthMask;
+    }
+
+    /**
+     * Gets the minimum accepted postal (ZIP) code.
+     * 
+     * @return The minimum postcode, inclusive.
+     */
+    int getMinZipCode() {
+        return minZipCode;
+    }
+
+    /**
+     * Gets the maximum accepted postal (ZIP) code.
+     * 
+     * @return The maximum postcode, inclusive.
+     */
+    int getMaxZipCode() {
+        return maxZipCode;
+    }
+
+    /**
+     * Gets the regions within which a matching tree must be located.
+     * 
+     * @return The regions. The array must not be modified.
+     */
+    SpatialGrid.Region[] getRegions() {
+        return regions;
+    }
+}
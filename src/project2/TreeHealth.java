@@ -0,0 +1,86 @@
+package project2;
+
+/**
+ * Specifies the health of a tree, which represents the {@code health} field in the
+ * dataset. An empty field is a valid health description.
+ * 
+ * @author Ishan Pranav
+ */
+public enum TreeHealth {
+    /**
+     * Indicates that the health field is empty.
+     */
+    UNSPECIFIED(""),
+
+    /**
+     * Indicates that the tree is in good health.
+     */
+    GOOD("Good"),
+
+    /**
+     * Indicates that the tree is in fair health.
+     */
+    FAIR("Fair"),
+
+    /**
+     * Indicates that the tree is in poor health.
+     */
+    POOR("Poor");
+
+    private static final TreeHealth[] VALUES = values();
+
+    private final String name;
+
+    private TreeHealth(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of the health as it appears in the dataset.
+     * 
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the health with the given name using a case-insensitive comparison.
+     * 
+     * @param name the name.
+     * @return The health, or {@code null} if the name is not a valid health name.
+     */
+    public static TreeHealth parse(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        for (TreeHealth item : VALUES) {
+            if (item.name.equalsIgnoreCase(name)) {
+                return item;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the health named by the given field of the current line of a
+     * comma-delimited data source using a case-insensitive comparison. The
+     * field is compared in place, without creating a string.
+     * 
+     * @param csv    the comma-delimited data source.
+     * @param column the zero-based index of the field.
+     * @return The health, or {@code null} if the field is not a valid health
+     *         name.
+     */
+    public static TreeHealth match(CSV csv, int column) {
+        for (TreeHealth item : VALUES) {
+            if (csv.fieldEqualsIgnoreCase(column, item.name)) {
+                return item;
+            }
+        }
+
+        return null;
+    }
+}
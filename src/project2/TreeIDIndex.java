@@ -0,0 +1,160 @@
+package project2;
+
+/**
+ * Represents a hash index from tree identifiers to the positions of the trees
+ * in a {@link TreeList}. The index is an open-addressing table with linear
+ * probing that stores only positions: the identifier of each occupied slot is
+ * read from the collection itself, so the index needs four bytes per slot and
+ * no objects per tree. If an identifier occurs more than once, the index
+ * refers to its first occurrence.
+ * 
+ * @author Ishan Pranav
+ */
+final class TreeIDIndex {
+    private static final int MIN_CAPACITY = 16;
+
+    // Each slot holds one more than a position, so that zero marks an empty slot
+
+    private int[] slots;
+    private int size;
+
+    /**
+     * Initializes a new instance of the {@link TreeIDIndex} class over the
+     * trees in the given collection.
+     * 
+     * @param trees the collection.
+     */
+    public TreeIDIndex(TreeList trees) {
+        final int count = trees.getTotalNumberOfTrees();
+
+        slots = new int[getCapacity(count)];
+
+        for (int i = 0; i < count; i++) {
+            add(trees, i);
+        }
+    }
+
+    /**
+     * Initializes a new instance of the {@link TreeIDIndex} class that is a copy
+     * of another index. The copy can be modified independently of the original.
+     * 
+     * @param other the index to copy.
+     */
+    public TreeIDIndex(TreeIDIndex other) {
+        slots = other.slots.clone();
+        size = other.size;
+    }
+
+    /**
+     * Gets the smallest power-of-two capacity that keeps the table at most half
+     * full.
+     * 
+     * @param count the number of positions.
+     * @return The capacity.
+     */
+    private static int getCapacity(int count) {
+        int result = MIN_CAPACITY;
+
+        while (result / 2 < count) {
+            result *= 2;
+        }
+
+        return result;
+    }
+
+    /**
+     * Mixes the bits of a tree identifier so that sequential identifiers are
+     * spread evenly over the table.
+     * 
+     * @param treeID the tree identifier.
+     * @return The hash code.
+     */
+    private static int hash(int treeID) {
+        int result = treeID * 0x9e3779b9;
+
+        return result ^ (result >>> 16);
+    }
+
+    /**
+     * Gets the position of the first tree with the given identifier.
+     * 
+     * @param trees  the indexed collection.
+     * @param treeID the tree identifier.
+     * @return The position of the tree, or -1 if no tree has the identifier.
+     */
+    public int get(TreeList trees, int treeID) {
+        final int mask = slots.length - 1;
+
+        for (int i = hash(treeID) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            final int position = slots[i] - 1;
+
+            if (trees.getTreeID(position) == treeID) {
+                return position;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Adds the tree at the given position to the index, unless a tree with the
+     * same identifier is already indexed.
+     * 
+     * @param trees    the indexed collection.
+     * @param position the position of the tree.
+     */
+    public void add(TreeList trees, int position) {
+        if ((size + 1) * 2 > slots.length) {
+            resize(trees);
+        }
+
+        final int treeID = trees.getTreeID(position);
+        final int mask = slots.length - 1;
+
+        int i = hash(treeID) & mask;
+
+        while (slots[i] != 0) {
+            if (trees.getTreeID(slots[i] - 1) == treeID) {
+                return;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        slots[i] = position + 1;
+        size++;
+    }
+
+    /**
+     * Doubles the capacity of the table and reinserts every position.
+     * 
+     * @param trees the indexed collection.
+     */
+    private void resize(TreeList trees) {
+        final int[] previous = slots;
+        final int mask = previous.length * 2 - 1;
+
+        slots = new int[previous.length * 2];
+
+        for (int slot : previous) {
+            if (slot != 0) {
+                int i = hash(trees.getTreeID(slot - 1)) & mask;
+
+                while (slots[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+
+                slots[i] = slot;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of distinct identifiers in the index.
+     * 
+     * @return The number of identifiers.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -1,43 +1,104 @@
 package project2;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 
 /**
- * Represents a collection of trees.
+ * Represents a collection of trees. The collection maintains the number of
+ * trees for each species and borough as trees are added, so that all count
+ * queries run in constant time. Trees should not be modified after they are
+ * added to the collection.
+ * 
+ * Trees are stored in columns of primitive arrays rather than as individual
+ * objects. Each column is divided into fixed-size chunks so that the
+ * collection can grow without copying existing elements. The species, borough,
+ * status, and health of each tree are encoded as small integers. Tree objects
+ * are only created on demand, when an element is retrieved.
+ * 
+ * A copy of the collection shares the chunks of the original. A shared chunk
+ * is copied only when either collection next writes to it, so a copy costs
+ * little more than the counts, and the original can be read by other
+ * threads while the copy is modified.
  * 
  * @author Ishan Pranav
  */
 public class TreeList implements Iterable<Tree> {
+    private static final int CHUNK_SHIFT = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_SPECIES = 1 << Short.SIZE;
+    private static final Borough[] BOROUGHS = Borough.values();
+    private static final TreeStatus[] STATUSES = TreeStatus.values();
+    private static final TreeHealth[] HEALTHS = TreeHealth.values();
+
+    /**
+     * Gets the index of the given borough name in the array of valid borough
+     * names using a case-insensitive comparison.
+     * 
+     * @param boroName the borough name.
+     * @return The borough index, or -1 if the name is not a valid borough name.
+     */
+    private static int getBoroughIndex(String boroName) {
+        return getBoroughIndex(Borough.parse(boroName));
+    }
 
     /**
-     * Provides a node for the linked list.
+     * Gets the index of the given borough.
      * 
-     * @author Ishan Pranav
+     * @param borough the borough.
+     * @return The borough index, or -1 if the borough is {@code null}.
      */
-    private class TreeListNode {
-        private final Tree value;
+    private static int getBoroughIndex(Borough borough) {
+        if (borough == null) {
+            return -1;
+        }
 
-        private TreeListNode next;
+        return borough.ordinal();
+    }
 
-        /**
-         * Initializes a new instance of the {@link TreeListNode} class.
-         * 
-         * @param value The node data.
-         */
-        public TreeListNode(Tree value) {
-            this.value = value;
+    /**
+     * Gets the code of the given enumeration constant. The code is zero for
+     * {@code null} and one more than the ordinal of any other constant.
+     * 
+     * @param value the constant.
+     * @return The code.
+     */
+    private static int getCode(Enum<?> value) {
+        if (value == null) {
+            return 0;
         }
+
+        return value.ordinal() + 1;
+    }
+
+    /**
+     * Gets the canonical key used to index the given species name. Keys are
+     * upper-case to preserve case-insensitivity.
+     * 
+     * @param speciesName the species name.
+     * @return The canonical key.
+     */
+    private static String getKey(String speciesName) {
+        return speciesName.toUpperCase();
     }
 
     /**
-     * Provides an iterator for the linked list.
+     * Provides an iterator for the collection.
      */
     private class TreeListIterator implements Iterator<Tree> {
         private final int expectedVersion = version;
 
-        private TreeListNode current = head;
+        private int index;
 
         /**
          * Initializes a new instance of the {@link TreeListIterator} class.
@@ -48,7 +109,7 @@ public class TreeList implements Iterable<Tree> {
         /** {@inheritDoc} */
         @Override
         public boolean hasNext() {
-            return current != null;
+            return index < count;
         }
 
         /**
@@ -64,27 +125,180 @@ public class TreeList implements Iterable<Tree> {
                 throw new ConcurrentModificationException("Collection was modified during iteration.");
             }
 
-            if (current == null) {
+            if (index >= count) {
                 throw new NoSuchElementException("Collection has no more elements.");
             }
 
-            final Tree result = current.value;
+            final Tree result = get(index);
 
-            current = current.next;
+            index++;
 
             return result;
         }
     }
 
+    /**
+     * Provides an iterator over the trees at a sequence of positions in the
+     * collection.
+     */
+    private class PositionIterator implements Iterator<Tree> {
+        private final int expectedVersion = version;
+        private final PrimitiveIterator.OfInt positions;
+
+        /**
+         * Initializes a new instance of the {@link PositionIterator} class.
+         * 
+         * @param positions the positions of the trees.
+         */
+        public PositionIterator(PrimitiveIterator.OfInt positions) {
+            this.positions = positions;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasNext() {
+            return positions.hasNext();
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         * 
+         * @throws ConcurrentModificationException if the list has been modified
+         *                                         concurrently with the iteration
+         * @throws NoSuchElementException          if the iteration has no more elements
+         */
+        @Override
+        public Tree next() {
+            if (version != expectedVersion) {
+                throw new ConcurrentModificationException("Collection was modified during iteration.");
+            }
+
+            return get(positions.nextInt());
+        }
+    }
+
+    private final int[] countsByBorough = new int[BOROUGHS.length];
+    private final ZipCodeCounts countsByZipCode;
+
+    // The species table maps species identifiers to species, and the name indices
+    // map each common and scientific name to the identifiers of its species
+
+    private final TreeSpeciesList species = new TreeSpeciesList();
+    private final SpeciesNameIndex commonNames = new SpeciesNameIndex();
+    private final SpeciesNameIndex latinNames = new SpeciesNameIndex();
+
+    // The number of trees of each species in each borough is indexed by borough
+    // and then by species identifier, and followed by the number of trees of each
+    // species in the city, so that each row can be ranked without a scan
+
+    private int[][] speciesCounts = new int[BOROUGHS.length + 1][16];
+
     private int count;
     private int version;
-    private TreeListNode head;
-    private TreeListNode tail;
+
+    // The spatial index is built on the first location query and rebuilt after
+    // the collection changes
+
+    private SpatialGrid grid;
+    private int gridVersion;
+
+    // The bitmap indices are likewise built on the first filter that uses them
+    // and rebuilt after the collection changes
+
+    private BitmapIndex bitmaps;
+    private int bitmapsVersion;
+
+    // The identifier index is built on the first lookup by identifier and then
+    // maintained as trees are appended
+
+    private TreeIDIndex idIndex;
+    private int[][] treeIDs = new int[1][];
+    private short[][] speciesColumn = new short[1][];
+    private byte[][] boroughs = new byte[1][];
+    private byte[][] statuses = new byte[1][];
+    private byte[][] healths = new byte[1][];
+    private int[][] zipCodes = new int[1][];
+    private double[][] xs = new double[1][];
+    private double[][] ys = new double[1][];
+
+    // A chunk that is shared with a copy of the collection must be copied before
+    // it is written
+
+    private boolean[] sharedChunks = new boolean[1];
 
     /**
      * Initializes a new instance of the {@link TreeList} class.
      */
     public TreeList() {
+        countsByZipCode = new ZipCodeCounts();
+    }
+
+    /**
+     * Initializes a new instance of the {@link TreeList} class that contains the
+     * same trees as another collection. The chunks of the columns are shared
+     * rather than copied, and each collection copies a shared chunk before
+     * writing to it, so either collection can be modified without affecting the
+     * other. The original must not be modified concurrently with the copy being
+     * made.
+     * 
+     * @param other the collection to copy.
+     * @throws IllegalArgumentException if other is {@code null}.
+     */
+    public TreeList(TreeList other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: other.");
+        }
+
+        System.arraycopy(other.countsByBorough, 0, countsByBorough, 0, BOROUGHS.length);
+
+        countsByZipCode = new ZipCodeCounts(other.countsByZipCode);
+        speciesCounts = new int[BOROUGHS.length + 1][];
+
+        for (int i = 0; i <= BOROUGHS.length; i++) {
+            speciesCounts[i] = other.speciesCounts[i].clone();
+        }
+
+        for (TreeSpecies item : other.species) {
+            commonNames.add(item.getCommonName(), species.size());
+            latinNames.add(item.getLatinName(), species.size());
+            species.add(item);
+        }
+
+        count = other.count;
+        version = other.version;
+        treeIDs = other.treeIDs.clone();
+        speciesColumn = other.speciesColumn.clone();
+        boroughs = other.boroughs.clone();
+        statuses = other.statuses.clone();
+        healths = other.healths.clone();
+        zipCodes = other.zipCodes.clone();
+        xs = other.xs.clone();
+        ys = other.ys.clone();
+        sharedChunks = new boolean[treeIDs.length];
+
+        final int chunks = (count + CHUNK_MASK) >>> CHUNK_SHIFT;
+
+        Arrays.fill(sharedChunks, 0, chunks, true);
+        Arrays.fill(other.sharedChunks, 0, chunks, true);
+
+        // The spatial and bitmap indices are immutable and can be shared while they
+        // are current, but the identifier index is maintained in place and must be copied
+
+        synchronized (other) {
+            if (other.grid != null && other.gridVersion == other.version) {
+                grid = other.grid;
+                gridVersion = version;
+            }
+
+            if (other.bitmaps != null && other.bitmapsVersion == other.version) {
+                bitmaps = other.bitmaps;
+                bitmapsVersion = version;
+            }
+
+            if (other.idIndex != null) {
+                idIndex = new TreeIDIndex(other.idIndex);
+            }
+        }
     }
 
     /**
@@ -97,49 +311,185 @@ public class TreeList implements Iterable<Tree> {
         if (tree == null) {
             throw new IllegalArgumentException("Value cannot be null. Argument name: tree.");
         }
-        
-        final TreeListNode node = new TreeListNode(tree);
 
-        if (tail == null) {
-            // If the linked list is empty, the new node is both the first and the last
-            // node
+        append(tree.getTreeID(),
+                getSpeciesID(tree.getSpecies()),
+                getBoroughIndex(tree.getBoroughValue()),
+                getCode(tree.getStatusValue()),
+                getCode(tree.getHealthValue()),
+                tree.getZipCode(),
+                tree.getX(),
+                tree.getY());
+
+        version++;
+    }
+
+    /**
+     * Adds all the trees in the given collection to the end of this collection,
+     * preserving their order. The stored values are copied directly, without
+     * creating any tree objects.
+     * 
+     * @param trees the trees to add.
+     * @throws IllegalArgumentException if trees is {@code null}.
+     */
+    public void addAll(TreeList trees) {
+        if (trees == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: trees.");
+        }
+
+        // Map the species identifiers of the other collection to the identifiers in
+        // this collection
+
+        final int length = trees.count;
+        final int[] speciesIDs = new int[trees.species.size()];
+
+        for (int i = 0; i < speciesIDs.length; i++) {
+            speciesIDs[i] = getSpeciesID(trees.species.get(i));
+        }
+
+        for (int i = 0; i < length; i++) {
+            final int chunk = i >>> CHUNK_SHIFT;
+            final int offset = i & CHUNK_MASK;
+
+            append(trees.treeIDs[chunk][offset],
+                    speciesIDs[trees.speciesColumn[chunk][offset] & 0xffff],
+                    trees.boroughs[chunk][offset],
+                    trees.statuses[chunk][offset],
+                    trees.healths[chunk][offset],
+                    trees.zipCodes[chunk][offset],
+                    trees.xs[chunk][offset],
+                    trees.ys[chunk][offset]);
+        }
+
+        version++;
+    }
+
+    /**
+     * Stores the encoded values of a tree at the end of the collection and
+     * updates the counts.
+     * 
+     * @param treeID    the tree identifier.
+     * @param speciesID the species identifier.
+     * @param borough   the borough index.
+     * @param status    the status code.
+     * @param health    the health code.
+     * @param zipCode   the postal (ZIP) code.
+     * @param x         the x-coordinate.
+     * @param y         the y-coordinate.
+     */
+    private void append(int treeID, int speciesID, int borough, int status, int health, int zipCode, double x,
+            double y) {
+        final int chunk = count >>> CHUNK_SHIFT;
+        final int offset = count & CHUNK_MASK;
 
-            head = node;
-            tail = node;
+        if (offset == 0) {
+            allocateChunk(chunk);
         } else {
-            // If the linked list is not empty, the new node follows the existing last node,
-            // and is thus the new last node
+            copyChunk(chunk);
+        }
+
+        treeIDs[chunk][offset] = treeID;
+        speciesColumn[chunk][offset] = (short) speciesID;
+        boroughs[chunk][offset] = (byte) borough;
+        statuses[chunk][offset] = (byte) status;
+        healths[chunk][offset] = (byte) health;
+        zipCodes[chunk][offset] = zipCode;
+        xs[chunk][offset] = x;
+        ys[chunk][offset] = y;
 
-            tail.next = node;
-            tail = node;
+        // Update the counts incrementally so that queries never scan the list
+
+        updateCounts(speciesID, borough, health, zipCode, 1);
+
+        if (idIndex != null) {
+            idIndex.add(this, count);
         }
 
         count++;
-        version++;
     }
 
     /**
-     * Gets the total number of trees in the collection.
+     * Allocates the chunk with the given index in every column, growing the
+     * arrays of chunks as necessary.
      * 
-     * @return The number of trees.
+     * @param chunk the chunk index.
      */
-    public int getTotalNumberOfTrees() {
-        return count;
+    private void allocateChunk(int chunk) {
+        if (chunk == treeIDs.length) {
+            final int length = chunk * 2;
+
+            treeIDs = Arrays.copyOf(treeIDs, length);
+            speciesColumn = Arrays.copyOf(speciesColumn, length);
+            boroughs = Arrays.copyOf(boroughs, length);
+            statuses = Arrays.copyOf(statuses, length);
+            healths = Arrays.copyOf(healths, length);
+            zipCodes = Arrays.copyOf(zipCodes, length);
+            xs = Arrays.copyOf(xs, length);
+            ys = Arrays.copyOf(ys, length);
+            sharedChunks = Arrays.copyOf(sharedChunks, length);
+        }
+
+        treeIDs[chunk] = new int[CHUNK_SIZE];
+        speciesColumn[chunk] = new short[CHUNK_SIZE];
+        boroughs[chunk] = new byte[CHUNK_SIZE];
+        statuses[chunk] = new byte[CHUNK_SIZE];
+        healths[chunk] = new byte[CHUNK_SIZE];
+        zipCodes[chunk] = new int[CHUNK_SIZE];
+        xs[chunk] = new double[CHUNK_SIZE];
+        ys[chunk] = new double[CHUNK_SIZE];
+        sharedChunks[chunk] = false;
     }
 
     /**
-     * Gets the number of trees whose species' common names are the same as the
-     * given species name using a case-insensitive comparison.
+     * Replaces the chunk with the given index in every column with a private
+     * copy if the chunk is shared with another collection.
      * 
-     * @param speciesName the common name
-     * @return The number of trees with the given common name.
+     * @param chunk the chunk index.
      */
-    public int getCountByCommonName(String speciesName) {
-        int result = 0;
+    private void copyChunk(int chunk) {
+        if (!sharedChunks[chunk]) {
+            return;
+        }
+
+        treeIDs[chunk] = treeIDs[chunk].clone();
+        speciesColumn[chunk] = speciesColumn[chunk].clone();
+        boroughs[chunk] = boroughs[chunk].clone();
+        statuses[chunk] = statuses[chunk].clone();
+        healths[chunk] = healths[chunk].clone();
+        zipCodes[chunk] = zipCodes[chunk].clone();
+        xs[chunk] = xs[chunk].clone();
+        ys[chunk] = ys[chunk].clone();
+        sharedChunks[chunk] = false;
+    }
+
+    /**
+     * Gets the identifier of the given species, adding the species to the
+     * species table if it is not already present.
+     * 
+     * @param value the species.
+     * @return The species identifier.
+     * @throws IllegalStateException if the species table is full.
+     */
+    private int getSpeciesID(TreeSpecies value) {
+        final int existing = species.indexOf(value);
+
+        if (existing >= 0) {
+            return existing;
+        }
+
+        final int result = species.size();
+
+        if (result == MAX_SPECIES) {
+            throw new IllegalStateException("The collection cannot contain more than " + MAX_SPECIES + " species.");
+        }
 
-        for (Tree tree : this) {
-            if (tree.getCommonName().equalsIgnoreCase(speciesName)) {
-                result++;
+        species.add(value);
+        commonNames.add(value.getCommonName(), result);
+        latinNames.add(value.getLatinName(), result);
+
+        if (result == speciesCounts[0].length) {
+            for (int i = 0; i <= BOROUGHS.length; i++) {
+                speciesCounts[i] = Arrays.copyOf(speciesCounts[i], result * 2);
             }
         }
 
@@ -147,86 +497,1633 @@ public class TreeList implements Iterable<Tree> {
     }
 
     /**
-     * Gets the number of trees whose species' scientific names are the same as the
-     * given species name using a case-insensitive comparison.
+     * Adds a tree to, or removes a tree from, the totals by borough, the counts
+     * of each species, and the totals by postal (ZIP) code.
      * 
-     * @param speciesName the scientific name.
-     * @return The number of trees with the given scientific name.
+     * @param speciesID the species identifier of the tree.
+     * @param borough   the borough index of the tree, or -1 if the borough is
+     *                  unknown.
+     * @param health    the health code of the tree.
+     * @param zipCode   the postal (ZIP) code of the tree.
+     * @param delta     1 to add the tree, or -1 to remove it.
      */
-    public int getCountByLatinName(String speciesName) {
+    private void updateCounts(int speciesID, int borough, int health, int zipCode, int delta) {
+        if (borough >= 0) {
+            countsByBorough[borough] += delta;
+            speciesCounts[borough][speciesID] += delta;
+        }
+
+        speciesCounts[BOROUGHS.length][speciesID] += delta;
+
+        countsByZipCode.update(zipCode, speciesID, health == 0 ? TreeHealth.UNSPECIFIED.ordinal() : health - 1,
+                delta);
+    }
+
+    /**
+     * Gets the number of trees associated with the given species name in the
+     * given borough by adding the counts of each species with that name.
+     * 
+     * @param names       the index of the species with each name.
+     * @param speciesName the species name.
+     * @param borough     the borough index, or {@code BOROUGHS.length} for all
+     *                    boroughs.
+     * @return The number of matching trees.
+     */
+    private int getCount(SpeciesNameIndex names, String speciesName, int borough) {
+        if (speciesName == null || borough < 0) {
+            return 0;
+        }
+
+        final int[] row = speciesCounts[borough];
+
         int result = 0;
 
-        for (Tree tree : this) {
-            if (tree.getLatinName().equalsIgnoreCase(speciesName)) {
-                result++;
-            }
+        for (int speciesID : names.get(speciesName)) {
+            result += row[speciesID];
         }
 
         return result;
     }
 
     /**
-     * Gets the number of trees located in the given borough using a
-     * case-insensitive comparison.
+     * Gets the tree at the given position in the collection. The returned tree
+     * is a new object constructed from the stored values.
      * 
-     * @param boroName the borough name.
-     * @return The number of trees in the given borough.
+     * @param index the zero-based position of the tree.
+     * @return The tree.
+     * @throws IndexOutOfBoundsException if index is negative or not less than the
+     *                                   number of trees in the collection.
      */
-    public int getCountByBorough(String boroName) {
-        int result = 0;
+    public Tree get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(
+                    "Index was out of range. Must be non-negative and less than the size of the collection. Argument name: index.");
+        }
 
-        for (Tree tree : this) {
-            if (tree.getBorough().equalsIgnoreCase(boroName)) {
-                result++;
-            }
+        final int chunk = index >>> CHUNK_SHIFT;
+        final int offset = index & CHUNK_MASK;
+        final Tree result = new Tree(treeIDs[chunk][offset], species.get(speciesColumn[chunk][offset] & 0xffff));
+
+        final int status = statuses[chunk][offset];
+        final int health = healths[chunk][offset];
+
+        // Codes of zero represent statuses and health descriptions that were not set
+
+        if (status > 0) {
+            result.setStatus(STATUSES[status - 1]);
+        }
+
+        if (health > 0) {
+            result.setHealth(HEALTHS[health - 1]);
         }
 
+        result.setZipCode(zipCodes[chunk][offset]);
+        result.setBorough(BOROUGHS[boroughs[chunk][offset]]);
+        result.setX(xs[chunk][offset]);
+        result.setY(ys[chunk][offset]);
+
         return result;
     }
 
     /**
-     * Gets the number of trees whose species' common names are the same as the
-     * given species name and which are located in the given borough. All
-     * comparisons are case-insensitive.
+     * Gets the identifier of the tree at the given position without constructing
+     * the tree.
      * 
-     * @param speciesName the common name.
-     * @param boroName    the borough name.
-     * @return The number of trees with the given common name in the given borough.
+     * @param index the zero-based position of the tree, which must be less than
+     *              the number of trees in the collection.
+     * @return The tree identifier.
      */
-    public int getCountByCommonNameBorough(String speciesName, String boroName) {
-        int result = 0;
+    int getTreeID(int index) {
+        return treeIDs[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
 
-        for (Tree tree : this) {
-            if (tree.getBorough().equalsIgnoreCase(boroName) && tree.getCommonName().equalsIgnoreCase(speciesName)) {
-                result++;
-            }
+    /**
+     * Gets the index from tree identifiers to positions, building the index if
+     * it does not exist.
+     * 
+     * @return The index.
+     */
+    private synchronized TreeIDIndex getIDIndex() {
+        if (idIndex == null) {
+            idIndex = new TreeIDIndex(this);
         }
 
-        return result;
+        return idIndex;
     }
 
     /**
-     * Gets the number of trees whose species' scientific names are the same as the
-     * given species name and which are located in the given borough. All
-     * comparisons are case-insensitive.
+     * Gets the position of the first tree with the given identifier. The first
+     * lookup builds a hash index over the identifiers, after which each lookup
+     * takes constant expected time.
      * 
-     * @param speciesName the scientific name.
-     * @param boroName    the borough name.
-     * @return The number of trees with the given scientific name in the given
-     *         borough.
+     * @param treeID the tree identifier.
+     * @return The zero-based position of the tree, or -1 if no tree has the
+     *         identifier.
      */
-    public int getCountByLatinNameBorough(String speciesName, String boroName) {
-        int result = 0;
+    public int indexOfTreeID(int treeID) {
+        return getIDIndex().get(this, treeID);
+    }
+
+    /**
+     * Determines whether the collection contains a tree with the given
+     * identifier.
+     * 
+     * @param treeID the tree identifier.
+     * @return {@code true} if a tree has the identifier; otherwise,
+     *         {@code false}.
+     */
+    public boolean containsTreeID(int treeID) {
+        return indexOfTreeID(treeID) >= 0;
+    }
+
+    /**
+     * Gets the first tree with the given identifier. The returned tree is a new
+     * object constructed from the stored values.
+     * 
+     * @param treeID the tree identifier.
+     * @return The tree, or {@code null} if no tree has the identifier.
+     */
+    public Tree getByTreeID(int treeID) {
+        final int index = indexOfTreeID(treeID);
+
+        if (index < 0) {
+            return null;
+        }
+
+        return get(index);
+    }
+
+    /**
+     * Replaces the stored values of the first tree with the same identifier as
+     * the given tree, updating the counts.
+     * 
+     * @param tree the tree whose values to store.
+     * @return {@code true} if a tree with the identifier was updated; otherwise,
+     *         {@code false}.
+     * @throws IllegalArgumentException if tree is {@code null}.
+     */
+    public boolean update(Tree tree) {
+        if (tree == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: tree.");
+        }
+
+        final int index = indexOfTreeID(tree.getTreeID());
+
+        if (index < 0) {
+            return false;
+        }
+
+        final int chunk = index >>> CHUNK_SHIFT;
+        final int offset = index & CHUNK_MASK;
+        final int speciesID = getSpeciesID(tree.getSpecies());
+        final int borough = getBoroughIndex(tree.getBoroughValue());
+        final int health = getCode(tree.getHealthValue());
+
+        updateCounts(speciesColumn[chunk][offset] & 0xffff, boroughs[chunk][offset], healths[chunk][offset],
+                zipCodes[chunk][offset], -1);
+        copyChunk(chunk);
+
+        speciesColumn[chunk][offset] = (short) speciesID;
+        boroughs[chunk][offset] = (byte) borough;
+        statuses[chunk][offset] = (byte) getCode(tree.getStatusValue());
+        healths[chunk][offset] = (byte) health;
+        zipCodes[chunk][offset] = tree.getZipCode();
+        xs[chunk][offset] = tree.getX();
+        ys[chunk][offset] = tree.getY();
+
+        updateCounts(speciesID, borough, health, tree.getZipCode(), 1);
 
-        for (Tree tree : this) {
-            if (tree.getBorough().equalsIgnoreCase(boroName) && tree.getLatinName().equalsIgnoreCase(speciesName)) {
-                result++;
+        version++;
+
+        return true;
+    }
+
+    /**
+     * Gets the version of the collection. The version changes whenever the
+     * collection is modified, so results derived from the collection remain valid
+     * only while the version is unchanged.
+     * 
+     * @return The version.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the total number of trees in the collection.
+     * 
+     * @return The number of trees.
+     */
+    public int getTotalNumberOfTrees() {
+        return count;
+    }
+
+    /**
+     * Gets the number of trees whose species' common names are the same as the
+     * given species name in the city and in each borough using a single
+     * case-insensitive lookup.
+     * 
+     * @param speciesName the common name.
+     * @return A new array containing the number of trees with the given common
+     *         name in each borough, indexed by {@link Borough#ordinal()},
+     *         followed by the number of such trees in the city.
+     */
+    public int[] getCountsByCommonName(String speciesName) {
+        final int[] result = new int[BOROUGHS.length + 1];
+
+        if (speciesName == null) {
+            return result;
+        }
+
+        for (int speciesID : commonNames.get(speciesName)) {
+            for (int i = 0; i <= BOROUGHS.length; i++) {
+                result[i] += speciesCounts[i][speciesID];
             }
         }
 
         return result;
     }
 
+    /**
+     * Gets the number of trees whose species' common names are the same as the
+     * given species name using a case-insensitive comparison.
+     * 
+     * @param speciesName the common name
+     * @return The number of trees with the given common name.
+     */
+    public int getCountByCommonName(String speciesName) {
+        return getCount(commonNames, speciesName, BOROUGHS.length);
+    }
+
+    /**
+     * Gets the number of trees whose species' scientific names are the same as the
+     * given species name using a case-insensitive comparison.
+     * 
+     * @param speciesName the scientific name.
+     * @return The number of trees with the given scientific name.
+     */
+    public int getCountByLatinName(String speciesName) {
+        return getCount(latinNames, speciesName, BOROUGHS.length);
+    }
+
+    /**
+     * Gets the number of trees located in the given borough using a
+     * case-insensitive comparison.
+     * 
+     * @param boroName the borough name.
+     * @return The number of trees in the given borough.
+     */
+    public int getCountByBorough(String boroName) {
+        return getCountByBorough(Borough.parse(boroName));
+    }
+
+    /**
+     * Gets the number of trees located in the given borough.
+     * 
+     * @param borough the borough.
+     * @return The number of trees in the given borough, or zero if borough is
+     *         {@code null}.
+     */
+    public int getCountByBorough(Borough borough) {
+        if (borough == null) {
+            return 0;
+        }
+
+        return countsByBorough[borough.ordinal()];
+    }
+
+    /**
+     * Gets the number of trees in the given postal (ZIP) code.
+     * 
+     * @param zipCode the postcode, an integer between 00000 and 99999.
+     * @return The number of trees in the postcode.
+     * @throws IllegalArgumentException if zipCode is less than 0 or greater than
+     *                                  99999.
+     */
+    public int getCountByZipCode(int zipCode) {
+        if (zipCode < 0 || zipCode >= TreeFilter.ZIP_CODES) {
+            throw new IllegalArgumentException(
+                    "Value is out of range. Zip codes must be between 00000 and 99999, inclusive. Argument name: zipCode.");
+        }
+
+        return countsByZipCode.getCountByZipCode(zipCode);
+    }
+
+    /**
+     * Gets the number of trees whose species' common names are the same as the
+     * given species name and which are located in the given borough. All
+     * comparisons are case-insensitive.
+     * 
+     * @param speciesName the common name.
+     * @param boroName    the borough name.
+     * @return The number of trees with the given common name in the given borough.
+     */
+    public int getCountByCommonNameBorough(String speciesName, String boroName) {
+        return getCount(commonNames, speciesName, getBoroughIndex(boroName));
+    }
+
+    /**
+     * Gets the number of trees whose species' common names are the same as the
+     * given species name using a case-insensitive comparison and which are
+     * located in the given borough.
+     * 
+     * @param speciesName the common name.
+     * @param borough     the borough.
+     * @return The number of trees with the given common name in the given borough.
+     */
+    public int getCountByCommonNameBorough(String speciesName, Borough borough) {
+        return getCount(commonNames, speciesName, getBoroughIndex(borough));
+    }
+
+    /**
+     * Gets the number of trees whose species' scientific names are the same as the
+     * given species name and which are located in the given borough. All
+     * comparisons are case-insensitive.
+     * 
+     * @param speciesName the scientific name.
+     * @param boroName    the borough name.
+     * @return The number of trees with the given scientific name in the given
+     *         borough.
+     */
+    public int getCountByLatinNameBorough(String speciesName, String boroName) {
+        return getCount(latinNames, speciesName, getBoroughIndex(boroName));
+    }
+
+    /**
+     * Gets the number of trees whose species' scientific names are the same as the
+     * given species name using a case-insensitive comparison and which are
+     * located in the given borough.
+     * 
+     * @param speciesName the scientific name.
+     * @param borough     the borough.
+     * @return The number of trees with the given scientific name in the given
+     *         borough.
+     */
+    public int getCountByLatinNameBorough(String speciesName, Borough borough) {
+        return getCount(latinNames, speciesName, getBoroughIndex(borough));
+    }
+
+    /**
+     * Gets the x-coordinate of the tree at the given position.
+     * 
+     * @param index the zero-based position of the tree.
+     * @return The x-coordinate.
+     */
+    double getX(int index) {
+        return xs[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * Gets the y-coordinate of the tree at the given position.
+     * 
+     * @param index the zero-based position of the tree.
+     * @return The y-coordinate.
+     */
+    double getY(int index) {
+        return ys[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * Gets the species identifier of the tree at the given position.
+     * 
+     * @param index the zero-based position of the tree.
+     * @return The species identifier.
+     */
+    int getSpeciesCode(int index) {
+        return speciesColumn[index >>> CHUNK_SHIFT][index & CHUNK_MASK] & 0xffff;
+    }
+
+    /**
+     * Gets the borough index of the tree at the given position.
+     * 
+     * @param index the zero-based position of the tree.
+     * @return The borough index, or -1 if the borough is unknown.
+     */
+    int getBoroughCode(int index) {
+        return boroughs[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * Gets the status code of the tree at the given position.
+     * 
+     * @param index the zero-based position of the tree.
+     * @return The status code, which is zero if the status was not set.
+     */
+    int getStatusCode(int index) {
+        return statuses[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * Gets the health code of the tree at the given position.
+     * 
+     * @param index the zero-based position of the tree.
+     * @return The health code, which is zero if the health was not set.
+     */
+    int getHealthCode(int index) {
+        return healths[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * Gets the bitmap indices over the species, borough, status, and health of
+     * the trees, building them if they do not reflect the current contents of
+     * the collection.
+     * 
+     * @return The bitmap indices.
+     */
+    private synchronized BitmapIndex getBitmaps() {
+        if (bitmaps == null || bitmapsVersion != version) {
+            bitmaps = new BitmapIndex(this);
+            bitmapsVersion = version;
+        }
+
+        return bitmaps;
+    }
+
+    /**
+     * Gets the spatial index over the coordinates of the trees, building it if it
+     * does not reflect the current contents of the collection. The index is built
+     * under a lock so that concurrent queries of an unmodified collection are
+     * safe.
+     * 
+     * @return The spatial index.
+     */
+    private synchronized SpatialGrid getGrid() {
+        if (grid == null || gridVersion != version) {
+            grid = new SpatialGrid(this);
+            gridVersion = version;
+        }
+
+        return grid;
+    }
+
+    /**
+     * Gets the number of trees located within the given rectangle. Points on the
+     * edges of the rectangle are within the rectangle.
+     * 
+     * @param minX the minimum x-coordinate.
+     * @param minY the minimum y-coordinate.
+     * @param maxX the maximum x-coordinate.
+     * @param maxY the maximum y-coordinate.
+     * @return The number of trees within the rectangle.
+     */
+    public int getCountInBounds(double minX, double minY, double maxX, double maxY) {
+        return getGrid().count(SpatialGrid.Region.bounds(minX, minY, maxX, maxY), this);
+    }
+
+    /**
+     * Creates an iterator over the trees located within the given rectangle.
+     * Points on the edges of the rectangle are within the rectangle. The trees
+     * are returned in no particular order.
+     * 
+     * @param minX the minimum x-coordinate.
+     * @param minY the minimum y-coordinate.
+     * @param maxX the maximum x-coordinate.
+     * @param maxY the maximum y-coordinate.
+     * @return The iterator.
+     */
+    public Iterator<Tree> getTreesInBounds(double minX, double minY, double maxX, double maxY) {
+        return new PositionIterator(getGrid().iterator(SpatialGrid.Region.bounds(minX, minY, maxX, maxY), this));
+    }
+
+    /**
+     * Gets the number of trees located within the given distance of a point.
+     * 
+     * @param x      the x-coordinate of the point.
+     * @param y      the y-coordinate of the point.
+     * @param radius the distance, in the units of the coordinates.
+     * @return The number of trees within the distance.
+     * @throws IllegalArgumentException if radius is negative.
+     */
+    public int getCountWithinRadius(double x, double y, double radius) {
+        checkRadius(radius);
+
+        return getGrid().count(SpatialGrid.Region.circle(x, y, radius), this);
+    }
+
+    /**
+     * Creates an iterator over the trees located within the given distance of a
+     * point. The trees are returned in no particular order.
+     * 
+     * @param x      the x-coordinate of the point.
+     * @param y      the y-coordinate of the point.
+     * @param radius the distance, in the units of the coordinates.
+     * @return The iterator.
+     * @throws IllegalArgumentException if radius is negative.
+     */
+    public Iterator<Tree> getTreesWithinRadius(double x, double y, double radius) {
+        checkRadius(radius);
+
+        return new PositionIterator(getGrid().iterator(SpatialGrid.Region.circle(x, y, radius), this));
+    }
+
+    /**
+     * Creates an iterator over the trees nearest to the given point, from nearest
+     * to farthest. Trees at the same distance are returned in the order in which
+     * they were added.
+     * 
+     * @param x the x-coordinate of the point.
+     * @param y the y-coordinate of the point.
+     * @param k the maximum number of trees to return.
+     * @return The iterator.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    public Iterator<Tree> getNearestTrees(double x, double y, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException(
+                    "Value is out of range. A non-negative number is required. Argument name: k.");
+        }
+
+        return new PositionIterator(Arrays.stream(getGrid().getNearest(x, y, k, this)).iterator());
+    }
+
+    /**
+     * Validates a search radius.
+     * 
+     * @param radius the radius.
+     * @throws IllegalArgumentException if radius is negative.
+     */
+    private static void checkRadius(double radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException(
+                    "Value is out of range. A non-negative number is required. Argument name: radius.");
+        }
+    }
+
+    /**
+     * Represents a filter compiled against the species table of the collection.
+     * The name constraints are evaluated once for each species, and the
+     * constraints on the other fields are translated into masks of the codes in
+     * which the fields are stored, so that testing a tree only reads its columns.
+     */
+    private final class Selection {
+        private final boolean[] speciesMatches;
+        private final int boroughMask;
+        private final int statusMask;
+        private final int healthMask;
+        private final int minZipCode;
+        private final int maxZipCode;
+        private final SpatialGrid.Region[] regions;
+        private final boolean empty;
+
+        /**
+         * Initializes a new instance of the {@link Selection} class.
+         * 
+         * @param filter the filter to compile.
+         */
+        public Selection(TreeFilter filter) {
+            final String[][] commonNames = getKeys(filter.getCommonNames());
+            final String[][] latinNames = getKeys(filter.getLatinNames());
+
+            boolean matchesAnySpecies = true;
+
+            if (commonNames.length > 0 || latinNames.length > 0) {
+                speciesMatches = new boolean[species.size()];
+                matchesAnySpecies = false;
+
+                for (int i = 0; i < speciesMatches.length; i++) {
+                    final TreeSpecies item = species.get(i);
+
+                    speciesMatches[i] = satisfies(commonNames, getKey(item.getCommonName()))
+                            && satisfies(latinNames, getKey(item.getLatinName()));
+                    matchesAnySpecies |= speciesMatches[i];
+                }
+            } else {
+                speciesMatches = null;
+            }
+
+            // A tree in an unknown borough is stored with the index -1, which selects
+            // the sign bit. The bit is only set if the borough is unconstrained
+
+            boroughMask = filter.getBoroughMask();
+            statusMask = getCodeMask(filter.getStatusMask(), TreeStatus.UNSPECIFIED.ordinal());
+            healthMask = getCodeMask(filter.getHealthMask(), TreeHealth.UNSPECIFIED.ordinal());
+            minZipCode = filter.getMinZipCode();
+            maxZipCode = filter.getMaxZipCode();
+            regions = filter.getRegions();
+            empty = !matchesAnySpecies
+                    || boroughMask == 0
+                    || statusMask == 0
+                    || healthMask == 0
+                    || minZipCode > maxZipCode;
+        }
+
+        /**
+         * Determines whether the tree at the given position matches the filter.
+         * 
+         * @param index the zero-based position of the tree.
+         * @return {@code true} if the tree matches the filter; otherwise,
+         *         {@code false}.
+         */
+        public boolean matches(int index) {
+            final int chunk = index >>> CHUNK_SHIFT;
+            final int offset = index & CHUNK_MASK;
+
+            if (speciesMatches != null && !speciesMatches[speciesColumn[chunk][offset] & 0xffff]) {
+                return false;
+            }
+
+            if ((boroughMask & (1 << boroughs[chunk][offset])) == 0
+                    || (statusMask & (1 << statuses[chunk][offset])) == 0
+                    || (healthMask & (1 << healths[chunk][offset])) == 0) {
+                return false;
+            }
+
+            final int zipCode = zipCodes[chunk][offset];
+
+            if (zipCode < minZipCode || zipCode > maxZipCode) {
+                return false;
+            }
+
+            for (SpatialGrid.Region region : regions) {
+                if (!region.contains(xs[chunk][offset], ys[chunk][offset])) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Converts sets of species names to sets of canonical keys.
+     * 
+     * @param names the sets of species names.
+     * @return The sets of canonical keys.
+     */
+    private static String[][] getKeys(String[][] names) {
+        final String[][] result = new String[names.length][];
+
+        for (int i = 0; i < names.length; i++) {
+            result[i] = new String[names[i].length];
+
+            for (int j = 0; j < names[i].length; j++) {
+                result[i][j] = getKey(names[i][j]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines whether a canonical key belongs to every one of the given sets
+     * of canonical keys.
+     * 
+     * @param keys the sets of canonical keys.
+     * @param key  the canonical key.
+     * @return {@code true} if every set contains the key; otherwise,
+     *         {@code false}.
+     */
+    private static boolean satisfies(String[][] keys, String key) {
+        for (String[] set : keys) {
+            if (!Arrays.asList(set).contains(key)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Converts a mask of the ordinals of a status or health enumeration to a mask
+     * of the codes in which the values are stored. The code zero, which marks a
+     * value that was not set, is accepted together with the unspecified value.
+     * 
+     * @param mask        the mask of ordinals.
+     * @param unspecified the ordinal of the unspecified value.
+     * @return The mask of codes.
+     */
+    private static int getCodeMask(int mask, int unspecified) {
+        return (mask << 1) | ((mask >>> unspecified) & 1);
+    }
+
+    /**
+     * Gets the number of distinct values of the given field.
+     * 
+     * @param field the field identifier, or -1 to count every tree as one
+     *              group.
+     * @return The number of values.
+     */
+    private int getKeyCount(int field) {
+        switch (field) {
+            case TreeField.SPECIES_ID:
+                return species.size();
+
+            case TreeField.BOROUGH_ID:
+                return BOROUGHS.length;
+
+            case TreeField.STATUS_ID:
+                return STATUSES.length;
+
+            case TreeField.HEALTH_ID:
+                return HEALTHS.length;
+
+            case TreeField.ZIP_CODE_ID:
+                return TreeFilter.ZIP_CODES;
+
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Gets the code of the value of the given field for the tree at the given
+     * position.
+     * 
+     * @param field the field identifier, or -1 to count every tree as one
+     *              group.
+     * @param index the zero-based position of the tree.
+     * @return The code, or -1 if the tree has no value for the field.
+     */
+    private int getKey(int field, int index) {
+        final int chunk = index >>> CHUNK_SHIFT;
+        final int offset = index & CHUNK_MASK;
+
+        switch (field) {
+            case TreeField.SPECIES_ID:
+                return speciesColumn[chunk][offset] & 0xffff;
+
+            case TreeField.BOROUGH_ID:
+                return boroughs[chunk][offset];
+
+            case TreeField.STATUS_ID:
+                final int status = statuses[chunk][offset];
+
+                return status == 0 ? TreeStatus.UNSPECIFIED.ordinal() : status - 1;
+
+            case TreeField.HEALTH_ID:
+                final int health = healths[chunk][offset];
+
+                return health == 0 ? TreeHealth.UNSPECIFIED.ordinal() : health - 1;
+
+            case TreeField.ZIP_CODE_ID:
+                return zipCodes[chunk][offset];
+
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Gets the value of the given field with the given code.
+     * 
+     * @param field the field identifier.
+     * @param key   the code.
+     * @return The value.
+     */
+    private Object getValue(int field, int key) {
+        switch (field) {
+            case TreeField.SPECIES_ID:
+                return species.get(key);
+
+            case TreeField.BOROUGH_ID:
+                return BOROUGHS[key];
+
+            case TreeField.STATUS_ID:
+                return STATUSES[key];
+
+            case TreeField.HEALTH_ID:
+                return HEALTHS[key];
+
+            default:
+                return key;
+        }
+    }
+
+    /**
+     * Counts the trees that match a filter in each group of the given field
+     * using the counts of each species in each borough, if the filter only
+     * constrains the borough and at most one kind of species name.
+     * 
+     * @param filter the filter.
+     * @param field  the field identifier, or -1 to count every tree as one group.
+     * @param counts the number of matching trees with each code of the field.
+     * @return {@code true} if the counts answered the query; otherwise,
+     *         {@code false}.
+     */
+    private boolean countByVectors(TreeFilter filter, int field, int[] counts) {
+        final String[][] commonNames = filter.getCommonNames();
+        final String[][] latinNames = filter.getLatinNames();
+
+        if ((field != -1 && field != TreeField.BOROUGH_ID)
+                || filter.getStatusMask() != -1
+                || filter.getHealthMask() != -1
+                || filter.getMinZipCode() > 0
+                || filter.getMaxZipCode() < TreeFilter.ZIP_CODES - 1
+                || filter.getRegions().length > 0
+                || commonNames.length + latinNames.length > 1) {
+            return false;
+        }
+
+        final int boroughMask = filter.getBoroughMask();
+
+        // Each distinct name contributes its vector once
+
+        final ArrayList<int[]> vectors = new ArrayList<int[]>();
+
+        if (commonNames.length == 0 && latinNames.length == 0) {
+            final int[] vector = Arrays.copyOf(countsByBorough, BOROUGHS.length + 1);
+
+            vector[BOROUGHS.length] = count;
+
+            vectors.add(vector);
+        } else {
+            final String[] names = commonNames.length > 0 ? commonNames[0] : latinNames[0];
+            final SpeciesNameIndex index = commonNames.length > 0 ? this.commonNames : this.latinNames;
+            final ArrayList<int[]> groups = new ArrayList<int[]>();
+
+            for (String name : names) {
+                final int[] speciesIDs = index.get(name);
+
+                if (speciesIDs.length > 0 && !groups.contains(speciesIDs)) {
+                    final int[] vector = new int[BOROUGHS.length + 1];
+
+                    for (int speciesID : speciesIDs) {
+                        for (int i = 0; i <= BOROUGHS.length; i++) {
+                            vector[i] += speciesCounts[i][speciesID];
+                        }
+                    }
+
+                    groups.add(speciesIDs);
+                    vectors.add(vector);
+                }
+            }
+        }
+
+        for (int[] vector : vectors) {
+            if (field == TreeField.BOROUGH_ID) {
+                for (int i = 0; i < BOROUGHS.length; i++) {
+                    if ((boroughMask & (1 << i)) != 0) {
+                        counts[i] += vector[i];
+                    }
+                }
+            } else if (boroughMask == -1) {
+                counts[0] += vector[BOROUGHS.length];
+            } else {
+                for (int i = 0; i < BOROUGHS.length; i++) {
+                    if ((boroughMask & (1 << i)) != 0) {
+                        counts[0] += vector[i];
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Counts the trees that match a filter in each species using the counts of
+     * each species in each borough, if the filter only constrains the borough.
+     * 
+     * @param filter the filter.
+     * @param field  the field identifier, or -1 to count every tree as one group.
+     * @param counts the number of matching trees with each code of the field.
+     * @return {@code true} if the counts of each species answered the query;
+     *         otherwise, {@code false}.
+     */
+    private boolean countSpecies(TreeFilter filter, int field, int[] counts) {
+        if (field != TreeField.SPECIES_ID
+                || filter.getStatusMask() != -1
+                || filter.getHealthMask() != -1
+                || filter.getMinZipCode() > 0
+                || filter.getMaxZipCode() < TreeFilter.ZIP_CODES - 1
+                || filter.getRegions().length > 0
+                || filter.getCommonNames().length > 0
+                || filter.getLatinNames().length > 0) {
+            return false;
+        }
+
+        final int boroughMask = filter.getBoroughMask();
+
+        if (boroughMask == -1) {
+            System.arraycopy(speciesCounts[BOROUGHS.length], 0, counts, 0, counts.length);
+
+            return true;
+        }
+
+        for (int i = 0; i < BOROUGHS.length; i++) {
+            if ((boroughMask & (1 << i)) != 0) {
+                final int[] row = speciesCounts[i];
+
+                for (int j = 0; j < counts.length; j++) {
+                    counts[j] += row[j];
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Counts the trees that match a filter in each group of the given field
+     * using the totals by postal (ZIP) code, if the filter only constrains the
+     * postcode and the field is the species, health, or postcode.
+     * 
+     * @param filter the filter.
+     * @param field  the field identifier, or -1 to count every tree as one group.
+     * @param counts the number of matching trees with each code of the field.
+     * @return {@code true} if the totals answered the query; otherwise,
+     *         {@code false}.
+     */
+    private boolean countByZipCodes(TreeFilter filter, int field, int[] counts) {
+        if ((field != -1
+                && field != TreeField.SPECIES_ID
+                && field != TreeField.HEALTH_ID
+                && field != TreeField.ZIP_CODE_ID)
+                || filter.getBoroughMask() != -1
+                || filter.getStatusMask() != -1
+                || filter.getHealthMask() != -1
+                || filter.getRegions().length > 0
+                || filter.getCommonNames().length > 0
+                || filter.getLatinNames().length > 0) {
+            return false;
+        }
+
+        final int minZipCode = filter.getMinZipCode();
+        final int maxZipCode = filter.getMaxZipCode();
+        final int slots = countsByZipCode.size();
+
+        // Visit the few postcodes that hold trees rather than every postcode in the
+        // range
+
+        for (int slot = 0; slot < slots; slot++) {
+            final int zipCode = countsByZipCode.getZipCode(slot);
+
+            if (zipCode < minZipCode || zipCode > maxZipCode) {
+                continue;
+            }
+
+            switch (field) {
+                case TreeField.SPECIES_ID:
+                    final int[] speciesCounts = countsByZipCode.getSpeciesCounts(slot);
+                    final int length = Math.min(speciesCounts.length, counts.length);
+
+                    for (int i = 0; i < length; i++) {
+                        counts[i] += speciesCounts[i];
+                    }
+
+                    break;
+
+                case TreeField.HEALTH_ID:
+                    final int[] healthCounts = countsByZipCode.getHealthCounts(slot);
+
+                    for (int i = 0; i < HEALTHS.length; i++) {
+                        counts[i] += healthCounts[i];
+                    }
+
+                    break;
+
+                case TreeField.ZIP_CODE_ID:
+                    counts[zipCode] = countsByZipCode.getCount(slot);
+
+                    break;
+
+                default:
+                    counts[0] += countsByZipCode.getCount(slot);
+
+                    break;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Counts the trees that match a filter in each group of the given field. The
+     * counts of each species in each borough or the totals by postal (ZIP)
+     * code answer the query if they can. Otherwise, the spatial index
+     * selects the candidates within the filter's region, or the bitmap indices
+     * select the candidates with the filter's species, boroughs, statuses, and
+     * health descriptions. The candidates are counted from the bitmaps directly
+     * unless the postal (ZIP) code must also be examined, and every tree is
+     * examined in a single scan of the columns only if no index applies.
+     * 
+     * @param filter the filter.
+     * @param field  the field identifier, or -1 to count every tree as one group.
+     * @return The number of matching trees with each code of the field.
+     * @throws IllegalArgumentException if filter is {@code null}.
+     */
+    private int[] evaluate(TreeFilter filter, int field) {
+        if (filter == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: filter.");
+        }
+
+        final int[] result = new int[getKeyCount(field)];
+
+        if (countByVectors(filter, field, result)
+                || countSpecies(filter, field, result)
+                || countByZipCodes(filter, field, result)) {
+            return result;
+        }
+
+        final Selection selection = new Selection(filter);
+
+        if (selection.empty) {
+            return result;
+        }
+
+        final PrimitiveIterator.OfInt positions;
+
+        if (selection.regions.length > 0) {
+            positions = getGrid().iterator(selection.regions[0], this);
+        } else {
+            final BitmapIndex index = getBitmaps();
+            final RowBitmap candidates = index.select(selection.speciesMatches, selection.boroughMask,
+                    selection.statusMask, selection.healthMask);
+
+            if (selection.minZipCode == 0
+                    && selection.maxZipCode == TreeFilter.ZIP_CODES - 1
+                    && countByBitmaps(index, candidates, field, result)) {
+                return result;
+            }
+
+            if (candidates == null) {
+                for (int i = 0; i < count; i++) {
+                    if (selection.matches(i)) {
+                        final int key = getKey(field, i);
+
+                        if (key >= 0) {
+                            result[key]++;
+                        }
+                    }
+                }
+
+                return result;
+            }
+
+            positions = candidates.iterator();
+        }
+
+        while (positions.hasNext()) {
+            final int position = positions.nextInt();
+
+            if (selection.matches(position)) {
+                final int key = getKey(field, position);
+
+                if (key >= 0) {
+                    result[key]++;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Counts the selected trees in each group of the given field by intersecting
+     * the selection with the bitmap of each value of the field, if the field has
+     * a bitmap index.
+     * 
+     * @param index      the bitmap indices.
+     * @param candidates the positions of the selected trees, or {@code null} if
+     *                   every tree is selected.
+     * @param field      the field identifier, or -1 to count every tree as one
+     *                   group.
+     * @param counts     the number of selected trees with each code of the
+     *                   field.
+     * @return {@code true} if the bitmap indices answered the query; otherwise,
+     *         {@code false}.
+     */
+    private static boolean countByBitmaps(BitmapIndex index, RowBitmap candidates, int field, int[] counts) {
+        switch (field) {
+            case -1:
+                if (candidates == null) {
+                    return false;
+                }
+
+                counts[0] = candidates.cardinality();
+
+                return true;
+
+            case TreeField.SPECIES_ID:
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = countSelected(index.getSpecies(i), candidates);
+                }
+
+                return true;
+
+            case TreeField.BOROUGH_ID:
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = countSelected(index.getBorough(i), candidates);
+                }
+
+                return true;
+
+            case TreeField.STATUS_ID:
+                for (int code = 0; code <= STATUSES.length; code++) {
+                    counts[code == 0 ? TreeStatus.UNSPECIFIED.ordinal() : code - 1] += countSelected(
+                            index.getStatus(code), candidates);
+                }
+
+                return true;
+
+            case TreeField.HEALTH_ID:
+                for (int code = 0; code <= HEALTHS.length; code++) {
+                    counts[code == 0 ? TreeHealth.UNSPECIFIED.ordinal() : code - 1] += countSelected(
+                            index.getHealth(code), candidates);
+                }
+
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Counts the positions in a bitmap that are also selected.
+     * 
+     * @param bitmap     the bitmap.
+     * @param candidates the selected positions, or {@code null} if every position
+     *                   is selected.
+     * @return The number of selected positions in the bitmap.
+     */
+    private static int countSelected(RowBitmap bitmap, RowBitmap candidates) {
+        if (candidates == null) {
+            return bitmap.cardinality();
+        }
+
+        return candidates.andCardinality(bitmap);
+    }
+
+    /**
+     * Gets the number of trees that match the given filter.
+     * 
+     * @param filter the filter.
+     * @return The number of matching trees.
+     * @throws IllegalArgumentException if filter is {@code null}.
+     */
+    public int getCount(TreeFilter filter) {
+        return evaluate(filter, -1)[0];
+    }
+
+    /**
+     * Groups the trees that match the given filter by the value of the given
+     * field and counts the trees in each group.
+     * 
+     * @param <K>    the type of the values of the field.
+     * @param filter the filter.
+     * @param field  the field.
+     * @return A new map from each value of the field to the number of matching
+     *         trees with that value, in the order of the values. Values without
+     *         matching trees are omitted.
+     * @throws IllegalArgumentException if filter or field is {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public <K> Map<K, Integer> groupBy(TreeFilter filter, TreeField<K> field) {
+        if (field == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: field.");
+        }
+
+        final int[] counts = evaluate(filter, field.getID());
+        final LinkedHashMap<K, Integer> results = new LinkedHashMap<K, Integer>();
+
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                results.put((K) getValue(field.getID(), i), counts[i]);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Groups the trees that match the given filter by the value of the given
+     * field and counts the trees in the largest groups.
+     * 
+     * @param <K>    the type of the values of the field.
+     * @param filter the filter.
+     * @param field  the field.
+     * @param k      the maximum number of groups to return.
+     * @return A new map from each value of the field with the most matching trees
+     *         to the number of such trees, from the largest group to the smallest.
+     *         Groups of the same size are ordered by value.
+     * @throws IllegalArgumentException if filter or field is {@code null}, or k
+     *                                  is negative.
+     */
+    @SuppressWarnings("unchecked")
+    public <K> Map<K, Integer> getTop(TreeFilter filter, TreeField<K> field, int k) {
+        if (field == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: field.");
+        }
+
+        if (k < 0) {
+            throw new IllegalArgumentException(
+                    "Value is out of range. A non-negative number is required. Argument name: k.");
+        }
+
+        final int[] counts = evaluate(filter, field.getID());
+        final LinkedHashMap<K, Integer> results = new LinkedHashMap<K, Integer>();
+
+        for (int key : selectTop(counts, k)) {
+            results.put((K) getValue(field.getID(), key), counts[key]);
+        }
+
+        return results;
+    }
+
+    /**
+     * Gets the species with the most trees in the city. The counts of each
+     * species are maintained as trees are added, so the ranking takes a single
+     * pass over the species.
+     * 
+     * @param k the maximum number of species to return.
+     * @return A new map from each species with the most trees to its number of
+     *         trees, from the most common species to the least. Species with the
+     *         same number of trees are ordered by species identifier.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    public Map<TreeSpecies, Integer> getTopSpecies(int k) {
+        return rankSpecies(BOROUGHS.length, k);
+    }
+
+    /**
+     * Gets the species with the most trees in the given borough. The counts of
+     * each species are maintained as trees are added, so the ranking takes a
+     * single pass over the species.
+     * 
+     * @param borough the borough.
+     * @param k       the maximum number of species to return.
+     * @return A new map from each species with the most trees in the borough to
+     *         its number of trees there, from the most common species to the
+     *         least. Species with the same number of trees are ordered by
+     *         species identifier.
+     * @throws IllegalArgumentException if borough is {@code null}, or k is
+     *                                  negative.
+     */
+    public Map<TreeSpecies, Integer> getTopSpecies(Borough borough, int k) {
+        if (borough == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: borough.");
+        }
+
+        return rankSpecies(borough.ordinal(), k);
+    }
+
+    /**
+     * Gets the species with the most trees in each borough.
+     * 
+     * @param k the maximum number of species to return for each borough.
+     * @return A new map from each borough to a map from each species with the
+     *         most trees in the borough to its number of trees there, as
+     *         returned by {@link #getTopSpecies(Borough, int)}.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    public Map<Borough, Map<TreeSpecies, Integer>> getTopSpeciesByBorough(int k) {
+        final LinkedHashMap<Borough, Map<TreeSpecies, Integer>> results = new LinkedHashMap<Borough, Map<TreeSpecies, Integer>>();
+
+        for (int i = 0; i < BOROUGHS.length; i++) {
+            results.put(BOROUGHS[i], rankSpecies(i, k));
+        }
+
+        return results;
+    }
+
+    /**
+     * Ranks the species by their numbers of trees in one row of the counts of
+     * each species.
+     * 
+     * @param row the borough index, or {@code BOROUGHS.length} for the city.
+     * @param k   the maximum number of species to return.
+     * @return A new map from each species with the most trees to its number of
+     *         trees, from the most common species to the least.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    private Map<TreeSpecies, Integer> rankSpecies(int row, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException(
+                    "Value is out of range. A non-negative number is required. Argument name: k.");
+        }
+
+        final int[] counts = speciesCounts[row];
+        final LinkedHashMap<TreeSpecies, Integer> results = new LinkedHashMap<TreeSpecies, Integer>();
+
+        for (int key : selectTop(counts, k)) {
+            results.put(species.get(key), counts[key]);
+        }
+
+        return results;
+    }
+
+    /**
+     * Selects the codes with the largest nonzero counts using a bounded binary
+     * heap whose root is the smallest of the selected counts.
+     * 
+     * @param counts the count of each code.
+     * @param k      the maximum number of codes to select.
+     * @return The selected codes, from the largest count to the smallest. Equal
+     *         counts are ordered by code.
+     */
+    private static int[] selectTop(int[] counts, int k) {
+        final int[] heap = new int[Math.min(k, counts.length)];
+
+        int size = 0;
+
+        for (int key = 0; key < counts.length; key++) {
+            if (counts[key] == 0) {
+                continue;
+            }
+
+            if (size < heap.length) {
+                heap[size] = key;
+
+                siftUp(heap, size, counts);
+
+                size++;
+            } else if (size > 0 && precedes(key, heap[0], counts)) {
+                heap[0] = key;
+
+                siftDown(heap, size, counts);
+            }
+        }
+
+        // Remove the root repeatedly, filling the result from the end
+
+        final int[] result = new int[size];
+
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = heap[0];
+            size--;
+            heap[0] = heap[size];
+
+            siftDown(heap, size, counts);
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines whether one code ranks before another, either because it has a
+     * larger count or because it has the same count and a smaller code.
+     * 
+     * @param a      the first code.
+     * @param b      the second code.
+     * @param counts the count of each code.
+     * @return {@code true} if the first code ranks before the second; otherwise,
+     *         {@code false}.
+     */
+    private static boolean precedes(int a, int b, int[] counts) {
+        return counts[a] > counts[b] || (counts[a] == counts[b] && a < b);
+    }
+
+    /**
+     * Moves the code at the given position of a heap up until its parent ranks
+     * before it.
+     * 
+     * @param heap   the heap.
+     * @param index  the position of the code.
+     * @param counts the count of each code.
+     */
+    private static void siftUp(int[] heap, int index, int[] counts) {
+        final int key = heap[index];
+
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+
+            if (!precedes(heap[parent], key, counts)) {
+                break;
+            }
+
+            heap[index] = heap[parent];
+            index = parent;
+        }
+
+        heap[index] = key;
+    }
+
+    /**
+     * Moves the code at the root of a heap down until it ranks before both of
+     * its children.
+     * 
+     * @param heap   the heap.
+     * @param size   the number of codes in the heap.
+     * @param counts the count of each code.
+     */
+    private static void siftDown(int[] heap, int size, int[] counts) {
+        if (size == 0) {
+            return;
+        }
+
+        final int key = heap[0];
+
+        int index = 0;
+
+        while (true) {
+            int child = 2 * index + 1;
+
+            if (child >= size) {
+                break;
+            }
+
+            if (child + 1 < size && precedes(heap[child], heap[child + 1], counts)) {
+                child++;
+            }
+
+            if (!precedes(key, heap[child], counts)) {
+                break;
+            }
+
+            heap[index] = heap[child];
+            index = child;
+        }
+
+        heap[index] = key;
+    }
+
+    /**
+     * Gets the number of distinct species in the species table.
+     * 
+     * @return The number of species.
+     */
+    int getSpeciesCount() {
+        return species.size();
+    }
+
+    /**
+     * Gets the species with the given identifier in the species table.
+     * 
+     * @param speciesID the species identifier.
+     * @return The species.
+     */
+    TreeSpecies getSpecies(int speciesID) {
+        return species.get(speciesID);
+    }
+
+    /**
+     * Gets the identifier of the given species in the species table.
+     * 
+     * @param value the species.
+     * @return The species identifier, or -1 if the species is not present.
+     */
+    int indexOfSpecies(TreeSpecies value) {
+        return species.indexOf(value);
+    }
+
+    /**
+     * Writes the species table and the columns of the collection in a binary
+     * format that can be restored using {@link #read(ByteBuffer)}.
+     * 
+     * @param output the output.
+     * @throws IOException if an error occurs while writing to the output.
+     */
+    void write(DataOutput output) throws IOException {
+        output.writeInt(species.size());
+
+        for (TreeSpecies item : species) {
+            writeString(output, item.getCommonName());
+            writeString(output, item.getLatinName());
+        }
+
+        output.writeInt(count);
+
+        for (int i = 0; i < count; i++) {
+            output.writeInt(treeIDs[i >>> CHUNK_SHIFT][i & CHUNK_MASK]);
+        }
+
+        for (int i = 0; i < count; i++) {
+            output.writeShort(speciesColumn[i >>> CHUNK_SHIFT][i & CHUNK_MASK]);
+        }
+
+        for (byte[][] column : new byte[][][] { boroughs, statuses, healths }) {
+            for (int i = 0; i < count; i += CHUNK_SIZE) {
+                output.write(column[i >>> CHUNK_SHIFT], 0, Math.min(CHUNK_SIZE, count - i));
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            output.writeInt(zipCodes[i >>> CHUNK_SHIFT][i & CHUNK_MASK]);
+        }
+
+        for (double[][] column : new double[][][] { xs, ys }) {
+            for (int i = 0; i < count; i++) {
+                output.writeDouble(column[i >>> CHUNK_SHIFT][i & CHUNK_MASK]);
+            }
+        }
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string.
+     * 
+     * @param output the output.
+     * @param value  the string.
+     * @throws IOException if an error occurs while writing to the output.
+     */
+    private static void writeString(DataOutput output, String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     * 
+     * @param input the input.
+     * @return The string.
+     */
+    private static String readString(ByteBuffer input) {
+        final byte[] bytes = new byte[input.getInt()];
+
+        input.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Restores the species table and the columns of an empty collection from
+     * the binary format written by {@link #write(DataOutput)}. The columns are
+     * copied in bulk, and the counts are recomputed.
+     * 
+     * @param input the input, positioned at the beginning of the data.
+     * @throws IllegalStateException    if the collection is not empty.
+     * @throws IllegalArgumentException if the input contains a code that is out
+     *                                  of range.
+     */
+    void read(ByteBuffer input) {
+        if (count > 0) {
+            throw new IllegalStateException("The collection must be empty.");
+        }
+
+        final int speciesCount = input.getInt();
+
+        for (int i = 0; i < speciesCount; i++) {
+            final String commonName = readString(input);
+
+            getSpeciesID(new TreeSpecies(commonName, readString(input)));
+        }
+
+        final int length = input.getInt();
+
+        for (int i = 0; i < length; i += CHUNK_SIZE) {
+            allocateChunk(i >>> CHUNK_SHIFT);
+        }
+
+        for (int i = 0; i < length; i += CHUNK_SIZE) {
+            final int chunkLength = Math.min(CHUNK_SIZE, length - i);
+
+            input.asIntBuffer().get(treeIDs[i >>> CHUNK_SHIFT], 0, chunkLength);
+            input.position(input.position() + chunkLength * Integer.BYTES);
+        }
+
+        for (int i = 0; i < length; i += CHUNK_SIZE) {
+            final int chunkLength = Math.min(CHUNK_SIZE, length - i);
+
+            input.asShortBuffer().get(speciesColumn[i >>> CHUNK_SHIFT], 0, chunkLength);
+            input.position(input.position() + chunkLength * Short.BYTES);
+        }
+
+        for (byte[][] column : new byte[][][] { boroughs, statuses, healths }) {
+            for (int i = 0; i < length; i += CHUNK_SIZE) {
+                input.get(column[i >>> CHUNK_SHIFT], 0, Math.min(CHUNK_SIZE, length - i));
+            }
+        }
+
+        for (int i = 0; i < length; i += CHUNK_SIZE) {
+            final int chunkLength = Math.min(CHUNK_SIZE, length - i);
+
+            input.asIntBuffer().get(zipCodes[i >>> CHUNK_SHIFT], 0, chunkLength);
+            input.position(input.position() + chunkLength * Integer.BYTES);
+        }
+
+        for (double[][] column : new double[][][] { xs, ys }) {
+            for (int i = 0; i < length; i += CHUNK_SIZE) {
+                final int chunkLength = Math.min(CHUNK_SIZE, length - i);
+
+                input.asDoubleBuffer().get(column[i >>> CHUNK_SHIFT], 0, chunkLength);
+                input.position(input.position() + chunkLength * Double.BYTES);
+            }
+        }
+
+        // Recompute the counts and the totals by postal (ZIP) code from the
+        // restored columns. Reject codes that are out of range here, rather than
+        // when a query first uses them
+
+        final int speciesLength = species.size();
+
+        for (int i = 0; i < length; i++) {
+            final int chunk = i >>> CHUNK_SHIFT;
+            final int offset = i & CHUNK_MASK;
+            final int speciesID = speciesColumn[chunk][offset] & 0xffff;
+            final int borough = boroughs[chunk][offset];
+            final int status = statuses[chunk][offset];
+            final int health = healths[chunk][offset];
+            final int zipCode = zipCodes[chunk][offset];
+
+            if (speciesID >= speciesLength
+                    || borough < -1 || borough >= BOROUGHS.length
+                    || status < 0 || status > STATUSES.length
+                    || health < 0 || health > HEALTHS.length
+                    || zipCode < 0 || zipCode >= TreeFilter.ZIP_CODES) {
+                throw new IllegalArgumentException(
+                        "Value does not fall within the expected range. Argument name: input.");
+            }
+
+            updateCounts(speciesID, borough, health, zipCode, 1);
+        }
+
+        idIndex = null;
+        count = length;
+        version++;
+    }
+
     /** {@inheritDoc} */
     @Override
     public Iterator<Tree> iterator() {
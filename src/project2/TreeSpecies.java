@@ -1,13 +1,12 @@
 package project2;
 
-import java.util.Objects;
-
 /**
  * Represents a single tree species with a common and Latin name.
  */
 public class TreeSpecies {
-    private String latinName;
-    private String commonName;
+    private final String latinName;
+    private final String commonName;
+    private final int hashCode;
 
     /**
      * Initializes a new instance of the {@link TreeSpecies} class.
@@ -23,6 +22,7 @@ public class TreeSpecies {
         } else {
             this.commonName = commonName;
             this.latinName = latinName;
+            this.hashCode = 31 * getHashCode(latinName) + getHashCode(commonName);
         }
     }
 
@@ -61,8 +61,27 @@ public class TreeSpecies {
     /** {@inheritDoc} */
     @Override
     public int hashCode() {
-        // Hash upper-case strings to preserve case-insensitivity
+        return hashCode;
+    }
+
+    /**
+     * Computes a case-insensitive hash code for the given string without
+     * allocating a converted copy. Characters are folded the same way as in
+     * {@link String#equalsIgnoreCase(String)}, so strings that are equal ignoring
+     * case have the same hash code.
+     * 
+     * @param value the string.
+     * @return The hash code.
+     */
+    static int getHashCode(String value) {
+        final int length = value.length();
+
+        int result = 0;
+
+        for (int i = 0; i < length; i++) {
+            result = 31 * result + Character.toLowerCase(Character.toUpperCase(value.charAt(i)));
+        }
 
-        return Objects.hash(latinName.toUpperCase(), commonName.toUpperCase());
+        return result;
     }
 }
@@ -1,17 +1,237 @@
 package project2;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 /**
- * Represents a collection of tree species.
+ * Represents a collection of tree species. The collection maintains a
+ * case-insensitive hash index from each species to the position of its first
+ * occurrence, so that membership tests and interning take constant time.
  */
 public class TreeSpeciesList extends ArrayList<TreeSpecies> {
+    private static final long serialVersionUID = 1L;
+
+    // The index is rebuilt lazily whenever the list is modified other than by
+    // appending an element. It is built and published under a lock so that
+    // concurrent readers of an unmodified collection never see a partial index
+
+    private transient HashMap<TreeSpecies, Integer> index = new HashMap<TreeSpecies, Integer>();
+    private transient int indexModCount = 0;
+
+    // The substring search indices are also rebuilt lazily, but only when a
+    // keyword search follows a modification
+
+    private transient TrigramIndex commonNameIndex;
+    private transient TrigramIndex latinNameIndex;
+    private transient int searchModCount = 0;
+
     /**
      * Initializes a new instance of the {@link TreeSpeciesList} class.
      */
     public TreeSpeciesList() {
     }
 
+    /**
+     * Gets the version of the collection. The version changes whenever the
+     * collection is modified.
+     * 
+     * @return The version.
+     */
+    int getVersion() {
+        return modCount;
+    }
+
+    /**
+     * Gets the index from each species to the position of its first occurrence,
+     * rebuilding the index if the collection has been modified.
+     * 
+     * @return The index.
+     */
+    private synchronized HashMap<TreeSpecies, Integer> getIndex() {
+        if (index == null || indexModCount != modCount) {
+            final int size = size();
+            final HashMap<TreeSpecies, Integer> result = new HashMap<TreeSpecies, Integer>();
+
+            for (int i = 0; i < size; i++) {
+                result.putIfAbsent(get(i), i);
+            }
+
+            index = result;
+            indexModCount = modCount;
+        }
+
+        return index;
+    }
+
+    /**
+     * Gets the canonical instance of the given species, adding the species to the
+     * end of the collection if an equal species is not already present. The
+     * comparison is case-insensitive.
+     * 
+     * @param value the species.
+     * @return The first species in the collection that is equal to the given
+     *         species.
+     * @throws IllegalArgumentException if value is {@code null}.
+     */
+    public TreeSpecies intern(TreeSpecies value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null. Argument name: value.");
+        }
+
+        final Integer existing = getIndex().get(value);
+
+        if (existing != null) {
+            return get(existing);
+        }
+
+        add(value);
+
+        return value;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized boolean add(TreeSpecies e) {
+        final HashMap<TreeSpecies, Integer> current = getIndex();
+        final int position = size();
+
+        super.add(e);
+
+        // Appending an element does not move any other element, so the index can be
+        // updated in place
+
+        current.putIfAbsent(e, position);
+
+        indexModCount = modCount;
+
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TreeSpecies set(int index, TreeSpecies element) {
+        final TreeSpecies result = super.set(index, element);
+
+        // Replacing an element does not change the modification count
+
+        synchronized (this) {
+            this.index = null;
+            commonNameIndex = null;
+        }
+
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object clone() {
+        final TreeSpeciesList result = (TreeSpeciesList) super.clone();
+
+        // Do not share the index with the copy
+
+        result.index = null;
+        result.commonNameIndex = null;
+
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean contains(Object o) {
+        return getIndex().containsKey(o);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int indexOf(Object o) {
+        final Integer result = getIndex().get(o);
+
+        if (result == null) {
+            return -1;
+        }
+
+        return result;
+    }
+
+    /**
+     * Ensures that the substring search indices reflect the current contents of
+     * the collection. Names are converted to upper case once, when the indices
+     * are built, rather than on every search. The indices are built under a lock
+     * so that concurrent searches of an unmodified collection are safe.
+     */
+    private synchronized void updateSearchIndices() {
+        if (commonNameIndex == null || searchModCount != modCount) {
+            final int size = size();
+            final String[] commonNames = new String[size];
+            final String[] latinNames = new String[size];
+
+            for (int i = 0; i < size; i++) {
+                final TreeSpecies species = get(i);
+
+                commonNames[i] = species.getCommonName().toUpperCase();
+                latinNames[i] = species.getLatinName().toUpperCase();
+            }
+
+            commonNameIndex = new TrigramIndex(commonNames);
+            latinNameIndex = new TrigramIndex(latinNames);
+            searchModCount = modCount;
+        }
+    }
+
+    /**
+     * Gets the substring search index over the common names of the species.
+     * 
+     * @return The index.
+     */
+    private synchronized TrigramIndex getCommonNameIndex() {
+        updateSearchIndices();
+
+        return commonNameIndex;
+    }
+
+    /**
+     * Gets the substring search index over the Latin names of the species.
+     * 
+     * @return The index.
+     */
+    private synchronized TrigramIndex getLatinNameIndex() {
+        updateSearchIndices();
+
+        return latinNameIndex;
+    }
+
+    /**
+     * Constructs a new collection of the tree species whose indexed names
+     * contain a given keyword as a substring.
+     * 
+     * @param index   the substring search index.
+     * @param keyword the upper-case keyword.
+     * @return The collection of matching tree species, or {@code null} if there are
+     *         no matching species.
+     */
+    private TreeSpeciesList search(TrigramIndex index, String keyword) {
+        final int[] candidates = index.getCandidates(keyword);
+        final int length = candidates == null ? index.size() : candidates.length;
+
+        TreeSpeciesList results = null;
+
+        for (int i = 0; i < length; i++) {
+            final int position = candidates == null ? i : candidates[i];
+
+            if (index.contains(position, keyword)) {
+                // Return null instead of empty collection
+
+                if (results == null) {
+                    results = new TreeSpeciesList();
+                }
+
+                results.add(get(position));
+            }
+        }
+
+        return results;
+    }
+
     /**
      * Constructs a new collection of tree species containing the species whose
      * common names contain a given keyword as a substring. The comparison is
@@ -27,25 +247,9 @@ public class TreeSpeciesList extends ArrayList<TreeSpecies> {
         if (keyword == null) {
             throw new IllegalArgumentException("Value cannot be null. Argument name: keyword.");
         } else {
-            final TreeSpeciesList results = new TreeSpeciesList();
-
-            // Convert common name and keyword to upper case to preserve case-insensitivity
+            // Convert keyword to upper case to preserve case-insensitivity
 
-            keyword = keyword.toUpperCase();
-
-            for (TreeSpecies species : this) {
-                if (species.getCommonName().toUpperCase().contains(keyword)) {
-                    results.add(species);
-                }
-            }
-
-            // Return null instead of empty collection
-
-            if (results.size() == 0) {
-                return null;
-            } else {
-                return results;
-            }
+            return search(getCommonNameIndex(), keyword.toUpperCase());
         }
     }
 
@@ -64,25 +268,9 @@ public class TreeSpeciesList extends ArrayList<TreeSpecies> {
         if (keyword == null) {
             throw new IllegalArgumentException("Value cannot be null. Argument name: keyword.");
         } else {
-            final TreeSpeciesList results = new TreeSpeciesList();
-
-            // Convert Latin name and keyword to upper case to preserve case-insensitivity
+            // Convert keyword to upper case to preserve case-insensitivity
 
-            keyword = keyword.toUpperCase();
-
-            for (TreeSpecies species : this) {
-                if (species.getLatinName().toUpperCase().contains(keyword)) {
-                    results.add(species);
-                }
-            }
-
-            // Return null instead of empty collection
-
-            if (results.size() == 0) {
-                return null;
-            } else {
-                return results;
-            }
+            return search(getLatinNameIndex(), keyword.toUpperCase());
         }
     }
 }
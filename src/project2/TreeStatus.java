@@ -0,0 +1,86 @@
+package project2;
+
+/**
+ * Specifies the status of a tree, which represents the {@code status} field in the
+ * dataset. An empty field is a valid status.
+ * 
+ * @author Ishan Pranav
+ */
+public enum TreeStatus {
+    /**
+     * Indicates that the status field is empty.
+     */
+    UNSPECIFIED(""),
+
+    /**
+     * Indicates that the tree is alive.
+     */
+    ALIVE("Alive"),
+
+    /**
+     * Indicates that the tree is dead.
+     */
+    DEAD("Dead"),
+
+    /**
+     * Indicates that only the stump of the tree remains.
+     */
+    STUMP("Stump");
+
+    private static final TreeStatus[] VALUES = values();
+
+    private final String name;
+
+    private TreeStatus(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of the status as it appears in the dataset.
+     * 
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the status with the given name using a case-insensitive comparison.
+     * 
+     * @param name the name.
+     * @return The status, or {@code null} if the name is not a valid status name.
+     */
+    public static TreeStatus parse(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        for (TreeStatus item : VALUES) {
+            if (item.name.equalsIgnoreCase(name)) {
+                return item;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the status named by the given field of the current line of a
+     * comma-delimited data source using a case-insensitive comparison. The
+     * field is compared in place, without creating a string.
+     * 
+     * @param csv    the comma-delimited data source.
+     * @param column the zero-based index of the field.
+     * @return The status, or {@code null} if the field is not a valid status
+     *         name.
+     */
+    public static TreeStatus match(CSV csv, int column) {
+        for (TreeStatus item : VALUES) {
+            if (csv.fieldEqualsIgnoreCase(column, item.name)) {
+                return item;
+            }
+        }
+
+        return null;
+    }
+}
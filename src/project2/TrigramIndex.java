@@ -0,0 +1,149 @@
+package project2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents an immutable substring search index over a sequence of
+ * upper-case strings. Each string is decomposed into its trigrams (substrings
+ * of three characters), and each distinct trigram is associated with the
+ * sorted positions of the strings that contain it. A keyword of at least three
+ * characters can only occur in the strings that contain its rarest trigram, so
+ * only those strings need to be compared.
+ * 
+ * @author Ishan Pranav
+ */
+final class TrigramIndex {
+    private static final int[] EMPTY = new int[0];
+
+    private final String[] values;
+    private final long[] keys;
+    private final int[][] postings;
+
+    /**
+     * Initializes a new instance of the {@link TrigramIndex} class.
+     * 
+     * @param values the upper-case strings to index.
+     */
+    public TrigramIndex(String[] values) {
+        this.values = values;
+
+        final HashMap<Long, ArrayList<Integer>> lists = new HashMap<Long, ArrayList<Integer>>();
+
+        for (int i = 0; i < values.length; i++) {
+            final String value = values[i];
+
+            for (int j = 0; j + 3 <= value.length(); j++) {
+                final long key = getKey(value, j);
+
+                ArrayList<Integer> list = lists.get(key);
+
+                if (list == null) {
+                    list = new ArrayList<Integer>();
+
+                    lists.put(key, list);
+                }
+
+                // A trigram may occur more than once in the same string
+
+                if (list.isEmpty() || list.get(list.size() - 1) != i) {
+                    list.add(i);
+                }
+            }
+        }
+
+        keys = new long[lists.size()];
+
+        int index = 0;
+
+        for (long key : lists.keySet()) {
+            keys[index] = key;
+            index++;
+        }
+
+        Arrays.sort(keys);
+
+        postings = new int[keys.length][];
+
+        for (Map.Entry<Long, ArrayList<Integer>> entry : lists.entrySet()) {
+            final ArrayList<Integer> list = entry.getValue();
+            final int[] posting = new int[list.size()];
+
+            for (int i = 0; i < posting.length; i++) {
+                posting[i] = list.get(i);
+            }
+
+            postings[Arrays.binarySearch(keys, entry.getKey())] = posting;
+        }
+    }
+
+    /**
+     * Packs the trigram at the given position of a string into a single key.
+     * 
+     * @param value    the string.
+     * @param position the position of the first character of the trigram.
+     * @return The key.
+     */
+    private static long getKey(String value, int position) {
+        return ((long) value.charAt(position) << 32)
+                | ((long) value.charAt(position + 1) << 16)
+                | value.charAt(position + 2);
+    }
+
+    /**
+     * Gets the number of indexed strings.
+     * 
+     * @return The number of strings.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Gets the sorted positions of the strings that may contain the given
+     * keyword.
+     * 
+     * @param keyword the upper-case keyword.
+     * @return The positions of the candidate strings, or {@code null} if the
+     *         keyword is too short to use the index and every string is a
+     *         candidate.
+     */
+    public int[] getCandidates(String keyword) {
+        if (keyword.length() < 3) {
+            return null;
+        }
+
+        int[] result = null;
+
+        for (int i = 0; i + 3 <= keyword.length(); i++) {
+            final int index = Arrays.binarySearch(keys, getKey(keyword, i));
+
+            if (index < 0) {
+                // No string contains this trigram, so no string contains the keyword
+
+                return EMPTY;
+            }
+
+            if (result == null || postings[index].length < result.length) {
+                result = postings[index];
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines whether the string at the given position contains the given
+     * keyword.
+     * 
+     * @param position the position of the string.
+     * @param keyword  the upper-case keyword.
+     * @return {@code true} if the string contains the keyword; otherwise,
+     *         {@code false}.
+     */
+    public boolean contains(int position, String keyword) {
+        return values[position].contains(keyword);
+    }
+}
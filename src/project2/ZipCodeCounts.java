@@ -0,0 +1,194 @@
+package project2;
+
+import java.util.Arrays;
+
+/**
+ * Represents running totals over the trees in a {@link TreeList} by postal
+ * (ZIP) code: the number of trees in each postcode, and the number of trees of
+ * each species and with each health description in each postcode. A dense
+ * table indexed by postcode maps each postcode that has ever held a tree to a
+ * slot, and the totals of each slot are stored in primitive arrays, so the
+ * size of the totals depends only on the number of distinct postcodes and
+ * species.
+ * 
+ * @author Ishan Pranav
+ */
+final class ZipCodeCounts {
+    private static final int MIN_CAPACITY = 16;
+    private static final int HEALTHS = TreeHealth.values().length;
+
+    // The table holds one more than the slot of each postcode, so that zero marks
+    // a postcode without a slot. Slots are never removed, so a table that is
+    // shared with a copy must be copied only before a slot is added
+
+    private int[] slots;
+    private boolean sharedSlots;
+    private int[] zipCodes;
+    private int[] totals;
+    private int[][] speciesCounts;
+    private int[][] healthCounts;
+    private int size;
+
+    /**
+     * Initializes a new instance of the {@link ZipCodeCounts} class.
+     */
+    public ZipCodeCounts() {
+        slots = new int[TreeFilter.ZIP_CODES];
+        zipCodes = new int[MIN_CAPACITY];
+        totals = new int[MIN_CAPACITY];
+        speciesCounts = new int[MIN_CAPACITY][];
+        healthCounts = new int[MIN_CAPACITY][];
+    }
+
+    /**
+     * Initializes a new instance of the {@link ZipCodeCounts} class that is a
+     * copy of other totals. The copy can be modified independently of the
+     * original.
+     * 
+     * @param other the totals to copy.
+     */
+    public ZipCodeCounts(ZipCodeCounts other) {
+        slots = other.slots;
+        sharedSlots = true;
+        other.sharedSlots = true;
+        zipCodes = other.zipCodes.clone();
+        totals = other.totals.clone();
+        speciesCounts = new int[zipCodes.length][];
+        healthCounts = new int[zipCodes.length][];
+        size = other.size;
+
+        for (int i = 0; i < size; i++) {
+            speciesCounts[i] = other.speciesCounts[i].clone();
+            healthCounts[i] = other.healthCounts[i].clone();
+        }
+    }
+
+    /**
+     * Adds a tree to, or removes a tree from, the totals.
+     * 
+     * @param zipCode   the postal (ZIP) code of the tree.
+     * @param speciesID the species identifier of the tree.
+     * @param health    the ordinal of the health description of the tree.
+     * @param delta     1 to add the tree, or -1 to remove it.
+     */
+    public void update(int zipCode, int speciesID, int health, int delta) {
+        int slot = slots[zipCode] - 1;
+
+        if (slot < 0) {
+            slot = addSlot(zipCode);
+        }
+
+        int[] counts = speciesCounts[slot];
+
+        if (speciesID >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(speciesID + 1, counts.length * 2));
+            speciesCounts[slot] = counts;
+        }
+
+        totals[slot] += delta;
+        counts[speciesID] += delta;
+        healthCounts[slot][health] += delta;
+    }
+
+    /**
+     * Assigns the next slot to a postal (ZIP) code, growing the arrays of slots
+     * as necessary.
+     * 
+     * @param zipCode the postcode.
+     * @return The slot.
+     */
+    private int addSlot(int zipCode) {
+        if (sharedSlots) {
+            slots = slots.clone();
+            sharedSlots = false;
+        }
+
+        if (size == zipCodes.length) {
+            final int length = size * 2;
+
+            zipCodes = Arrays.copyOf(zipCodes, length);
+            totals = Arrays.copyOf(totals, length);
+            speciesCounts = Arrays.copyOf(speciesCounts, length);
+            healthCounts = Arrays.copyOf(healthCounts, length);
+        }
+
+        final int result = size;
+
+        zipCodes[result] = zipCode;
+        speciesCounts[result] = new int[MIN_CAPACITY];
+        healthCounts[result] = new int[HEALTHS];
+        slots[zipCode] = result + 1;
+        size++;
+
+        return result;
+    }
+
+    /**
+     * Gets the number of slots, which is the number of distinct postal (ZIP)
+     * codes that have held a tree.
+     * 
+     * @return The number of slots.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the postal (ZIP) code of the given slot.
+     * 
+     * @param slot the slot, which must be less than the number of slots.
+     * @return The postcode.
+     */
+    public int getZipCode(int slot) {
+        return zipCodes[slot];
+    }
+
+    /**
+     * Gets the number of trees in the given slot.
+     * 
+     * @param slot the slot, which must be less than the number of slots.
+     * @return The number of trees.
+     */
+    public int getCount(int slot) {
+        return totals[slot];
+    }
+
+    /**
+     * Gets the number of trees in the given postal (ZIP) code.
+     * 
+     * @param zipCode the postcode, an integer between 00000 and 99999.
+     * @return The number of trees.
+     */
+    public int getCountByZipCode(int zipCode) {
+        final int slot = slots[zipCode] - 1;
+
+        if (slot < 0) {
+            return 0;
+        }
+
+        return totals[slot];
+    }
+
+    /**
+     * Gets the number of trees of each species in the given slot.
+     * 
+     * @param slot the slot, which must be less than the number of slots.
+     * @return The number of trees of each species, indexed by species
+     *         identifier. Species beyond the end of the array have no trees in
+     *         the slot. The array must not be modified.
+     */
+    public int[] getSpeciesCounts(int slot) {
+        return speciesCounts[slot];
+    }
+
+    /**
+     * Gets the number of trees with each health description in the given slot.
+     * 
+     * @param slot the slot, which must be less than the number of slots.
+     * @return The number of trees with each health description, indexed by
+     *         {@link TreeHealth#ordinal()}. The array must not be modified.
+     */
+    public int[] getHealthCounts(int slot) {
+        return healthCounts[slot];
+    }
+}